@@ -16,15 +16,22 @@
 
 package com.github.ykiselev.gfx.sprite.font;
 
+import com.github.ykiselev.gfx.font.AtlasCodec;
 import com.github.ykiselev.gfx.font.Glyph;
 import com.github.ykiselev.gfx.font.GlyphRange;
+import com.github.ykiselev.gfx.font.KerningTable;
 import com.github.ykiselev.gfx.font.SpriteFont;
-import com.github.ykiselev.gfx.sprite.font.image.PngBytes;
+import com.github.ykiselev.gfx.sprite.font.image.AtlasBytes;
+import com.github.ykiselev.gfx.sprite.font.image.InkBounds;
+import com.github.ykiselev.gfx.sprite.font.image.ShelfPacker;
 import javafx.geometry.Bounds;
 import javafx.geometry.VPos;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
 import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -41,15 +48,29 @@ import java.util.stream.Collectors;
 import static java.util.Objects.requireNonNull;
 
 /**
+ * Renders glyphs into cells of temporary canvas (each cell has margin around it so overhanging parts of glyphs are not
+ * lost), finds ink bounds of each glyph and packs only ink rectangles into resulting atlas.
+ * <p>
+ * In grid mode each fixed pitch range of consecutive characters (whole monospace font or blocks like box-drawing
+ * characters) is packed as single block of equal cells instead, so range is stored as a few integers (see
+ * {@link GlyphRange#grid(int, int, int, int, int, int, int, short)}). Cells are glyph advance wide and font height
+ * tall, parts of glyphs overhanging the cell are clipped.
+ * <p>
  * Created by Uze on 07.01.2015.
  */
 public final class FontRasterizer {
 
     private static final int MAX_GLYPH_BORDER = 10;
 
+    /**
+     * Kerning pairs are measured only for this number of first code points (ranges are sorted, so these are the
+     * lowest code points of the font).
+     */
+    private static final int MAX_KERNING_CODE_POINTS = 512;
+
     private final Font font;
 
-    private final Collection<char[]> characters;
+    private final Collection<int[]> characters;
 
     private final char defaultCharacter;
 
@@ -57,7 +78,13 @@ public final class FontRasterizer {
 
     private final int glyphYBorder;
 
-    public FontRasterizer(Font font, List<char[]> characters, char defaultCharacter, int glyphXBorder, int glyphYBorder) {
+    private final AtlasCodec codec;
+
+    private final boolean kerning;
+
+    private final boolean grid;
+
+    public FontRasterizer(Font font, List<int[]> characters, char defaultCharacter, int glyphXBorder, int glyphYBorder, AtlasCodec codec, boolean kerning, boolean grid) {
         if (glyphXBorder < 0 || glyphXBorder > MAX_GLYPH_BORDER) {
             throw new IllegalArgumentException("Border width should be in range 0-" + MAX_GLYPH_BORDER);
         }
@@ -69,6 +96,9 @@ public final class FontRasterizer {
         this.defaultCharacter = defaultCharacter;
         this.glyphXBorder = glyphXBorder;
         this.glyphYBorder = glyphYBorder;
+        this.codec = requireNonNull(codec);
+        this.kerning = kerning;
+        this.grid = grid;
     }
 
     public SpriteFontAndImage build() {
@@ -82,7 +112,8 @@ public final class FontRasterizer {
                 .mapToInt(RangeMetrics::height)
                 .max()
                 .orElse(0);
-        final Canvas canvas = createCanvas(ranges, fontHeight);
+        final int margin = Math.max(1, fontHeight / 4);
+        final Canvas canvas = createCanvas(ranges, fontHeight, margin);
         final int characterWidth = ranges.stream()
                 .map(Range::metrics)
                 .mapToInt(RangeMetrics::characterWidth)
@@ -90,8 +121,13 @@ public final class FontRasterizer {
         final SnapshotParameters snapshotParameters = new SnapshotParameters();
         snapshotParameters.setFill(Color.color(0, 0, 0, 0));
         // Note: render glyphs before taking image snapshot
-        renderCharacters(canvas.getGraphicsContext2D(), ranges, fontHeight);
-        final WritableImage image = canvas.snapshot(snapshotParameters, null);
+        renderCharacters(canvas.getGraphicsContext2D(), ranges, fontHeight, margin);
+        final WritableImage image = packInk(
+                canvas.snapshot(snapshotParameters, null),
+                ranges,
+                fontHeight,
+                margin
+        );
         final SpriteFont spriteFont = new SpriteFont(
                 fontHeight,
                 defaultCharacter,
@@ -99,14 +135,16 @@ public final class FontRasterizer {
                 ranges.stream()
                         .map(Range::toGlyphRange)
                         .toArray(GlyphRange[]::new),
-                PngBytes.convert(image),
+                AtlasBytes.convert(image, codec),
+                codec,
+                kerning ? measureKerning() : KerningTable.EMPTY,
                 glyphXBorder,
                 glyphYBorder
         );
         return new SpriteFontAndImage(font.getName(), spriteFont, image);
     }
 
-    private void renderCharacters(GraphicsContext ctx, Collection<Range> ranges, int fontHeight) {
+    private void renderCharacters(GraphicsContext ctx, Collection<Range> ranges, int fontHeight, int margin) {
         final int width = (int) ctx.getCanvas().getWidth();
 
         ctx.setFont(font);
@@ -115,31 +153,153 @@ public final class FontRasterizer {
         ctx.setTextAlign(TextAlignment.LEFT);
         ctx.setFontSmoothingType(FontSmoothingType.LCD);
 
-        final int lineHeight = fontHeight + glyphYBorder;
-        int x = glyphXBorder;
-        int y = lineHeight;
+        final int cellHeight = fontHeight + 2 * margin;
+        int x = 0;
+        int y = 0;
         for (Range range : ranges) {
             final RangeMetrics metrics = range.metrics();
             for (int i = 0; i < range.length(); i++) {
-                final int w = metrics.width(i) + glyphXBorder;
-                final char character = range.charAt(i);
+                final int w = metrics.width(i) + 2 * margin;
                 if (x + w > width) {
-                    x = glyphXBorder;
-                    y += lineHeight;
+                    x = 0;
+                    y += cellHeight;
+                }
+                ctx.fillText(new String(Character.toChars(range.charAt(i))), x + margin, y + margin + fontHeight);
+                range.cell(i, x + margin, y + margin);
+                x += w;
+            }
+        }
+    }
+
+    /**
+     * Finds ink bounds of rendered glyphs and copies ink rectangles (or cells of grid ranges) into new atlas image.
+     *
+     * @param cells the image with rendered glyph cells
+     * @return the atlas image
+     */
+    private WritableImage packInk(WritableImage cells, List<Range> ranges, int fontHeight, int margin) {
+        final int cellsWidth = (int) cells.getWidth();
+        final int cellsHeight = (int) cells.getHeight();
+        final int[] argb = new int[cellsWidth * cellsHeight];
+        final PixelReader reader = cells.getPixelReader();
+        reader.getPixels(0, 0, cellsWidth, cellsHeight, PixelFormat.getIntArgbInstance(), argb, 0, cellsWidth);
+        final int pitchY = fontHeight + glyphYBorder;
+        // grid range is packed as single item
+        final int total = ranges.stream()
+                .mapToInt(r -> isGrid(r) ? 1 : r.length())
+                .sum();
+        final InkBounds[] inks = new InkBounds[total];
+        final int[] widths = new int[total];
+        final int[] heights = new int[total];
+        int k = 0;
+        for (Range range : ranges) {
+            final RangeMetrics metrics = range.metrics();
+            if (isGrid(range)) {
+                final int pitchX = metrics.characterWidth() + glyphXBorder;
+                final int columns = gridColumns(range.length(), pitchX, pitchY);
+                final int rows = (range.length() + columns - 1) / columns;
+                widths[k] = columns * pitchX - glyphXBorder;
+                heights[k] = rows * pitchY - glyphYBorder;
+                k++;
+                continue;
+            }
+            for (int i = 0; i < range.length(); i++, k++) {
+                final int x = range.cellX(i);
+                final int y = range.cellY(i);
+                final InkBounds ink = InkBounds.of(
+                        argb,
+                        cellsWidth,
+                        x - margin,
+                        y - margin,
+                        x + metrics.width(i) + margin,
+                        y + fontHeight + margin
+                );
+                inks[k] = ink;
+                widths[k] = ink.width();
+                heights[k] = ink.height();
+            }
+        }
+        final ShelfPacker packer = new ShelfPacker(widths, heights, glyphXBorder, glyphYBorder);
+        final WritableImage result = new WritableImage(packer.width(), packer.height());
+        final PixelWriter writer = result.getPixelWriter();
+        k = 0;
+        for (Range range : ranges) {
+            final RangeMetrics metrics = range.metrics();
+            if (isGrid(range)) {
+                final int characterWidth = metrics.characterWidth();
+                final int pitchX = characterWidth + glyphXBorder;
+                final GlyphRange gridRange = GlyphRange.grid(
+                        range.charAt(0),
+                        range.length(),
+                        packer.x(k),
+                        packer.y(k),
+                        gridColumns(range.length(), pitchX, pitchY),
+                        pitchX,
+                        pitchY,
+                        (short) characterWidth
+                );
+                for (int i = 0; i < range.length(); i++) {
+                    writer.setPixels(gridRange.glyphX(i), gridRange.glyphY(i), characterWidth, fontHeight, reader, range.cellX(i), range.cellY(i));
+                }
+                range.grid(gridRange);
+                k++;
+                continue;
+            }
+            for (int i = 0; i < range.length(); i++, k++) {
+                final InkBounds ink = inks[k];
+                final boolean blank = ink.width() == 0;
+                if (!blank) {
+                    writer.setPixels(packer.x(k), packer.y(k), ink.width(), ink.height(), reader, ink.x(), ink.y());
                 }
-                ctx.fillText(String.valueOf(character), x, y);
                 range.glyph(
                         i,
                         new Glyph(
-                                character,
-                                x,
-                                y - fontHeight,
-                                (short) metrics.width(i)
+                                range.charAt(i),
+                                packer.x(k),
+                                packer.y(k),
+                                (short) metrics.width(i),
+                                (short) (blank ? 0 : ink.x() - range.cellX(i)),
+                                (short) (blank ? 0 : ink.y() - range.cellY(i)),
+                                (short) ink.width(),
+                                (short) ink.height()
                         )
                 );
-                x += w;
             }
         }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if range should be packed as grid (grid mode is on and range is fixed pitch range of
+     * consecutive characters)
+     */
+    private boolean isGrid(Range range) {
+        return grid && range.metrics().characterWidth() > 0 && range.isConsecutive();
+    }
+
+    /**
+     * Calculates the number of grid columns to make grid block roughly square.
+     */
+    private static int gridColumns(int count, int pitchX, int pitchY) {
+        final int columns = (int) Math.ceil(Math.sqrt(count * (double) pitchY / pitchX));
+        return Math.max(1, Math.min(count, columns));
+    }
+
+    private KerningTable measureKerning() {
+        return new PairKerning(
+                () -> {
+                    final Text text = createText();
+                    return s -> {
+                        text.setText(s);
+                        return text.getLayoutBounds().getWidth();
+                    };
+                },
+                MAX_KERNING_CODE_POINTS
+        ).measure(
+                characters.stream()
+                        .flatMapToInt(Arrays::stream)
+                        .toArray()
+        );
     }
 
     private Text createText() {
@@ -168,50 +328,48 @@ public final class FontRasterizer {
         );
     }
 
-    private Canvas createCanvas(Collection<Range> ranges, int fontHeight) {
+    /**
+     * Creates canvas for glyph cells, each cell is surrounded by {@code margin} pixels.
+     */
+    private Canvas createCanvas(Collection<Range> ranges, int fontHeight, int margin) {
         final int[] widths = ranges.stream()
                 .map(Range::metrics)
                 .map(RangeMetrics::widths)
                 .flatMapToInt(Arrays::stream)
+                .map(w -> w + 2 * margin)
                 .toArray();
-        final int totalWidth = glyphXBorder + Arrays.stream(widths)
-                .map(v -> v + glyphXBorder)
-                .sum();
+        final int cellHeight = fontHeight + 2 * margin;
+        final int totalWidth = Arrays.stream(widths).sum();
         int rowWidth = nextPowerOfTwo((int) Math.sqrt(totalWidth));
         int rows;
         while (true) {
             rows = getRowCount(widths, rowWidth);
-            if (rows == 0) {
+            if (rows == 0 || rows * cellHeight > rowWidth) {
                 rowWidth *= 2;
             } else {
-                final int height = glyphYBorder + rows * (fontHeight + glyphYBorder);
-                if (height > rowWidth) {
-                    rowWidth *= 2;
-                } else {
-                    break;
-                }
+                break;
             }
         }
         return new Canvas(
                 rowWidth,
-                nextPowerOfTwo(glyphYBorder + rows * (fontHeight + glyphYBorder))
+                nextPowerOfTwo(rows * cellHeight)
         );
     }
 
     private int getRowCount(int[] widths, int maxRowWidth) {
         int result = 0;
-        int currentWidth = glyphXBorder;
+        int currentWidth = 0;
         for (int charWidth : widths) {
             if (charWidth > maxRowWidth) {
                 return 0;
             }
-            currentWidth += charWidth + glyphXBorder;
+            currentWidth += charWidth;
             if (currentWidth > maxRowWidth) {
                 result++;
-                currentWidth = glyphXBorder + charWidth;
+                currentWidth = charWidth;
             }
         }
-        if (currentWidth > glyphXBorder) {
+        if (currentWidth > 0) {
             result++;
         }
         return result;
@@ -251,13 +409,23 @@ final class RangeMetrics {
 
 final class Range {
 
-    private final char[] chars;
+    private final int[] chars;
 
     private final RangeMetrics metrics;
 
     private final Glyph[] glyphs;
 
-    char charAt(int index) {
+    /**
+     * Grid range if range was packed as grid.
+     */
+    private GlyphRange grid;
+
+    /**
+     * Coordinates of glyph cells (x, y pairs) on canvas.
+     */
+    private final int[] cells;
+
+    int charAt(int index) {
         return chars[index];
     }
 
@@ -273,22 +441,52 @@ final class Range {
         glyphs[index] = glyph;
     }
 
-    Range(char[] chars) {
-        this(chars, null, new Glyph[chars.length]);
+    void grid(GlyphRange grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * @return {@code true} if range consists of consecutive code points
+     */
+    boolean isConsecutive() {
+        for (int i = 1; i < chars.length; i++) {
+            if (chars[i] != chars[i - 1] + 1) {
+                return false;
+            }
+        }
+        return chars.length > 0;
+    }
+
+    void cell(int index, int x, int y) {
+        cells[2 * index] = x;
+        cells[2 * index + 1] = y;
+    }
+
+    int cellX(int index) {
+        return cells[2 * index];
+    }
+
+    int cellY(int index) {
+        return cells[2 * index + 1];
+    }
+
+    Range(int[] chars) {
+        this(chars, null, new Glyph[chars.length], new int[2 * chars.length]);
     }
 
-    Range(char[] chars, RangeMetrics metrics, Glyph[] glyphs) {
+    Range(int[] chars, RangeMetrics metrics, Glyph[] glyphs, int[] cells) {
         this.chars = chars;
         this.metrics = metrics;
         this.glyphs = glyphs;
+        this.cells = cells;
     }
 
     Range measure(Text text) {
         int min = Integer.MAX_VALUE, max = 0, rangeHeight = 0, characterWidth = 0;
         final int[] widths = new int[chars.length];
         for (int i = 0; i < chars.length; i++) {
-            final char ch = chars[i];
-            text.setText(String.valueOf(ch));
+            final int ch = chars[i];
+            text.setText(new String(Character.toChars(ch)));
             final Bounds bounds = text.getLayoutBounds();
             final int width = (int) Math.ceil(bounds.getWidth());
             final int height = (int) Math.ceil(bounds.getHeight());
@@ -309,11 +507,12 @@ final class Range {
         return new Range(
                 chars,
                 new RangeMetrics(widths, characterWidth, rangeHeight),
-                glyphs
+                glyphs,
+                cells
         );
     }
 
     GlyphRange toGlyphRange() {
-        return new GlyphRange(glyphs);
+        return grid != null ? grid : new GlyphRange(glyphs);
     }
 }
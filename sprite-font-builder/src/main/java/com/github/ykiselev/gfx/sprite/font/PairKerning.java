@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font;
+
+import com.github.ykiselev.gfx.font.KerningTable;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Measures kerning pairs: for each ordered pair of code points the width of the pair is compared with the sum of
+ * widths of single code points and only pairs where (rounded) difference is not zero are kept. Rows of pair matrix
+ * (all pairs with the same left code point) are measured in parallel, each worker thread gets its own measure
+ * function from the factory.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class PairKerning {
+
+    private final Supplier<ToDoubleFunction<String>> factory;
+
+    private final int maxCodePoints;
+
+    /**
+     * @param factory       the factory of text width functions, each function is used by single thread only
+     * @param maxCodePoints the maximum number of code points to measure pairs for (number of measured pairs grows as
+     *                      square of this value), the rest are ignored
+     */
+    public PairKerning(Supplier<ToDoubleFunction<String>> factory, int maxCodePoints) {
+        this.factory = requireNonNull(factory);
+        this.maxCodePoints = maxCodePoints;
+    }
+
+    /**
+     * @param codePoints the code points (only first {@code maxCodePoints} are used)
+     * @return the kerning table with pairs ordered by left and then by right code point index
+     */
+    public KerningTable measure(int[] codePoints) {
+        final int n = Math.min(codePoints.length, maxCodePoints);
+        if (n == 0) {
+            return KerningTable.EMPTY;
+        }
+        final String[] strings = new String[n];
+        for (int i = 0; i < n; i++) {
+            strings[i] = new String(Character.toChars(codePoints[i]));
+        }
+        final ThreadLocal<ToDoubleFunction<String>> measures = ThreadLocal.withInitial(factory);
+        final double[] singles = IntStream.range(0, n)
+                .parallel()
+                .mapToDouble(i -> measures.get().applyAsDouble(strings[i]))
+                .toArray();
+        // each row is sequence of (right index, amount)
+        final int[][] rows = IntStream.range(0, n)
+                .parallel()
+                .mapToObj(i -> row(measures.get(), strings, singles, i))
+                .toArray(int[][]::new);
+        final int size = Arrays.stream(rows)
+                .mapToInt(r -> r.length / 2)
+                .sum();
+        final int[] lefts = new int[size];
+        final int[] rights = new int[size];
+        final short[] amounts = new short[size];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            final int[] row = rows[i];
+            for (int j = 0; j < row.length; j += 2) {
+                lefts[k] = codePoints[i];
+                rights[k] = codePoints[row[j]];
+                amounts[k] = (short) row[j + 1];
+                k++;
+            }
+        }
+        return new KerningTable(lefts, rights, amounts);
+    }
+
+    private static int[] row(ToDoubleFunction<String> measure, String[] strings, double[] singles, int left) {
+        int[] result = new int[8];
+        int size = 0;
+        for (int right = 0; right < strings.length; right++) {
+            final double pair = measure.applyAsDouble(strings[left] + strings[right]);
+            final long amount = Math.round(pair - singles[left] - singles[right]);
+            if (amount != 0) {
+                if (size == result.length) {
+                    result = Arrays.copyOf(result, 2 * size);
+                }
+                result[size++] = right;
+                result[size++] = (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, amount));
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
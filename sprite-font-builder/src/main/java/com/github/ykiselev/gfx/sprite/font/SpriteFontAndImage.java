@@ -16,18 +16,23 @@
 
 package com.github.ykiselev.gfx.sprite.font;
 
+import com.github.ykiselev.gfx.font.AtlasCodec;
 import com.github.ykiselev.gfx.font.Glyph;
 import com.github.ykiselev.gfx.font.GlyphRange;
+import com.github.ykiselev.gfx.font.KerningTable;
 import com.github.ykiselev.gfx.font.SpriteFont;
+import com.github.ykiselev.gfx.sprite.font.image.PngBytes;
 import javafx.scene.image.WritableImage;
 
 import javax.json.Json;
-import javax.json.JsonArrayBuilder;
-import javax.json.JsonObjectBuilder;
+import javax.json.JsonException;
+import javax.json.stream.JsonGenerator;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
 
 /**
  * Created by Uze on 07.01.2015.
@@ -55,52 +60,144 @@ public final class SpriteFontAndImage {
     }
 
     public void saveSpriteFont(OutputStream os) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(os)) {
-            oos.writeObject(info);
-        }
+        new SpriteFontWriter(os).write(info);
     }
 
     public void savePng(OutputStream os) throws IOException {
-        os.write(info.image());
+        if (info.codec() == AtlasCodec.PNG) {
+            os.write(info.image());
+        } else {
+            os.write(PngBytes.convert(image));
+        }
     }
 
     public void saveJson(OutputStream os) throws IOException {
-        final JsonObjectBuilder builder = Json.createObjectBuilder()
-                .add("fontHeight", info.fontHeight())
-                .add("defaultCharacter", info.defaultCharacter())
-                .add("glyphXBorder", info.glyphXBorder())
-                .add("glyphYBorder", info.glyphYBorder());
-        if (info.characterWidth() > 0) {
-            builder.add("characterWidth", info.characterWidth());
-        }
-        final JsonArrayBuilder ab = Json.createArrayBuilder();
-        for (GlyphRange range : info.glyphs()) {
-            final JsonObjectBuilder rb = Json.createObjectBuilder();
-            final JsonArrayBuilder rab = Json.createArrayBuilder();
-            for (Glyph glyph : range.glyphs()) {
-                final JsonObjectBuilder b = Json.createObjectBuilder();
-                b.add("character", glyph.character())
-                        .add("x", glyph.x())
-                        .add("y", glyph.y());
-                if (glyph.width() > 0) {
-                    b.add("width", glyph.width());
+        saveJson(os, false);
+    }
+
+    /**
+     * Writes glyph descriptions (without image) as json directly to the stream. Stream is flushed but not closed.
+     * <p>
+     * In row layout each glyph is an object ({@code {"character": 97, "x": 1, "y": 2, "width": 5, ...}}). In columnar
+     * layout (marked with {@code "layout": "columnar"}) each range has parallel arrays {@code characters}, {@code x},
+     * {@code y} and {@code width} (plus {@code xOffset}, {@code yOffset}, {@code inkWidth} and {@code inkHeight} if
+     * glyphs have ink bounds, -1 for glyphs without them) and kerning pairs are stored as arrays {@code left},
+     * {@code right} and {@code amount}.
+     *
+     * @param os       the stream to write to
+     * @param columnar if {@code true} then columnar layout is used
+     */
+    public void saveJson(OutputStream os, boolean columnar) throws IOException {
+        final JsonGenerator g = Json.createGenerator(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        try {
+            g.writeStartObject();
+            if (columnar) {
+                g.write("layout", "columnar");
+            }
+            g.write("fontHeight", info.fontHeight())
+                    .write("defaultCharacter", info.defaultCharacter())
+                    .write("glyphXBorder", info.glyphXBorder())
+                    .write("glyphYBorder", info.glyphYBorder());
+            if (info.characterWidth() > 0) {
+                g.write("characterWidth", info.characterWidth());
+            }
+            g.writeStartArray("glyphs");
+            for (GlyphRange range : info.glyphs()) {
+                if (columnar) {
+                    writeColumns(g, range.glyphs());
+                } else {
+                    writeRows(g, range.glyphs());
                 }
-                rab.add(b);
             }
-            rb.add("glyphs", rab);
-            ab.add(rb);
+            g.writeEnd();
+            final KerningTable kerning = info.kerning();
+            if (!kerning.isEmpty()) {
+                if (columnar) {
+                    g.writeStartObject("kerning");
+                    g.writeStartArray("left");
+                    for (int i = 0; i < kerning.size(); i++) {
+                        g.write(kerning.left(i));
+                    }
+                    g.writeEnd();
+                    g.writeStartArray("right");
+                    for (int i = 0; i < kerning.size(); i++) {
+                        g.write(kerning.right(i));
+                    }
+                    g.writeEnd();
+                    g.writeStartArray("amount");
+                    for (int i = 0; i < kerning.size(); i++) {
+                        g.write(kerning.amount(i));
+                    }
+                    g.writeEnd();
+                    g.writeEnd();
+                } else {
+                    g.writeStartArray("kerning");
+                    for (int i = 0; i < kerning.size(); i++) {
+                        g.writeStartObject()
+                                .write("left", kerning.left(i))
+                                .write("right", kerning.right(i))
+                                .write("amount", kerning.amount(i))
+                                .writeEnd();
+                    }
+                    g.writeEnd();
+                }
+            }
+            g.writeEnd();
+            g.flush();
+        } catch (JsonException e) {
+            throw new IOException("Unable to write json!", e);
+        }
+    }
+
+    private static void writeRows(JsonGenerator g, Glyph[] glyphs) {
+        g.writeStartObject();
+        g.writeStartArray("glyphs");
+        for (Glyph glyph : glyphs) {
+            g.writeStartObject()
+                    .write("character", glyph.codePoint())
+                    .write("x", glyph.x())
+                    .write("y", glyph.y());
+            if (glyph.width() > 0) {
+                g.write("width", glyph.width());
+            }
+            if (glyph.hasInkBounds()) {
+                g.write("xOffset", glyph.xOffset())
+                        .write("yOffset", glyph.yOffset())
+                        .write("inkWidth", glyph.inkWidth())
+                        .write("inkHeight", glyph.inkHeight());
+            }
+            g.writeEnd();
+        }
+        g.writeEnd();
+        g.writeEnd();
+    }
+
+    private static void writeColumns(JsonGenerator g, Glyph[] glyphs) {
+        g.writeStartObject();
+        writeColumn(g, "characters", glyphs, Glyph::codePoint);
+        writeColumn(g, "x", glyphs, Glyph::x);
+        writeColumn(g, "y", glyphs, Glyph::y);
+        writeColumn(g, "width", glyphs, Glyph::width);
+        if (Arrays.stream(glyphs).anyMatch(Glyph::hasInkBounds)) {
+            writeColumn(g, "xOffset", glyphs, Glyph::xOffset);
+            writeColumn(g, "yOffset", glyphs, Glyph::yOffset);
+            writeColumn(g, "inkWidth", glyphs, Glyph::inkWidth);
+            writeColumn(g, "inkHeight", glyphs, Glyph::inkHeight);
+        }
+        g.writeEnd();
+    }
+
+    private static void writeColumn(JsonGenerator g, String name, Glyph[] glyphs, ToIntFunction<Glyph> column) {
+        g.writeStartArray(name);
+        for (Glyph glyph : glyphs) {
+            g.write(column.applyAsInt(glyph));
         }
-        builder.add("glyphs", ab.build());
-        os.write(
-                builder.build()
-                        .toString()
-                        .getBytes(StandardCharsets.UTF_8)
-        );
+        g.writeEnd();
     }
 
 //    public void saveGlyphImage(char value, File destFile) throws IOException {
 //        for (Glyph glyph : info.glyphs()) {
-//            if (glyph.character() == value) {
+//            if (glyph.codePoint() == value) {
 //                final BufferedImage bufferedImage = SwingFXUtils.fromFXImage(image, null);
 //                final BufferedImage glyphImage = bufferedImage.getSubimage(
 //                        glyph.x(),
@@ -16,6 +16,7 @@
 
 package com.github.ykiselev.gfx.sprite.font;
 
+import com.github.ykiselev.gfx.font.AtlasCodec;
 import com.github.ykiselev.gfx.sprite.font.chars.CharRange;
 import javafx.scene.text.Font;
 
@@ -40,19 +41,28 @@ public final class SpriteFontReceipt {
 
     private final int glyphYBorder;
 
-    public SpriteFontReceipt(Font font, List<CharRange> ranges, char defaultCharacter, int glyphXBorder, int glyphYBorder) {
+    private final AtlasCodec codec;
+
+    private final boolean kerning;
+
+    private final boolean grid;
+
+    public SpriteFontReceipt(Font font, List<CharRange> ranges, char defaultCharacter, int glyphXBorder, int glyphYBorder, AtlasCodec codec, boolean kerning, boolean grid) {
         this.font = font;
         this.ranges = ranges;
         this.defaultCharacter = defaultCharacter;
         this.glyphXBorder = glyphXBorder;
         this.glyphYBorder = glyphYBorder;
+        this.codec = codec;
+        this.kerning = kerning;
+        this.grid = grid;
     }
 
     public SpriteFontAndImage build() {
         final List<CharRange> src = new ArrayList<>(ranges);
         src.add(new CharRange(defaultCharacter, defaultCharacter));
         final List<CharRange> ranges = join(src);
-        final List<char[]> chars = ranges.stream()
+        final List<int[]> chars = ranges.stream()
                 .sorted()
                 .map(CharRange::get)
                 .collect(Collectors.toList());
@@ -61,7 +71,10 @@ public final class SpriteFontReceipt {
                 chars,
                 defaultCharacter,
                 glyphXBorder,
-                glyphYBorder
+                glyphYBorder,
+                codec,
+                kerning,
+                grid
         ).build();
     }
 
@@ -93,13 +106,16 @@ public final class SpriteFontReceipt {
         return defaultCharacter == that.defaultCharacter &&
                 glyphXBorder == that.glyphXBorder &&
                 glyphYBorder == that.glyphYBorder &&
+                codec == that.codec &&
+                kerning == that.kerning &&
+                grid == that.grid &&
                 Objects.equals(font, that.font) &&
                 Objects.equals(ranges, that.ranges);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(font, ranges, defaultCharacter, glyphXBorder, glyphYBorder);
+        return Objects.hash(font, ranges, defaultCharacter, glyphXBorder, glyphYBorder, codec, kerning, grid);
     }
 
     @Override
@@ -110,6 +126,9 @@ public final class SpriteFontReceipt {
                 ", defaultCharacter=" + defaultCharacter +
                 ", glyphXBorder=" + glyphXBorder +
                 ", glyphYBorder=" + glyphYBorder +
+                ", codec=" + codec +
+                ", kerning=" + kerning +
+                ", grid=" + grid +
                 '}';
     }
 }
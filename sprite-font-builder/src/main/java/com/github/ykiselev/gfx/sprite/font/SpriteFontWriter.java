@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font;
+
+import com.github.ykiselev.gfx.font.AtlasCodec;
+import com.github.ykiselev.gfx.font.Glyph;
+import com.github.ykiselev.gfx.font.GlyphRange;
+import com.github.ykiselev.gfx.font.KerningTable;
+import com.github.ykiselev.gfx.font.SpriteFont;
+import com.github.ykiselev.gfx.font.SpriteFontFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes sprite font in {@link SpriteFontFormat binary format}. Chunks are written to the stream one by one, only
+ * glyph tables are buffered (to calculate their length), image is copied to the stream as is.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class SpriteFontWriter {
+
+    private final DataOutputStream os;
+
+    public SpriteFontWriter(OutputStream os) {
+        this.os = new DataOutputStream(os);
+    }
+
+    /**
+     * Writes sprite font to the stream. Stream is flushed but not closed.
+     *
+     * @param font the font to write
+     * @throws IOException if write fails
+     */
+    public void write(SpriteFont font) throws IOException {
+        os.writeInt(SpriteFontFormat.MAGIC);
+        os.writeShort(SpriteFontFormat.VERSION);
+        writeMeta(font);
+        writeGlyphs(font.glyphs());
+        if (font.codec() != AtlasCodec.PNG) {
+            writeChunk(SpriteFontFormat.IFMT, new byte[]{(byte) font.codec().id()});
+        }
+        if (!font.kerning().isEmpty()) {
+            writeKerning(font.kerning());
+        }
+        writeChunk(
+                SpriteFontFormat.FPRT,
+                ByteBuffer.allocate(Long.BYTES)
+                        .putLong(font.fingerprint())
+                        .array()
+        );
+        writeChunk(SpriteFontFormat.IMAG, font.image());
+        os.writeInt(SpriteFontFormat.END);
+        os.writeInt(0);
+        os.flush();
+    }
+
+    private void writeMeta(SpriteFont font) throws IOException {
+        os.writeInt(SpriteFontFormat.META);
+        os.writeInt(18);
+        os.writeInt(font.fontHeight());
+        os.writeChar(font.defaultCharacter());
+        os.writeInt(font.characterWidth());
+        os.writeInt(font.glyphXBorder());
+        os.writeInt(font.glyphYBorder());
+    }
+
+    private void writeGlyphs(GlyphRange[] ranges) throws IOException {
+        final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        final DataOutputStream cos = new DataOutputStream(chunk);
+        final ByteArrayOutputStream range = new ByteArrayOutputStream();
+        final DataOutputStream ros = new DataOutputStream(range);
+        cos.writeInt(ranges.length);
+        for (GlyphRange r : ranges) {
+            range.reset();
+            if (r.isGrid()) {
+                writeSigned(ros, r.gridX());
+                writeSigned(ros, r.gridY());
+                writeSigned(ros, r.columns());
+                writeSigned(ros, r.pitchX());
+                writeSigned(ros, r.pitchY());
+                ros.writeShort(r.advance());
+                cos.writeByte(SpriteFontFormat.RANGE_GRID);
+                cos.writeInt(r.size());
+                cos.writeInt(r.start());
+            } else {
+                final Glyph[] glyphs = r.glyphs();
+                final int start = glyphs.length > 0 ? glyphs[0].codePoint() : 0;
+                writeGlyphs(ros, glyphs, start);
+                cos.writeByte(SpriteFontFormat.RANGE_GLYPHS);
+                cos.writeInt(glyphs.length);
+                cos.writeInt(start);
+            }
+            cos.writeInt(range.size());
+            range.writeTo(cos);
+        }
+        writeChunk(SpriteFontFormat.GLYF, chunk.toByteArray());
+    }
+
+    private static void writeGlyphs(DataOutputStream os, Glyph[] glyphs, int start) throws IOException {
+        int ch = start, x = 0, y = 0;
+        for (Glyph glyph : glyphs) {
+            writeSigned(os, glyph.codePoint() - ch);
+            writeSigned(os, glyph.x() - x);
+            writeSigned(os, glyph.y() - y);
+            os.writeShort(glyph.width());
+            if (glyph.hasInkBounds()) {
+                writeSigned(os, glyph.inkWidth());
+                writeSigned(os, glyph.xOffset());
+                writeSigned(os, glyph.yOffset());
+                writeSigned(os, glyph.inkHeight());
+            } else {
+                writeSigned(os, -1);
+            }
+            ch = glyph.codePoint();
+            x = glyph.x();
+            y = glyph.y();
+        }
+    }
+
+    private void writeKerning(KerningTable kerning) throws IOException {
+        final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        final DataOutputStream cos = new DataOutputStream(chunk);
+        cos.writeInt(kerning.size());
+        int left = 0, right = 0;
+        for (int i = 0; i < kerning.size(); i++) {
+            writeSigned(cos, kerning.left(i) - left);
+            writeSigned(cos, kerning.right(i) - right);
+            writeSigned(cos, kerning.amount(i));
+            left = kerning.left(i);
+            right = kerning.right(i);
+        }
+        writeChunk(SpriteFontFormat.KERN, chunk.toByteArray());
+    }
+
+    private void writeChunk(int tag, byte[] data) throws IOException {
+        os.writeInt(tag);
+        os.writeInt(data.length);
+        os.write(data);
+    }
+
+    private static void writeUnsigned(DataOutputStream os, int value) throws IOException {
+        int v = value;
+        while ((v & ~0x7f) != 0) {
+            os.writeByte((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        os.writeByte(v);
+    }
+
+    private static void writeSigned(DataOutputStream os, int value) throws IOException {
+        writeUnsigned(os, (value << 1) ^ (value >> 31));
+    }
+}
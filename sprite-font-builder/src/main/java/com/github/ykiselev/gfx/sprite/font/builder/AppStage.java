@@ -74,6 +74,8 @@ public final class AppStage {
 
     private static final FileChooser.ExtensionFilter JSON_EXT_FILTER = new FileChooser.ExtensionFilter("Sprite Font Description As Json (*.json)", "*.json");
 
+    private static final FileChooser.ExtensionFilter JSON_COLUMNAR_EXT_FILTER = new FileChooser.ExtensionFilter("Sprite Font Description As Columnar Json (*.json)", "*.json");
+
     private static final FileChooser.ExtensionFilter RECEIPT_EXT_FILTER = new FileChooser.ExtensionFilter("Sprite Font Receipt (*.sfr)", "*.sfr");
 
     private final TabPane tabPane = new TabPane();
@@ -123,7 +125,10 @@ public final class AppStage {
                 characterRangeTab.getCharRanges(),
                 characterRangeTab.getDefaultCharacter(),
                 characterRangeTab.getGlyphBorderWidth(),
-                characterRangeTab.getGlyphBorderHeight()
+                characterRangeTab.getGlyphBorderHeight(),
+                bitmapTab.getCodec(),
+                characterRangeTab.isKerning(),
+                characterRangeTab.isGrid()
         );
     }
 
@@ -319,7 +324,7 @@ public final class AppStage {
                 dlg.setInitialFileName(spriteFontAndImage.getName());
                 dlg.getExtensionFilters().clear();
                 dlg.getExtensionFilters().addAll(
-                        BIN_EXT_FILTER, PNG_EXT_FILTER, JSON_EXT_FILTER, RECEIPT_EXT_FILTER
+                        BIN_EXT_FILTER, PNG_EXT_FILTER, JSON_EXT_FILTER, JSON_COLUMNAR_EXT_FILTER, RECEIPT_EXT_FILTER
                 );
                 final File file = dlg.showSaveDialog(appStage);
                 if (file != null) {
@@ -333,6 +338,8 @@ public final class AppStage {
                             spriteFontAndImage.savePng(os);
                         } else if (filter == JSON_EXT_FILTER) {
                             spriteFontAndImage.saveJson(os);
+                        } else if (filter == JSON_COLUMNAR_EXT_FILTER) {
+                            spriteFontAndImage.saveJson(os, true);
                         } else if (filter == RECEIPT_EXT_FILTER) {
                             saveToFile(
                                     collectSpriteFontConfig(),
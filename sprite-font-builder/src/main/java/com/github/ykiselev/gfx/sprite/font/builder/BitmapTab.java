@@ -16,7 +16,13 @@
 
 package com.github.ykiselev.gfx.sprite.font.builder;
 
+import com.github.ykiselev.gfx.font.AtlasCodec;
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigValueFactory;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Tab;
 import javafx.scene.control.Tooltip;
@@ -29,15 +35,24 @@ import javafx.scene.layout.BorderStroke;
 import javafx.scene.layout.BorderStrokeStyle;
 import javafx.scene.layout.BorderWidths;
 import javafx.scene.layout.CornerRadii;
+import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * @author Yuriy Kiselev (uze@yandex.ru).
  */
 public final class BitmapTab implements BuilderTab {
 
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
     private final Tab tab = new Tab("Font Bitmap");
 
+    private final BorderPane content = new BorderPane();
+
+    private final ComboBox<AtlasCodec> codecComboBox = new ComboBox<>();
+
     @Override
     public Tab tab() {
         return tab;
@@ -45,6 +60,17 @@ public final class BitmapTab implements BuilderTab {
 
     public BitmapTab() {
         tab.setClosable(false);
+        codecComboBox.setItems(FXCollections.observableArrayList(AtlasCodec.values()));
+        codecComboBox.getSelectionModel().select(AtlasCodec.PNG);
+        final HBox hbox = new HBox(4.0, new Label("Image codec:"), codecComboBox);
+        hbox.setPadding(new Insets(4.0));
+        content.setTop(hbox);
+        tab.setContent(content);
+    }
+
+    public AtlasCodec getCodec() {
+        final AtlasCodec codec = codecComboBox.getSelectionModel().getSelectedItem();
+        return codec != null ? codec : AtlasCodec.PNG;
     }
 
     public void show(Image image) {
@@ -64,16 +90,28 @@ public final class BitmapTab implements BuilderTab {
                 )
         );
         final ScrollPane scrollPane = new ScrollPane(borderPane);
-        tab.setContent(scrollPane);
+        content.setCenter(scrollPane);
         tab.setTooltip(new Tooltip("Bitmap size: " + image.getWidth() + ":" + image.getHeight()));
     }
 
     @Override
     public void load(Config state) {
+        try {
+            codecComboBox.getSelectionModel().select(
+                    AtlasCodec.valueOf(state.getString("image.codec"))
+            );
+        } catch (Exception ex) {
+            logger.error("Failed to load image codec!", ex);
+        }
     }
 
     @Override
     public Config save(Config config) {
+        try {
+            return config.withValue("image.codec", ConfigValueFactory.fromAnyRef(getCodec().name()));
+        } catch (Exception ex) {
+            logger.error("Failed to save config!", ex);
+        }
         return config;
     }
 }
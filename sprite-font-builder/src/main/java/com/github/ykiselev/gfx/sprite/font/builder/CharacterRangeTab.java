@@ -20,6 +20,7 @@ import com.github.ykiselev.gfx.sprite.font.chars.CharRange;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigValueFactory;
 import javafx.geometry.Insets;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TextArea;
@@ -52,6 +53,10 @@ public final class CharacterRangeTab implements BuilderTab {
 
     private TextField borderHeightField = new TextField("0");
 
+    private final CheckBox kerningCheckBox = new CheckBox("Kerning");
+
+    private final CheckBox gridCheckBox = new CheckBox("Grid for fixed pitch");
+
     @Override
     public Tab tab() {
         return tab;
@@ -74,7 +79,9 @@ public final class CharacterRangeTab implements BuilderTab {
                         4.0,
                         new Label("Default character:"), defaultCharacterField,
                         new Label("Border width:"), borderWidthField,
-                        new Label("Border height:"), borderHeightField
+                        new Label("Border height:"), borderHeightField,
+                        kerningCheckBox,
+                        gridCheckBox
                 )
         );
     }
@@ -106,6 +113,16 @@ public final class CharacterRangeTab implements BuilderTab {
         } catch (Exception ex) {
             logger.error("Failed to load glyph border height!", ex);
         }
+        try {
+            kerningCheckBox.setSelected(state.getBoolean("glyph.kerning"));
+        } catch (Exception ex) {
+            logger.error("Failed to load kerning flag!", ex);
+        }
+        try {
+            gridCheckBox.setSelected(state.getBoolean("glyph.grid"));
+        } catch (Exception ex) {
+            logger.error("Failed to load grid flag!", ex);
+        }
     }
 
     @Override
@@ -115,7 +132,9 @@ public final class CharacterRangeTab implements BuilderTab {
                     ConfigValueFactory.fromIterable(Arrays.asList(StringUtils.split(charRanges.getText(), "[\\r\\n]+")))
             ).withValue("glyph.default-character", ConfigValueFactory.fromAnyRef(defaultCharacterField.getText()))
                     .withValue("glyph.border.width", ConfigValueFactory.fromAnyRef(borderWidthField.getText()))
-                    .withValue("glyph.border.height", ConfigValueFactory.fromAnyRef(borderHeightField.getText()));
+                    .withValue("glyph.border.height", ConfigValueFactory.fromAnyRef(borderHeightField.getText()))
+                    .withValue("glyph.kerning", ConfigValueFactory.fromAnyRef(kerningCheckBox.isSelected()))
+                    .withValue("glyph.grid", ConfigValueFactory.fromAnyRef(gridCheckBox.isSelected()));
         } catch (Exception ex) {
             logger.error("Failed to save config!", ex);
         }
@@ -130,6 +149,14 @@ public final class CharacterRangeTab implements BuilderTab {
         return value.charAt(0);
     }
 
+    public boolean isKerning() {
+        return kerningCheckBox.isSelected();
+    }
+
+    public boolean isGrid() {
+        return gridCheckBox.isSelected();
+    }
+
     public int getGlyphBorderWidth() {
         String value = borderWidthField.getText();
         if (StringUtils.isEmpty(value)) {
@@ -154,11 +181,11 @@ public final class CharacterRangeTab implements BuilderTab {
         }
     }
 
-    private char toChar(int value) {
-        if (value < Character.MIN_VALUE || value > Character.MAX_VALUE) {
-            throw new IllegalArgumentException("Bad character: " + value);
+    private int toCodePoint(int value) {
+        if (!Character.isValidCodePoint(value)) {
+            throw new IllegalArgumentException("Bad code point: " + value);
         }
-        return (char) value;
+        return value;
     }
 
     public List<CharRange> getCharRanges() {
@@ -178,9 +205,9 @@ public final class CharacterRangeTab implements BuilderTab {
             }
             final String[] parts = line.split("-");
             if (parts.length == 2) {
-                result.add(new CharRange(toChar(Integer.parseInt(parts[0])), toChar(Integer.parseInt(parts[1]))));
+                result.add(new CharRange(toCodePoint(Integer.parseInt(parts[0])), toCodePoint(Integer.parseInt(parts[1]))));
             } else if (parts.length == 1) {
-                final char start = toChar(Integer.parseInt(parts[0]));
+                final int start = toCodePoint(Integer.parseInt(parts[0]));
                 result.add(new CharRange(start, start));
             } else {
                 throw new IllegalArgumentException("Bad range: " + line);
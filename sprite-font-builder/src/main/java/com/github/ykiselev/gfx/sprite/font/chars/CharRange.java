@@ -21,22 +21,24 @@ import java.util.Objects;
 import java.util.function.Supplier;
 
 /**
+ * Inclusive range of Unicode code points.
+ * <p>
  * Created by Uze on 07.01.2015.
  */
-public final class CharRange implements Supplier<char[]>, Comparable<CharRange> {
+public final class CharRange implements Supplier<int[]>, Comparable<CharRange> {
 
     private static final Comparator<CharRange> COMPARATOR = Comparator.comparing(CharRange::start)
             .thenComparing(CharRange::end);
 
-    private final char start;
+    private final int start;
 
-    private final char end;
+    private final int end;
 
-    public char start() {
+    public int start() {
         return start;
     }
 
-    public char end() {
+    public int end() {
         return end;
     }
 
@@ -44,7 +46,10 @@ public final class CharRange implements Supplier<char[]>, Comparable<CharRange>
         return end - start + 1;
     }
 
-    public CharRange(char start, char end) {
+    public CharRange(int start, int end) {
+        if (!Character.isValidCodePoint(start) || !Character.isValidCodePoint(end)) {
+            throw new IllegalArgumentException("Bad code point range: " + start + "-" + end);
+        }
         if (start > end) {
             throw new IllegalArgumentException("start > end");
         }
@@ -53,9 +58,9 @@ public final class CharRange implements Supplier<char[]>, Comparable<CharRange>
     }
 
     @Override
-    public char[] get() {
-        final char[] result = new char[getLength()];
-        for (char i = start; i <= end; i++) {
+    public int[] get() {
+        final int[] result = new int[getLength()];
+        for (int i = start; i <= end; i++) {
             result[i - start] = i;
         }
         return result;
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font.image;
+
+import com.github.ykiselev.gfx.font.AtlasCodec;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes atlas image with one of {@link AtlasCodec}s.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class AtlasBytes {
+
+    private AtlasBytes() {
+    }
+
+    public static byte[] convert(Image image, AtlasCodec codec) {
+        if (codec == AtlasCodec.PNG) {
+            return PngBytes.convert(image);
+        }
+        return encode(
+                PngBytes.toGrayScale(
+                        SwingFXUtils.fromFXImage(image, null)
+                ),
+                codec
+        );
+    }
+
+    /**
+     * @param image the 8-bit grayscale image
+     * @param codec the codec to use ({@link AtlasCodec#RAW} or {@link AtlasCodec#LZ})
+     * @return the encoded image
+     */
+    public static byte[] encode(BufferedImage image, AtlasCodec codec) {
+        if (image.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            throw new IllegalArgumentException("Grayscale image expected!");
+        }
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final byte[] pixels = new byte[width * height];
+        image.getRaster().getDataElements(0, 0, width, height, pixels);
+        final byte[] data;
+        switch (codec) {
+            case RAW:
+                data = pixels;
+                break;
+
+            case LZ:
+                data = LzEncoder.compress(pixels);
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unsupported codec: " + codec);
+        }
+        return ByteBuffer.allocate(AtlasCodec.HEADER_SIZE + data.length)
+                .putInt(width)
+                .putInt(height)
+                .put(data)
+                .array();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font.image;
+
+/**
+ * Finds bounding rectangle of non-transparent pixels (ink) in the area of ARGB raster.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class InkBounds {
+
+    private final int x;
+
+    private final int y;
+
+    private final int width;
+
+    private final int height;
+
+    public int x() {
+        return x;
+    }
+
+    public int y() {
+        return y;
+    }
+
+    /**
+     * @return the width of ink rectangle, zero if there is no ink
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return the height of ink rectangle, zero if there is no ink
+     */
+    public int height() {
+        return height;
+    }
+
+    private InkBounds(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Scans area of raster (clipped to raster bounds) for pixels with non-zero value.
+     *
+     * @param argb   the raster pixels
+     * @param stride the raster width
+     * @param left   the left side of area (inclusive)
+     * @param top    the top side of area (inclusive)
+     * @param right  the right side of area (exclusive)
+     * @param bottom the bottom side of area (exclusive)
+     * @return the ink bounds in raster coordinates or empty bounds located at ({@code left}, {@code top})
+     */
+    public static InkBounds of(int[] argb, int stride, int left, int top, int right, int bottom) {
+        final int x0 = Math.max(left, 0);
+        final int y0 = Math.max(top, 0);
+        final int x1 = Math.min(right, stride);
+        final int y1 = Math.min(bottom, argb.length / stride);
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+        for (int y = y0; y < y1; y++) {
+            final int row = y * stride;
+            for (int x = x0; x < x1; x++) {
+                if (argb[row + x] != 0) {
+                    if (x < minX) {
+                        minX = x;
+                    }
+                    if (x > maxX) {
+                        maxX = x;
+                    }
+                    if (minY == Integer.MAX_VALUE) {
+                        minY = y;
+                    }
+                    maxY = y;
+                }
+            }
+        }
+        if (maxX < 0) {
+            return new InkBounds(left, top, 0, 0);
+        }
+        return new InkBounds(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+}
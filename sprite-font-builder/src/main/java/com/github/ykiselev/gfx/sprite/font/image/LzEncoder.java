@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font.image;
+
+import com.github.ykiselev.gfx.font.AtlasCodec;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Compresses data with {@link AtlasCodec#LZ} scheme. Matches are searched greedily using hash table of the last
+ * positions of 4-byte sequences, so compression ratio is modest but decoding is just a sequence of array copies.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class LzEncoder {
+
+    private static final int HASH_BITS = 16;
+
+    private static final int MAX_OFFSET = 0xffff;
+
+    private LzEncoder() {
+    }
+
+    public static byte[] compress(byte[] src) {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream(src.length / 2 + 16);
+        final int[] table = new int[1 << HASH_BITS];
+        final int minMatch = AtlasCodec.LZ_MIN_MATCH;
+        int anchor = 0, p = 0;
+        while (p + minMatch <= src.length) {
+            final int h = hash(src, p);
+            final int candidate = table[h] - 1;
+            table[h] = p + 1;
+            if (candidate < 0 || p - candidate > MAX_OFFSET || !matches(src, candidate, p, minMatch)) {
+                p++;
+                continue;
+            }
+            int length = minMatch;
+            while (p + length < src.length && src[candidate + length] == src[p + length]) {
+                length++;
+            }
+            writeSequence(os, src, anchor, p - anchor, p - candidate, length);
+            p += length;
+            anchor = p;
+        }
+        writeSequence(os, src, anchor, src.length - anchor, 0, 0);
+        return os.toByteArray();
+    }
+
+    private static void writeSequence(ByteArrayOutputStream os, byte[] src, int from, int literals, int offset, int length) {
+        final int match = length > 0 ? length - AtlasCodec.LZ_MIN_MATCH : 0;
+        os.write(Math.min(literals, 15) << 4 | Math.min(match, 15));
+        writeLength(os, literals);
+        os.write(src, from, literals);
+        if (length > 0) {
+            os.write(offset >>> 8);
+            os.write(offset);
+            writeLength(os, match);
+        }
+    }
+
+    private static void writeLength(ByteArrayOutputStream os, int value) {
+        if (value < 15) {
+            return;
+        }
+        int rest = value - 15;
+        while (rest >= 255) {
+            os.write(255);
+            rest -= 255;
+        }
+        os.write(rest);
+    }
+
+    private static boolean matches(byte[] src, int a, int b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (src[a + i] != src[b + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] src, int p) {
+        final int v = (src[p] & 0xff)
+                | (src[p + 1] & 0xff) << 8
+                | (src[p + 2] & 0xff) << 16
+                | (src[p + 3] & 0xff) << 24;
+        return (v * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font.image;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Packs rectangles into power of two atlas (width to height ratio tends to one) using shelf algorithm: rectangles are
+ * sorted by height (tallest first) and placed left to right on shelves, each shelf is as tall as its first rectangle.
+ * Empty rectangles (zero width or height) take no space and are placed at (0, 0).
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class ShelfPacker {
+
+    private final int[] x;
+
+    private final int[] y;
+
+    private final int width;
+
+    private final int height;
+
+    public int x(int index) {
+        return x[index];
+    }
+
+    public int y(int index) {
+        return y[index];
+    }
+
+    /**
+     * @return the atlas width (power of two)
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return the atlas height (power of two)
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @param widths  the widths of rectangles
+     * @param heights the heights of rectangles
+     * @param xBorder the horizontal space between rectangles and around them
+     * @param yBorder the vertical space between rectangles and around them
+     */
+    public ShelfPacker(int[] widths, int[] heights, int xBorder, int yBorder) {
+        if (widths.length != heights.length) {
+            throw new IllegalArgumentException("Widths and heights should have same length!");
+        }
+        final int count = widths.length;
+        final Integer[] order = IntStream.range(0, count)
+                .filter(i -> widths[i] > 0 && heights[i] > 0)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingInt(i -> heights[i]).reversed())
+                .toArray(Integer[]::new);
+        int area = 0, maxWidth = 0;
+        for (int i : order) {
+            area += (widths[i] + xBorder) * (heights[i] + yBorder);
+            maxWidth = Math.max(maxWidth, widths[i]);
+        }
+        x = new int[count];
+        y = new int[count];
+        int atlasWidth = Math.max(
+                nextPowerOfTwo((int) Math.sqrt(area)),
+                nextPowerOfTwo(maxWidth + 2 * xBorder)
+        );
+        int used;
+        while (true) {
+            used = place(order, widths, heights, xBorder, yBorder, atlasWidth);
+            if (nextPowerOfTwo(used) > atlasWidth) {
+                atlasWidth *= 2;
+            } else {
+                break;
+            }
+        }
+        width = atlasWidth;
+        height = nextPowerOfTwo(used);
+    }
+
+    /**
+     * @return the used height
+     */
+    private int place(Integer[] order, int[] widths, int[] heights, int xBorder, int yBorder, int atlasWidth) {
+        Arrays.fill(x, 0);
+        Arrays.fill(y, 0);
+        int px = xBorder, shelf = yBorder, shelfHeight = 0;
+        for (int i : order) {
+            if (px + widths[i] + xBorder > atlasWidth) {
+                px = xBorder;
+                shelf += shelfHeight + yBorder;
+                shelfHeight = 0;
+            }
+            x[i] = px;
+            y[i] = shelf;
+            shelfHeight = Math.max(shelfHeight, heights[i]);
+            px += widths[i] + xBorder;
+        }
+        return shelfHeight > 0 ? shelf + shelfHeight + yBorder : 0;
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        if (value <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font;
+
+import com.github.ykiselev.gfx.font.KerningTable;
+import org.junit.Test;
+
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class PairKerningTest {
+
+    /**
+     * Each code point is 10.2 pixels wide, "AV" and "VA" are 2.6 pixels narrower, "To" is 1.4 pixels narrower.
+     */
+    private static final ToDoubleFunction<String> MEASURE = s -> {
+        double result = 10.2 * s.codePointCount(0, s.length());
+        if (s.equals("AV") || s.equals("VA")) {
+            result -= 2.6;
+        } else if (s.equals("To")) {
+            result -= 1.4;
+        }
+        return result;
+    };
+
+    @Test
+    public void shouldKeepOnlyKernedPairs() throws Exception {
+        final KerningTable table = new PairKerning(() -> MEASURE, 100)
+                .measure(new int[]{'A', 'T', 'V', 'o', 0x1f600});
+        assertEquals(3, table.size());
+        assertEquals(-3, table.get('A', 'V'));
+        assertEquals(-3, table.get('V', 'A'));
+        assertEquals(-1, table.get('T', 'o'));
+        assertEquals(0, table.get('o', 'T'));
+        // pairs are ordered by left code point
+        assertEquals('A', table.left(0));
+        assertEquals('T', table.left(1));
+        assertEquals('V', table.left(2));
+    }
+
+    @Test
+    public void shouldLimitCodePoints() throws Exception {
+        final KerningTable table = new PairKerning(() -> MEASURE, 2)
+                .measure(new int[]{'A', 'T', 'V', 'o'});
+        assertEquals(0, table.size());
+    }
+}
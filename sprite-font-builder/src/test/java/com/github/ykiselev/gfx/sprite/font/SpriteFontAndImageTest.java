@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font;
+
+import com.github.ykiselev.gfx.font.AtlasCodec;
+import com.github.ykiselev.gfx.font.Glyph;
+import com.github.ykiselev.gfx.font.GlyphRange;
+import com.github.ykiselev.gfx.font.KerningTable;
+import com.github.ykiselev.gfx.font.SpriteFont;
+import com.github.ykiselev.gfx.font.SpriteFontJsonReader;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class SpriteFontAndImageTest {
+
+    private final SpriteFont info = new SpriteFont(
+            14,
+            '?',
+            0,
+            new GlyphRange[]{
+                    new GlyphRange(
+                            new Glyph[]{
+                                    new Glyph('?', 1, 1, (short) 6),
+                                    new Glyph('A', 8, 1, (short) 7, (short) -1, (short) 2, (short) 8, (short) 9)
+                            }
+                    ),
+                    new GlyphRange(
+                            new Glyph[]{
+                                    new Glyph(0x1f600, 16, 1, (short) 12)
+                            }
+                    )
+            },
+            new byte[]{1, 2, 3},
+            AtlasCodec.PNG,
+            new KerningTable(new int[]{'A'}, new int[]{'?'}, new short[]{-2}),
+            1,
+            2
+    );
+
+    private final SpriteFontAndImage font = new SpriteFontAndImage("test", info, null);
+
+    private JsonObject saveJson(boolean columnar) throws Exception {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        font.saveJson(os, columnar);
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(os.toByteArray()))) {
+            return reader.readObject();
+        }
+    }
+
+    @Test
+    public void shouldSaveRows() throws Exception {
+        final JsonObject json = saveJson(false);
+        assertFalse(json.containsKey("layout"));
+        assertEquals(14, json.getInt("fontHeight"));
+        assertEquals('?', json.getInt("defaultCharacter"));
+        assertEquals(1, json.getInt("glyphXBorder"));
+        assertEquals(2, json.getInt("glyphYBorder"));
+        assertFalse(json.containsKey("characterWidth"));
+        final JsonArray ranges = json.getJsonArray("glyphs");
+        assertEquals(2, ranges.size());
+        final JsonArray glyphs = ranges.getJsonObject(0).getJsonArray("glyphs");
+        final JsonObject q = glyphs.getJsonObject(0);
+        assertEquals('?', q.getInt("character"));
+        assertEquals(1, q.getInt("x"));
+        assertEquals(6, q.getInt("width"));
+        assertFalse(q.containsKey("inkWidth"));
+        final JsonObject a = glyphs.getJsonObject(1);
+        assertEquals(-1, a.getInt("xOffset"));
+        assertEquals(9, a.getInt("inkHeight"));
+        assertEquals(0x1f600, ranges.getJsonObject(1).getJsonArray("glyphs").getJsonObject(0).getInt("character"));
+        final JsonObject pair = json.getJsonArray("kerning").getJsonObject(0);
+        assertEquals('A', pair.getInt("left"));
+        assertEquals('?', pair.getInt("right"));
+        assertEquals(-2, pair.getInt("amount"));
+    }
+
+    @Test
+    public void shouldSaveColumns() throws Exception {
+        final JsonObject json = saveJson(true);
+        assertEquals("columnar", json.getString("layout"));
+        assertEquals(14, json.getInt("fontHeight"));
+        final JsonArray ranges = json.getJsonArray("glyphs");
+        final JsonObject first = ranges.getJsonObject(0);
+        assertEquals('?', first.getJsonArray("characters").getInt(0));
+        assertEquals('A', first.getJsonArray("characters").getInt(1));
+        assertEquals(8, first.getJsonArray("x").getInt(1));
+        assertEquals(1, first.getJsonArray("y").getInt(1));
+        assertEquals(7, first.getJsonArray("width").getInt(1));
+        assertEquals(-1, first.getJsonArray("inkWidth").getInt(0));
+        assertEquals(8, first.getJsonArray("inkWidth").getInt(1));
+        assertEquals(2, first.getJsonArray("yOffset").getInt(1));
+        final JsonObject second = ranges.getJsonObject(1);
+        assertEquals(0x1f600, second.getJsonArray("characters").getInt(0));
+        assertFalse(second.containsKey("inkWidth"));
+        final JsonObject kerning = json.getJsonObject("kerning");
+        assertEquals('A', kerning.getJsonArray("left").getInt(0));
+        assertEquals('?', kerning.getJsonArray("right").getInt(0));
+        assertEquals(-2, kerning.getJsonArray("amount").getInt(0));
+    }
+
+    @Test
+    public void shouldBeSmallerInColumns() throws Exception {
+        final Glyph[] glyphs = new Glyph[256];
+        for (int i = 0; i < glyphs.length; i++) {
+            glyphs[i] = new Glyph(32 + i, i % 16 * 10, i / 16 * 12, (short) 8, (short) 1, (short) 2, (short) 6, (short) 9);
+        }
+        final SpriteFontAndImage big = new SpriteFontAndImage(
+                "big",
+                new SpriteFont(12, '?', 0, new GlyphRange[]{new GlyphRange(glyphs)}, new byte[0], 1, 1),
+                null
+        );
+        final ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        big.saveJson(rows, false);
+        final ByteArrayOutputStream columns = new ByteArrayOutputStream();
+        big.saveJson(columns, true);
+        assertTrue(2 * columns.size() < rows.size());
+    }
+
+    @Test
+    public void shouldBeReadableByLibrary() throws Exception {
+        final ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY), "png", png);
+        final SpriteFont expected = new SpriteFont(
+                info.fontHeight(),
+                info.defaultCharacter(),
+                info.characterWidth(),
+                info.glyphs(),
+                png.toByteArray(),
+                AtlasCodec.PNG,
+                info.kerning(),
+                info.glyphXBorder(),
+                info.glyphYBorder()
+        );
+        for (boolean columnar : new boolean[]{false, true}) {
+            final ByteArrayOutputStream json = new ByteArrayOutputStream();
+            font.saveJson(json, columnar);
+            assertEquals(
+                    expected,
+                    SpriteFontJsonReader.read(new ByteArrayInputStream(json.toByteArray()), png.toByteArray())
+            );
+        }
+    }
+}
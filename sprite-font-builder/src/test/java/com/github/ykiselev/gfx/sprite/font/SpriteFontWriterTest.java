@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font;
+
+import com.github.ykiselev.gfx.font.AtlasCodec;
+import com.github.ykiselev.gfx.font.Glyph;
+import com.github.ykiselev.gfx.font.GlyphRange;
+import com.github.ykiselev.gfx.font.KerningTable;
+import com.github.ykiselev.gfx.font.SpriteFont;
+import com.github.ykiselev.gfx.font.SpriteFontReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class SpriteFontWriterTest {
+
+    @Test
+    public void shouldWriteAndRead() throws Exception {
+        final SpriteFont font = new SpriteFont(
+                14,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('?', 1, 1, (short) 6),
+                                        new Glyph('A', 8, 1, (short) 7),
+                                        new Glyph('B', 16, 1, (short) 7),
+                                        new Glyph('C', 24, 1, (short) 7, (short) -1, (short) 2, (short) 8, (short) 9),
+                                        new Glyph('D', 0, 0, (short) 3, (short) 0, (short) 0, (short) 0, (short) 0)
+                                }
+                        ),
+                        new GlyphRange(new Glyph[0]),
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph(Character.MAX_VALUE, 0xffff, 0xffff, Short.MAX_VALUE),
+                                        new Glyph(Character.MIN_VALUE, 0, 2000, Short.MIN_VALUE),
+                                        new Glyph(Character.MAX_CODE_POINT, 5, 6, (short) 7)
+                                }
+                        )
+                },
+                new byte[]{1, 2, 3},
+                1,
+                2
+        );
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new SpriteFontWriter(os).write(font);
+        final SpriteFont result = SpriteFontReader.read(new ByteArrayInputStream(os.toByteArray()));
+        assertEquals(font, result);
+        assertEquals(font.fingerprint(), result.fingerprint());
+    }
+
+    @Test
+    public void shouldWriteCodec() throws Exception {
+        final SpriteFont font = new SpriteFont(
+                14,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('?', 1, 1, (short) 6)
+                                }
+                        )
+                },
+                new byte[]{0, 0, 0, 2, 0, 0, 0, 1, 7, 8},
+                AtlasCodec.RAW,
+                1,
+                2
+        );
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new SpriteFontWriter(os).write(font);
+        final SpriteFont result = SpriteFontReader.read(new ByteArrayInputStream(os.toByteArray()));
+        assertEquals(font, result);
+        assertEquals(AtlasCodec.RAW, result.codec());
+    }
+
+    @Test
+    public void shouldWriteKerning() throws Exception {
+        final KerningTable kerning = new KerningTable(
+                new int[]{'A', 'V', 'T', 0x1f600},
+                new int[]{'V', 'A', '.', 'A'},
+                new short[]{-2, -1, -3, 5}
+        );
+        final SpriteFont font = new SpriteFont(
+                14,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('?', 1, 1, (short) 6)
+                                }
+                        )
+                },
+                new byte[]{1, 2, 3},
+                AtlasCodec.PNG,
+                kerning,
+                1,
+                2
+        );
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new SpriteFontWriter(os).write(font);
+        final SpriteFont result = SpriteFontReader.read(new ByteArrayInputStream(os.toByteArray()));
+        assertEquals(font, result);
+        assertEquals(kerning, result.kerning());
+        assertEquals(-3, result.kerning('T', '.'));
+    }
+
+    @Test
+    public void shouldWriteGrid() throws Exception {
+        final SpriteFont font = new SpriteFont(
+                14,
+                '?',
+                7,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('?', 1, 1, (short) 7)
+                                }
+                        ),
+                        GlyphRange.grid(0x2500, 128, 9, 1, 12, 8, 15, (short) 7)
+                },
+                new byte[]{1, 2, 3},
+                1,
+                1
+        );
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new SpriteFontWriter(os).write(font);
+        final SpriteFont result = SpriteFontReader.read(new ByteArrayInputStream(os.toByteArray()));
+        final GlyphRange grid = result.glyphs()[1];
+        assertTrue(grid.isGrid());
+        assertEquals(12, grid.columns());
+        assertEquals(font, result);
+        assertEquals(font.fingerprint(), result.fingerprint());
+        assertEquals(new Glyph(0x2500 + 13, 9 + 8, 1 + 15, (short) 7), result.glyph(0x2500 + 13));
+        // grid range takes a few bytes instead of a few bytes per glyph
+        assertTrue(os.size() < 200);
+    }
+}
@@ -18,6 +18,7 @@ package com.github.ykiselev.gfx.sprite.font.chars;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -69,4 +70,16 @@ public class CharRangeTest {
         assertNull(r2.join(r1));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldListSupplementaryCodePoints() throws Exception {
+        assertArrayEquals(
+                new int[]{0xfffe, 0xffff, 0x10000, 0x10001},
+                new CharRange(0xfffe, 0x10001).get()
+        );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidCodePoints() throws Exception {
+        new CharRange(0, Character.MAX_CODE_POINT + 1);
+    }
+}
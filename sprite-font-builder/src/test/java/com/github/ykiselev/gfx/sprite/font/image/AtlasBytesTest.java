@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font.image;
+
+import com.github.ykiselev.gfx.font.AtlasCodec;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class AtlasBytesTest {
+
+    private static BufferedImage image() {
+        final BufferedImage image = new BufferedImage(70, 40, BufferedImage.TYPE_BYTE_GRAY);
+        final Random random = new Random(1);
+        // mostly empty atlas with some noisy "glyphs"
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 70; x++) {
+                if (x % 10 < 6 && y % 20 < 12) {
+                    image.getRaster().setSample(x, y, 0, random.nextInt(4) * 85);
+                }
+            }
+        }
+        return image;
+    }
+
+    private static void assertDecoded(BufferedImage image, AtlasCodec codec, byte[] encoded) throws Exception {
+        final ByteBuffer payload = ByteBuffer.wrap(encoded);
+        assertEquals(image.getWidth(), codec.width(payload));
+        assertEquals(image.getHeight(), codec.height(payload));
+        final ByteBuffer pixels = codec.decode(payload);
+        assertEquals(image.getWidth() * image.getHeight(), pixels.remaining());
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                assertEquals(image.getRaster().getSample(x, y, 0), pixels.get(y * image.getWidth() + x) & 0xff);
+            }
+        }
+    }
+
+    @Test
+    public void shouldEncodeRaw() throws Exception {
+        final BufferedImage image = image();
+        final byte[] encoded = AtlasBytes.encode(image, AtlasCodec.RAW);
+        assertEquals(AtlasCodec.HEADER_SIZE + 70 * 40, encoded.length);
+        assertDecoded(image, AtlasCodec.RAW, encoded);
+    }
+
+    @Test
+    public void shouldEncodeLz() throws Exception {
+        final BufferedImage image = image();
+        final byte[] encoded = AtlasBytes.encode(image, AtlasCodec.LZ);
+        assertTrue(encoded.length < 70 * 40);
+        assertDecoded(image, AtlasCodec.LZ, encoded);
+    }
+
+    @Test
+    public void shouldCompressLongRuns() throws Exception {
+        final byte[] src = new byte[100_000];
+        src[50_000] = 1;
+        final byte[] compressed = LzEncoder.compress(src);
+        assertTrue(compressed.length < 1000);
+        final ByteBuffer payload = ByteBuffer.allocate(AtlasCodec.HEADER_SIZE + compressed.length)
+                .putInt(1000)
+                .putInt(100)
+                .put(compressed);
+        payload.flip();
+        final ByteBuffer pixels = AtlasCodec.LZ.decode(payload);
+        for (int i = 0; i < src.length; i++) {
+            assertEquals(src[i], pixels.get(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectColourImages() throws Exception {
+        AtlasBytes.encode(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), AtlasCodec.RAW);
+    }
+}
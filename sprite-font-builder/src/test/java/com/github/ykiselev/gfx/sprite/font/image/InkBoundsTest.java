@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font.image;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class InkBoundsTest {
+
+    private static final int W = 8;
+
+    private static final int H = 6;
+
+    private final int[] argb = new int[W * H];
+
+    @Test
+    public void shouldFindInk() throws Exception {
+        argb[2 * W + 3] = 0x10ffffff;
+        argb[4 * W + 5] = 0xffffffff;
+        // outside of area
+        argb[7] = 0xffffffff;
+        final InkBounds ink = InkBounds.of(argb, W, 1, 1, 7, 6);
+        assertEquals(3, ink.x());
+        assertEquals(2, ink.y());
+        assertEquals(3, ink.width());
+        assertEquals(3, ink.height());
+    }
+
+    @Test
+    public void shouldClipArea() throws Exception {
+        argb[0] = 0xffffffff;
+        argb[W * H - 1] = 0xffffffff;
+        final InkBounds ink = InkBounds.of(argb, W, -3, -3, W + 3, H + 3);
+        assertEquals(0, ink.x());
+        assertEquals(0, ink.y());
+        assertEquals(W, ink.width());
+        assertEquals(H, ink.height());
+    }
+
+    @Test
+    public void shouldReturnEmptyBounds() throws Exception {
+        final InkBounds ink = InkBounds.of(argb, W, 2, 3, 5, 5);
+        assertEquals(2, ink.x());
+        assertEquals(3, ink.y());
+        assertEquals(0, ink.width());
+        assertEquals(0, ink.height());
+    }
+}
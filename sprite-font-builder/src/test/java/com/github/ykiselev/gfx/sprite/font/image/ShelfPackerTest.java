@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.sprite.font.image;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class ShelfPackerTest {
+
+    @Test
+    public void shouldPackWithoutOverlapping() throws Exception {
+        final Random random = new Random(1);
+        final int[] widths = new int[200];
+        final int[] heights = new int[200];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = random.nextInt(12);
+            heights[i] = 3 + random.nextInt(10);
+        }
+        final ShelfPacker packer = new ShelfPacker(widths, heights, 1, 2);
+        assertEquals(1, Integer.bitCount(packer.width()));
+        assertEquals(1, Integer.bitCount(packer.height()));
+        assertTrue(packer.height() <= packer.width());
+        for (int i = 0; i < widths.length; i++) {
+            if (widths[i] == 0) {
+                continue;
+            }
+            assertTrue(packer.x(i) >= 1);
+            assertTrue(packer.y(i) >= 2);
+            assertTrue(packer.x(i) + widths[i] + 1 <= packer.width());
+            assertTrue(packer.y(i) + heights[i] + 2 <= packer.height());
+            for (int k = 0; k < i; k++) {
+                if (widths[k] == 0) {
+                    continue;
+                }
+                assertFalse(
+                        "Overlap " + i + " and " + k,
+                        packer.x(i) < packer.x(k) + widths[k] + 1 && packer.x(k) < packer.x(i) + widths[i] + 1
+                                && packer.y(i) < packer.y(k) + heights[k] + 2 && packer.y(k) < packer.y(i) + heights[i] + 2
+                );
+            }
+        }
+    }
+
+    @Test
+    public void shouldUseLessSpaceThanFullCells() throws Exception {
+        // 100 cells 10x20 with 4x6 ink each: cells need 256x128 atlas
+        final int[] widths = new int[100];
+        final int[] heights = new int[100];
+        Arrays.fill(widths, 4);
+        Arrays.fill(heights, 6);
+        final ShelfPacker packer = new ShelfPacker(widths, heights, 1, 1);
+        assertTrue(packer.width() * packer.height() <= 64 * 64);
+    }
+
+    @Test
+    public void shouldPackEmpty() throws Exception {
+        final ShelfPacker packer = new ShelfPacker(new int[]{0, 3}, new int[]{5, 0}, 0, 0);
+        assertEquals(0, packer.x(0));
+        assertEquals(0, packer.y(1));
+        assertEquals(1, packer.width());
+        assertEquals(1, packer.height());
+    }
+}
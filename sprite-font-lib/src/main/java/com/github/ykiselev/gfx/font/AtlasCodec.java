@@ -0,0 +1,286 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encoding of the atlas image stored in sprite font (see {@link SpriteFont#image()}). All codecs store 8-bit
+ * grayscale image.
+ * <p>
+ * {@link #PNG} payload is a png image (smallest, slowest to decode). {@link #RAW} and {@link #LZ} payloads start with
+ * a header {@code width:int32 height:int32} (big-endian) followed by {@code width * height} pixels (one byte per
+ * pixel, rows are tightly packed), as is or compressed with simple byte-oriented LZ77 scheme:
+ * <pre>
+ * data     := sequence*
+ * sequence := token:uint8 literalLength* literal:byte[] (offset:uint16 matchLength*)?
+ * </pre>
+ * Upper 4 bits of the token are the number of literals, lower 4 bits are match length minus {@link #LZ_MIN_MATCH}.
+ * Value of 15 means that length is continued with extra bytes which are added to length until byte other than 255 is
+ * met. Match (big-endian offset back from the current output position and length) is omitted in the last sequence.
+ * Matches may overlap their output.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public enum AtlasCodec {
+
+    PNG(0) {
+        @Override
+        public int width(ByteBuffer payload) {
+            return PngDecoder.width(payload);
+        }
+
+        @Override
+        public int height(ByteBuffer payload) {
+            return PngDecoder.height(payload);
+        }
+
+        @Override
+        public void decode(ByteBuffer payload, ByteBuffer dest, int alignment) throws IOException {
+            PngDecoder.decode(payload, dest, alignment);
+        }
+    },
+
+    RAW(1) {
+        /**
+         * Returns pixels without copying if payload is a direct buffer (for example slice of mapped file).
+         */
+        @Override
+        public ByteBuffer decode(ByteBuffer payload) throws IOException {
+            if (!payload.isDirect()) {
+                return super.decode(payload);
+            }
+            final int area = area(payload);
+            final ByteBuffer pixels = pixels(payload);
+            if (pixels.remaining() < area) {
+                throw new IOException("Not enough image data!");
+            }
+            final ByteBuffer result = pixels.slice();
+            result.limit(area);
+            return result.order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        public void decode(ByteBuffer payload, ByteBuffer dest, int alignment) throws IOException {
+            final int area = area(payload);
+            final int width = width(payload);
+            final int height = height(payload);
+            final int stride = stride(dest, width, height, alignment);
+            final ByteBuffer src = pixels(payload);
+            if (src.remaining() < area) {
+                throw new IOException("Not enough image data!");
+            }
+            final int start = dest.position();
+            for (int y = 0; y < height; y++) {
+                src.limit(src.position() + width);
+                dest.position(start + y * stride);
+                dest.put(src);
+            }
+            dest.position(start + stride * height);
+        }
+    },
+
+    LZ(2) {
+        @Override
+        public void decode(ByteBuffer payload, ByteBuffer dest, int alignment) throws IOException {
+            final int area = area(payload);
+            final int width = width(payload);
+            final int height = height(payload);
+            final int stride = stride(dest, width, height, alignment);
+            final byte[] pixels = new byte[area];
+            try {
+                decompress(pixels(payload), pixels);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Malformed image data!", e);
+            }
+            final int start = dest.position();
+            for (int y = 0; y < height; y++) {
+                dest.position(start + y * stride);
+                dest.put(pixels, y * width, width);
+            }
+            dest.position(start + stride * height);
+        }
+    };
+
+    /**
+     * Minimum match length of {@link #LZ} codec.
+     */
+    public static final int LZ_MIN_MATCH = 4;
+
+    /**
+     * Size of {@link #RAW} and {@link #LZ} payload header.
+     */
+    public static final int HEADER_SIZE = 8;
+
+    private final int id;
+
+    /**
+     * @return the codec id stored in sprite font file
+     */
+    public int id() {
+        return id;
+    }
+
+    AtlasCodec(int id) {
+        this.id = id;
+    }
+
+    /**
+     * @param id the codec id
+     * @return the codec with specified id
+     * @throws IllegalArgumentException if there is no such codec
+     */
+    public static AtlasCodec of(int id) {
+        for (AtlasCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown codec: " + id);
+    }
+
+    /**
+     * @param payload the encoded image, position is not changed
+     * @return the image width
+     */
+    public int width(ByteBuffer payload) {
+        return header(payload, 0);
+    }
+
+    /**
+     * @param payload the encoded image, position is not changed
+     * @return the image height
+     */
+    public int height(ByteBuffer payload) {
+        return header(payload, 4);
+    }
+
+    /**
+     * Decodes image into new direct buffer with native byte order. Rows are tightly packed (one byte per pixel).
+     *
+     * @param payload the encoded image, position is not changed
+     * @return the buffer with decoded pixels (position is zero, limit is width * height)
+     * @throws IOException if image is malformed
+     */
+    public ByteBuffer decode(ByteBuffer payload) throws IOException {
+        final int area;
+        try {
+            area = PngDecoder.area(width(payload), height(payload));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed image header!", e);
+        }
+        final ByteBuffer result = ByteBuffer.allocateDirect(area)
+                .order(ByteOrder.nativeOrder());
+        decode(payload, result, 1);
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Decodes image into the destination buffer starting at its current position. Each row starts at
+     * {@link PngDecoder#stride(int, int)} bytes from the previous one, padding bytes at the end of the rows are skipped
+     * (not written). Destination position is advanced by {@code stride * height}.
+     *
+     * @param payload   the encoded image, position is not changed
+     * @param dest      the destination buffer
+     * @param alignment the row alignment
+     * @throws IOException if image is malformed
+     */
+    public abstract void decode(ByteBuffer payload, ByteBuffer dest, int alignment) throws IOException;
+
+    private static int header(ByteBuffer payload, int offset) {
+        if (payload.remaining() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Missing image header!");
+        }
+        return payload.duplicate()
+                .order(ByteOrder.BIG_ENDIAN)
+                .getInt(payload.position() + offset);
+    }
+
+    /**
+     * Checks {@link #RAW} and {@link #LZ} payload header.
+     *
+     * @return the number of pixels
+     */
+    private static int area(ByteBuffer payload) throws IOException {
+        try {
+            return PngDecoder.area(header(payload, 0), header(payload, 4));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed image header!", e);
+        }
+    }
+
+    private static ByteBuffer pixels(ByteBuffer payload) {
+        final ByteBuffer result = payload.duplicate().order(ByteOrder.BIG_ENDIAN);
+        result.position(result.position() + HEADER_SIZE);
+        return result;
+    }
+
+    private static int stride(ByteBuffer dest, int width, int height, int alignment) {
+        final int stride = PngDecoder.stride(width, alignment);
+        if (dest.remaining() < (long) stride * height) {
+            throw new BufferOverflowException();
+        }
+        return stride;
+    }
+
+    /**
+     * Decompresses {@link #LZ} data until destination array is full.
+     */
+    static void decompress(ByteBuffer src, byte[] dest) {
+        int p = 0;
+        while (p < dest.length) {
+            final int token = src.get() & 0xff;
+            final int literals = length(src, token >>> 4);
+            src.get(dest, p, literals);
+            p += literals;
+            if (p == dest.length) {
+                break;
+            }
+            final int offset = src.getShort() & 0xffff;
+            final int length = length(src, token & 0x0f) + LZ_MIN_MATCH;
+            int from = p - offset;
+            if (offset == 0 || from < 0 || p + length > dest.length) {
+                throw new IndexOutOfBoundsException("Bad match: " + offset + ", " + length);
+            }
+            if (offset >= length) {
+                System.arraycopy(dest, from, dest, p, length);
+                p += length;
+            } else {
+                for (int i = 0; i < length; i++) {
+                    dest[p++] = dest[from++];
+                }
+            }
+        }
+    }
+
+    private static int length(ByteBuffer src, int value) {
+        int result = value;
+        if (value == 15) {
+            int b;
+            do {
+                b = src.get() & 0xff;
+                result += b;
+            } while (b == 255);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+/**
+ * Allocation-free iteration over code points of {@link CharSequence}. Typical loop:
+ * <pre>
+ * for (int i = from; i &lt; to; ) {
+ *     final int cp = CodePoints.at(text, i, to);
+ *     i += Character.charCount(cp);
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+final class CodePoints {
+
+    private CodePoints() {
+    }
+
+    /**
+     * Unlike {@link Character#codePointAt(CharSequence, int)} never looks at characters past the {@code limit}.
+     * Unpaired surrogates are returned as is.
+     *
+     * @param text  the text
+     * @param index the index of the first char of code point
+     * @param limit the index past the last char which may be used
+     * @return the code point at specified index
+     */
+    static int at(CharSequence text, int index, int limit) {
+        final char hi = text.charAt(index);
+        if (Character.isHighSurrogate(hi) && index + 1 < limit) {
+            final char lo = text.charAt(index + 1);
+            if (Character.isLowSurrogate(lo)) {
+                return Character.toCodePoint(hi, lo);
+            }
+        }
+        return hi;
+    }
+}
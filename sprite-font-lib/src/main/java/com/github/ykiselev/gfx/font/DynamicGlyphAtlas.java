@@ -0,0 +1,463 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Glyph atlas which is filled at runtime. Atlas image starts with the pre-built image of sprite font at its top left
+ * corner (those glyphs are never evicted), the rest of the image is divided into equal slots. Glyphs which are not
+ * in sprite font are rendered into free slots on first request by {@link Rasterizer}. When there are no free slots
+ * glyph used least recently is evicted, except glyphs used in the current frame (see {@link #beginFrame()}) - if all
+ * slots are used in current frame then default glyph is returned.
+ * <p>
+ * Changed regions of the image are reported as dirty rectangles (one per changed slot, whole image after creation) so
+ * only they should be uploaded to texture, see {@link #dirtyCount()} and {@link #clearDirty()}.
+ * <p>
+ * Note: this class is not thread safe.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class DynamicGlyphAtlas {
+
+    /**
+     * Space between slots (and between font image and first row of slots), pixels.
+     */
+    private static final int SLOT_BORDER = 1;
+
+    private static final int NONE = -1;
+
+    /**
+     * Renders glyphs for dynamic atlas.
+     */
+    @FunctionalInterface
+    public interface Rasterizer {
+
+        /**
+         * Renders glyph into slot. Pixel (x, y) of the slot is at {@code slot.position() + y * stride + x}, slot is
+         * cleared before this call.
+         *
+         * @param codePoint the code point to render
+         * @param slot      the atlas image
+         * @param stride    the atlas row stride
+         * @param width     the slot width
+         * @param height    the slot height
+         * @return the glyph with coordinates of its ink rectangle (or whole cell if glyph has no ink bounds) relative to
+         * the slot or {@code null} if code point is not supported
+         */
+        Glyph rasterize(int codePoint, ByteBuffer slot, int stride, int width, int height);
+    }
+
+    private final SpriteFont font;
+
+    private final Rasterizer rasterizer;
+
+    private final int width;
+
+    private final int height;
+
+    private final int slotWidth;
+
+    private final int slotHeight;
+
+    private final int slotsTop;
+
+    private final int columns;
+
+    private final ByteBuffer pixels;
+
+    /**
+     * Glyph in each slot or {@code null} if slot is free.
+     */
+    private final Glyph[] glyphs;
+
+    /**
+     * Frame in which slot was used last time.
+     */
+    private final long[] frames;
+
+    /**
+     * Doubly-linked list of slots in order of use (head is least recently used).
+     */
+    private final int[] prev;
+
+    private final int[] next;
+
+    private int head = NONE;
+
+    private int tail = NONE;
+
+    private int used;
+
+    /**
+     * Open addressing (linear probing) map of code points to slots.
+     */
+    private final int[] keys;
+
+    private final int[] values;
+
+    private final boolean[] dirty;
+
+    private int[] dirtyRects = new int[4 * 8];
+
+    private int dirtyCount;
+
+    private long frame;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return the total number of slots for dynamic glyphs
+     */
+    public int slots() {
+        return glyphs.length;
+    }
+
+    /**
+     * @return the number of slots occupied by glyphs
+     */
+    public int usedSlots() {
+        return used;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of glyphs rendered by rasterizer
+     */
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns atlas image (one byte per pixel, rows are tightly packed). Returned buffer is a view of atlas image, it
+     * is modified when glyphs are added.
+     *
+     * @return the read-only view of atlas image
+     */
+    public ByteBuffer pixels() {
+        return pixels.asReadOnlyBuffer();
+    }
+
+    /**
+     * @param font       the sprite font, its glyphs are always available
+     * @param width      the width of atlas, should be not less than width of font image
+     * @param height     the height of atlas
+     * @param slotWidth  the width of slot for dynamic glyphs
+     * @param slotHeight the height of slot for dynamic glyphs
+     * @param rasterizer the rasterizer of dynamic glyphs
+     */
+    public DynamicGlyphAtlas(SpriteFont font, int width, int height, int slotWidth, int slotHeight, Rasterizer rasterizer) {
+        this.font = requireNonNull(font);
+        this.rasterizer = requireNonNull(rasterizer);
+        final GlyphTable table = font.glyphTable();
+        if (width < table.atlasWidth() || height < table.atlasHeight()) {
+            throw new IllegalArgumentException("Atlas should be not smaller than font image!");
+        }
+        if (slotWidth < 1 || slotHeight < 1) {
+            throw new IllegalArgumentException("Slot size should be positive!");
+        }
+        this.width = width;
+        this.height = height;
+        this.slotWidth = slotWidth;
+        this.slotHeight = slotHeight;
+        this.slotsTop = table.atlasHeight() + SLOT_BORDER;
+        this.columns = (width - SLOT_BORDER) / (slotWidth + SLOT_BORDER);
+        final int rows = Math.max(0, (height - slotsTop) / (slotHeight + SLOT_BORDER));
+        final int count = columns * rows;
+        if (count < 1) {
+            throw new IllegalArgumentException("Atlas has no space for slots!");
+        }
+        this.pixels = ByteBuffer.allocateDirect(width * height)
+                .order(ByteOrder.nativeOrder());
+        final ByteBuffer src = font.pixels();
+        final int fontWidth = table.atlasWidth();
+        for (int y = 0; y < table.atlasHeight(); y++) {
+            src.limit((y + 1) * fontWidth).position(y * fontWidth);
+            pixels.position(y * width);
+            pixels.put(src);
+        }
+        pixels.clear();
+        this.glyphs = new Glyph[count];
+        this.frames = new long[count];
+        this.prev = new int[count];
+        this.next = new int[count];
+        Arrays.fill(prev, NONE);
+        Arrays.fill(next, NONE);
+        final int capacity = Integer.highestOneBit(Math.max(2, count) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(keys, NONE);
+        this.dirty = new boolean[count];
+        addDirty(0, 0, width, height);
+    }
+
+    /**
+     * Starts new frame. Glyphs requested after this call may evict glyphs used in previous frames only.
+     */
+    public void beginFrame() {
+        frame++;
+    }
+
+    /**
+     * Returns glyph for code point, rendering it into free (or least recently used) slot if needed.
+     *
+     * @param codePoint the code point
+     * @return the glyph with atlas coordinates, default glyph of font if code point is not supported by rasterizer or
+     * there is no slot to render it to (may be {@code null} if there is no default glyph either)
+     */
+    public Glyph glyph(int codePoint) {
+        final GlyphIndex idx = font.index();
+        final int i = idx.indexOf(codePoint);
+        if (i >= 0) {
+            return idx.glyph(i);
+        }
+        final int slot = find(codePoint);
+        if (slot != NONE) {
+            hits++;
+            touch(slot);
+            return glyphs[slot];
+        }
+        final int free = allocate();
+        if (free == NONE) {
+            return font.defaultGlyph();
+        }
+        misses++;
+        final Glyph glyph = render(codePoint, free);
+        if (glyph == null) {
+            release(free);
+            return font.defaultGlyph();
+        }
+        glyphs[free] = glyph;
+        put(codePoint, free);
+        touch(free);
+        return glyph;
+    }
+
+    /**
+     * @return the number of dirty rectangles
+     */
+    public int dirtyCount() {
+        return dirtyCount;
+    }
+
+    public int dirtyX(int index) {
+        return dirtyRects[4 * index];
+    }
+
+    public int dirtyY(int index) {
+        return dirtyRects[4 * index + 1];
+    }
+
+    public int dirtyWidth(int index) {
+        return dirtyRects[4 * index + 2];
+    }
+
+    public int dirtyHeight(int index) {
+        return dirtyRects[4 * index + 3];
+    }
+
+    /**
+     * Forgets dirty rectangles (should be called after changed regions were uploaded).
+     */
+    public void clearDirty() {
+        dirtyCount = 0;
+        Arrays.fill(dirty, false);
+    }
+
+    private int slotX(int slot) {
+        return SLOT_BORDER + (slot % columns) * (slotWidth + SLOT_BORDER);
+    }
+
+    private int slotY(int slot) {
+        return slotsTop + (slot / columns) * (slotHeight + SLOT_BORDER);
+    }
+
+    private Glyph render(int codePoint, int slot) {
+        final int x = slotX(slot), y = slotY(slot);
+        for (int row = 0; row < slotHeight; row++) {
+            final int p = (y + row) * width + x;
+            for (int i = 0; i < slotWidth; i++) {
+                pixels.put(p + i, (byte) 0);
+            }
+        }
+        final ByteBuffer view = pixels.duplicate();
+        view.position(y * width + x);
+        final Glyph g = rasterizer.rasterize(codePoint, view, width, slotWidth, slotHeight);
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            addDirty(x, y, slotWidth, slotHeight);
+        }
+        if (g == null) {
+            return null;
+        }
+        final int w = g.hasInkBounds() ? g.inkWidth() : g.width();
+        final int h = g.hasInkBounds() ? g.inkHeight() : font.fontHeight();
+        if (g.x() < 0 || g.y() < 0 || g.x() + w > slotWidth || g.y() + h > slotHeight) {
+            throw new IllegalStateException("Glyph " + g + " does not fit slot " + slotWidth + "x" + slotHeight);
+        }
+        if (g.hasInkBounds()) {
+            return new Glyph(codePoint, x + g.x(), y + g.y(), g.width(), g.xOffset(), g.yOffset(), g.inkWidth(), g.inkHeight());
+        }
+        return new Glyph(codePoint, x + g.x(), y + g.y(), g.width());
+    }
+
+    /**
+     * @return the free slot (evicting least recently used glyph if needed) or {@link #NONE} if all slots are used in
+     * current frame
+     */
+    private int allocate() {
+        if (used < glyphs.length) {
+            return used++;
+        }
+        final int slot = head;
+        if (frames[slot] == frame) {
+            return NONE;
+        }
+        if (glyphs[slot] != null) {
+            remove(glyphs[slot].codePoint());
+            glyphs[slot] = null;
+            evictions++;
+        }
+        return slot;
+    }
+
+    /**
+     * Gives back slot which was allocated but left empty. Never used slot is returned to the pool of free slots while
+     * evicted one stays least recently used (head of the list) and is reused first.
+     */
+    private void release(int slot) {
+        if (slot != head) {
+            used--;
+        }
+    }
+
+    private void touch(int slot) {
+        frames[slot] = frame;
+        if (tail == slot) {
+            return;
+        }
+        unlink(slot);
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail != NONE) {
+            next[tail] = slot;
+        }
+        tail = slot;
+        if (head == NONE) {
+            head = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        final int p = prev[slot], n = next[slot];
+        if (p != NONE) {
+            next[p] = n;
+        } else if (head == slot) {
+            head = n;
+        }
+        if (n != NONE) {
+            prev[n] = p;
+        } else if (tail == slot) {
+            tail = p;
+        }
+        prev[slot] = NONE;
+        next[slot] = NONE;
+    }
+
+    private void addDirty(int x, int y, int w, int h) {
+        if (4 * dirtyCount == dirtyRects.length) {
+            dirtyRects = Arrays.copyOf(dirtyRects, 2 * dirtyRects.length);
+        }
+        final int p = 4 * dirtyCount++;
+        dirtyRects[p] = x;
+        dirtyRects[p + 1] = y;
+        dirtyRects[p + 2] = w;
+        dirtyRects[p + 3] = h;
+    }
+
+    private int hash(int codePoint) {
+        return (codePoint * 0x9E3779B9) >>> 16 & (keys.length - 1);
+    }
+
+    private int find(int codePoint) {
+        final int mask = keys.length - 1;
+        for (int i = hash(codePoint); ; i = (i + 1) & mask) {
+            final int k = keys[i];
+            if (k == codePoint) {
+                return values[i];
+            }
+            if (k == NONE) {
+                return NONE;
+            }
+        }
+    }
+
+    private void put(int codePoint, int slot) {
+        final int mask = keys.length - 1;
+        int i = hash(codePoint);
+        while (keys[i] != NONE) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = codePoint;
+        values[i] = slot;
+    }
+
+    /**
+     * Removes key using backward shift deletion (no tombstones).
+     */
+    private void remove(int codePoint) {
+        final int mask = keys.length - 1;
+        int i = hash(codePoint);
+        while (keys[i] != codePoint) {
+            i = (i + 1) & mask;
+        }
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != NONE; j = (j + 1) & mask) {
+            final int home = hash(keys[j]);
+            // move entry to the hole if its home is not in (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = NONE;
+    }
+}
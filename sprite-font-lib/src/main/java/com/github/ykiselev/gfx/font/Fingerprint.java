@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming 64-bit hash (MurmurHash3 style mixing of 64-bit words). Result depends only on the sequence of added
+ * values, so it is stable between runs and platforms and may be stored in files.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+final class Fingerprint {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h = 0x5350464eL;
+
+    private long length;
+
+    Fingerprint add(long value) {
+        long k = value * C1;
+        k = Long.rotateLeft(k, 31);
+        k *= C2;
+        h ^= k;
+        h = Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+        length++;
+        return this;
+    }
+
+    /**
+     * Adds remaining bytes of the buffer (position is not changed), length of data is added as well so buffers with
+     * trailing zeros are distinguished.
+     */
+    Fingerprint add(ByteBuffer buffer) {
+        final ByteBuffer buf = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        add(buf.remaining());
+        while (buf.remaining() >= Long.BYTES) {
+            add(buf.getLong());
+        }
+        long tail = 0;
+        for (int shift = 0; buf.hasRemaining(); shift += 8) {
+            tail |= (buf.get() & 0xffL) << shift;
+        }
+        return add(tail);
+    }
+
+    long value() {
+        long result = h ^ length;
+        result ^= result >>> 33;
+        result *= 0xff51afd7ed558ccdL;
+        result ^= result >>> 33;
+        result *= 0xc4ceb9fe1a85ec53L;
+        result ^= result >>> 33;
+        return result;
+    }
+}
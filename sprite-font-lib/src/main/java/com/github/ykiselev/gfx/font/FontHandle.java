@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reference to the current version of sprite font which may be replaced at runtime (see {@link FontWatcher}). Code
+ * which draws text should keep handles instead of fonts and call {@link #get()} each frame - it's a single volatile
+ * read, no locks. Owners of resources built from font (textures, glyph buffers) may either register
+ * {@link Listener} or compare {@link #version()} with the version they were built for.
+ * <p>
+ * Listeners are called on the thread which replaced font (background thread of watcher), so they should not do any
+ * heavy work - typically they just mark texture as stale for render thread to re-upload it on the next frame. Exception
+ * thrown by listener is logged and does not prevent other listeners from being notified.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class FontHandle {
+
+    /**
+     * Listener of font changes.
+     */
+    public interface Listener {
+
+        /**
+         * Called after font was replaced.
+         *
+         * @param handle   the handle
+         * @param previous the previous font
+         * @param current  the new font
+         */
+        void fontChanged(FontHandle handle, SpriteFont previous, SpriteFont current);
+
+        /**
+         * Called if new version of font could not be loaded, handle keeps previous font.
+         *
+         * @param handle the handle
+         * @param error  the error
+         */
+        default void reloadFailed(FontHandle handle, Exception error) {
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final AtomicReference<SpriteFont> font;
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @param font the initial font
+     */
+    public FontHandle(SpriteFont font) {
+        this.font = new AtomicReference<>(requireNonNull(font));
+    }
+
+    /**
+     * @return the current font
+     */
+    public SpriteFont get() {
+        return font.get();
+    }
+
+    /**
+     * @return the number of times font was replaced
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Replaces font and notifies listeners. Fonts with the same content (see {@link SpriteFont#fingerprint()}) are not
+     * replaced.
+     *
+     * @param value the new font
+     * @return {@code true} if font was replaced
+     */
+    public boolean set(SpriteFont value) {
+        requireNonNull(value);
+        final long fingerprint = value.fingerprint();
+        SpriteFont previous;
+        do {
+            previous = font.get();
+            if (previous.fingerprint() == fingerprint) {
+                return false;
+            }
+        } while (!font.compareAndSet(previous, value));
+        version.incrementAndGet();
+        for (Listener listener : listeners) {
+            try {
+                listener.fontChanged(this, previous, value);
+            } catch (RuntimeException e) {
+                logger.error("Font change listener failed!", e);
+            }
+        }
+        return true;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(requireNonNull(listener));
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void reloadFailed(Exception error) {
+        for (Listener listener : listeners) {
+            try {
+                listener.reloadFailed(this, error);
+            } catch (RuntimeException e) {
+                logger.error("Reload failure listener failed!", e);
+            }
+        }
+    }
+}
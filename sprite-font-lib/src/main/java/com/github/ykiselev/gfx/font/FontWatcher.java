@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches sprite font files and reloads them when they change. Each watched file has single {@link FontHandle}, new
+ * version of font is read and fully prepared (glyph table and decoded pixels) on background thread and then swapped
+ * into handle, so threads which use fonts never wait for loading.
+ * <p>
+ * Editors and build tools often write files in several steps, so file is reloaded only after there were no changes
+ * in watched directories for a short quiet period. If file can not be read (e.g. it's still being written) handle
+ * keeps previous font and listeners are notified with {@link FontHandle.Listener#reloadFailed(FontHandle, Exception)}.
+ * <p>
+ * Changed files are read (not mapped, see {@link SpriteFontReader#map(Path)}) as mapped file may be overwritten
+ * while in use.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class FontWatcher implements AutoCloseable {
+
+    private static final long DEFAULT_QUIET_MILLIS = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final WatchService service;
+
+    /**
+     * Handles by absolute normalized file path.
+     */
+    private final Map<Path, FontHandle> handles = new ConcurrentHashMap<>();
+
+    private final Set<Path> directories = new HashSet<>();
+
+    private final long quietMillis;
+
+    private final Thread thread;
+
+    public FontWatcher() throws IOException {
+        this(DEFAULT_QUIET_MILLIS);
+    }
+
+    /**
+     * Starts background (daemon) thread watching for changes.
+     *
+     * @param quietMillis the time without changes to wait before reloading fonts, milliseconds
+     * @throws IOException if watch service can not be created
+     */
+    public FontWatcher(long quietMillis) throws IOException {
+        if (quietMillis < 0) {
+            throw new IllegalArgumentException("Quiet period should not be negative!");
+        }
+        this.quietMillis = quietMillis;
+        this.service = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::run, "sprite-font-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Loads font and starts watching its file. Subsequent calls with the same file return the same handle.
+     *
+     * @param path the path to font file
+     * @return the handle of font
+     * @throws IOException if font can not be loaded or directory can not be watched
+     */
+    public FontHandle watch(Path path) throws IOException {
+        final Path file = path.toAbsolutePath().normalize();
+        final FontHandle existing = handles.get(file);
+        if (existing != null) {
+            return existing;
+        }
+        final FontHandle handle = new FontHandle(load(file));
+        final Path directory = file.getParent();
+        synchronized (directories) {
+            if (!directories.contains(directory)) {
+                directory.register(
+                        service,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY
+                );
+                directories.add(directory);
+            }
+        }
+        final FontHandle previous = handles.putIfAbsent(file, handle);
+        return previous != null ? previous : handle;
+    }
+
+    /**
+     * Stops watching. Handles keep their current fonts.
+     */
+    @Override
+    public void close() throws IOException {
+        service.close();
+        thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                final Set<Path> changed = new HashSet<>();
+                collect(service.take(), changed);
+                // wait until files are quiet
+                WatchKey key;
+                while ((key = service.poll(quietMillis, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                for (Path file : changed) {
+                    try {
+                        reload(file);
+                    } catch (RuntimeException e) {
+                        // keep watching other files
+                        logger.error("Failed to reload " + file + "!", e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        final Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, reload everything in directory
+                for (Path file : handles.keySet()) {
+                    if (directory.equals(file.getParent())) {
+                        changed.add(file);
+                    }
+                }
+                continue;
+            }
+            final Path file = directory.resolve((Path) event.context());
+            if (handles.containsKey(file)) {
+                changed.add(file);
+            }
+        }
+        key.reset();
+    }
+
+    private void reload(Path file) {
+        final FontHandle handle = handles.get(file);
+        final SpriteFont font;
+        try {
+            font = load(file);
+        } catch (IOException | RuntimeException e) {
+            handle.reloadFailed(e);
+            return;
+        }
+        handle.set(font);
+    }
+
+    /**
+     * Reads and prepares font.
+     */
+    private static SpriteFont load(Path file) throws IOException {
+        final SpriteFont result;
+        try (InputStream is = Files.newInputStream(file)) {
+            result = SpriteFontReader.read(is);
+        }
+        result.glyphTable();
+        result.pixels();
+        return result;
+    }
+}
@@ -19,11 +19,16 @@ package com.github.ykiselev.gfx.font;
 import java.util.Objects;
 
 /**
+ * Glyph of sprite font. Glyph's cell is {@link #width()} pixels wide (the advance) and font height pixels tall. When
+ * glyph has ink bounds then only the ink rectangle ({@link #inkWidth()} x {@link #inkHeight()} pixels at {@link #x()},
+ * {@link #y()}) is stored in atlas and it is placed at ({@link #xOffset()}, {@link #yOffset()}) relative to the top
+ * left corner of the cell. Glyphs without ink bounds (fonts built by older versions) occupy the whole cell in atlas.
+ *
  * @author Yuriy Kiselev (uze@yandex.ru).
  */
 public final class Glyph {
 
-    private final char character;
+    private final int codePoint;
 
     private final short width;
 
@@ -31,8 +36,31 @@ public final class Glyph {
 
     private final int y;
 
+    private final short xOffset;
+
+    private final short yOffset;
+
+    /**
+     * Width of ink rectangle or -1 if glyph has no ink bounds.
+     */
+    private final short inkWidth;
+
+    private final short inkHeight;
+
+    /**
+     * @return the Unicode code point of this glyph
+     */
+    public int codePoint() {
+        return codePoint;
+    }
+
+    /**
+     * @return the code point of this glyph truncated to {@code char} (meaningless for supplementary characters)
+     * @deprecated use {@link #codePoint()}
+     */
+    @Deprecated
     public char character() {
-        return character;
+        return (char) codePoint;
     }
 
     public int x() {
@@ -43,24 +71,87 @@ public final class Glyph {
         return y;
     }
 
+    /**
+     * @return the advance width of glyph (without font's glyphXBorder)
+     */
     public short width() {
         return width;
     }
 
-    public Glyph(char character, int x, int y, short width) {
-        this.character = character;
+    /**
+     * @return the horizontal offset of ink rectangle from the left side of the cell
+     */
+    public short xOffset() {
+        return xOffset;
+    }
+
+    /**
+     * @return the vertical offset of ink rectangle from the top of the cell
+     */
+    public short yOffset() {
+        return yOffset;
+    }
+
+    /**
+     * @return the width of ink rectangle or -1 if glyph has no ink bounds
+     */
+    public short inkWidth() {
+        return inkWidth;
+    }
+
+    /**
+     * @return the height of ink rectangle or -1 if glyph has no ink bounds
+     */
+    public short inkHeight() {
+        return inkHeight;
+    }
+
+    /**
+     * @return {@code true} if glyph has ink bounds, otherwise glyph occupies the whole cell in atlas
+     */
+    public boolean hasInkBounds() {
+        return inkWidth >= 0;
+    }
+
+    /**
+     * Creates glyph without ink bounds.
+     */
+    public Glyph(int codePoint, int x, int y, short width) {
+        this(codePoint, x, y, width, (short) 0, (short) 0, (short) -1, (short) -1);
+    }
+
+    /**
+     * @param codePoint the code point
+     * @param x         the x coordinate of ink rectangle in atlas
+     * @param y         the y coordinate of ink rectangle in atlas
+     * @param width     the advance width
+     * @param xOffset   the horizontal offset of ink rectangle from the left side of the cell
+     * @param yOffset   the vertical offset of ink rectangle from the top of the cell
+     * @param inkWidth  the width of ink rectangle (zero for blank glyphs) or -1 if glyph has no ink bounds
+     * @param inkHeight the height of ink rectangle (zero for blank glyphs) or -1 if glyph has no ink bounds
+     */
+    public Glyph(int codePoint, int x, int y, short width, short xOffset, short yOffset, short inkWidth, short inkHeight) {
+        if ((inkWidth < 0) != (inkHeight < 0)) {
+            throw new IllegalArgumentException("Both ink width and height should be either negative or not!");
+        }
+        this.codePoint = codePoint;
         this.x = x;
         this.y = y;
         this.width = width;
+        this.xOffset = inkWidth < 0 ? 0 : xOffset;
+        this.yOffset = inkWidth < 0 ? 0 : yOffset;
+        this.inkWidth = inkWidth < 0 ? -1 : inkWidth;
+        this.inkHeight = inkWidth < 0 ? -1 : inkHeight;
     }
 
     @Override
     public String toString() {
         return "Glyph{" +
-                "character=" + character +
+                "codePoint=" + codePoint +
                 ", x=" + x +
                 ", y=" + y +
                 ", width=" + width +
+                (hasInkBounds() ? ", ink=" + xOffset + "," + yOffset + "," + inkWidth + "x" + inkHeight : "") +
                 '}';
     }
 
@@ -69,14 +160,18 @@ public final class Glyph {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Glyph glyph = (Glyph) o;
-        return character == glyph.character &&
+        return codePoint == glyph.codePoint &&
                 x == glyph.x &&
                 y == glyph.y &&
-                width == glyph.width;
+                width == glyph.width &&
+                xOffset == glyph.xOffset &&
+                yOffset == glyph.yOffset &&
+                inkWidth == glyph.inkWidth &&
+                inkHeight == glyph.inkHeight;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(character, x, y, width);
+        return Objects.hash(codePoint, x, y, width, xOffset, yOffset, inkWidth, inkHeight);
     }
 }
\ No newline at end of file
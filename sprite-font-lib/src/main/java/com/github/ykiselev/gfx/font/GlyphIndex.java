@@ -0,0 +1,496 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.util.Arrays;
+
+/**
+ * Maps code points to positions of glyphs in the flattened glyph sequence of a font: glyphs of all glyph lists in order
+ * followed by glyphs of all grid ranges (see {@link GlyphRange#isGrid()}) in order. Code points below 256 are resolved
+ * with single array access, the rest (including supplementary planes) goes through two-level page table where each
+ * non-empty page covers 256 consecutive code points. Missing code points are mapped to -1. Index also keeps widths and
+ * line break classes of listed glyphs as primitive arrays for text measurement and layout.
+ * <p>
+ * Grid ranges are never expanded into glyphs: their code points above 255 are not put into page table, they are found
+ * by binary search over grid starts and resolved arithmetically along with glyph width.
+ * <p>
+ * Ranges which are not materialized yet (see {@link SpriteFontReader#map(java.nio.file.Path)}) are decoded and added
+ * to lookup tables only when one of their code points is looked up: code point missing from the tables is searched
+ * among such ranges by their start code point (lazily loaded glyph lists are expected not to overlap each other).
+ * Lookup tables are never modified once published, decoding of range replaces them (copying only pages touched by
+ * the range), so lookups do not lock.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+final class GlyphIndex {
+
+    private static final int PAGE_BITS = 8;
+
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final int PAGE_COUNT = (Character.MAX_CODE_POINT + 1) >>> PAGE_BITS;
+
+    /**
+     * Line can not be broken after this character.
+     */
+    static final byte BREAK_NONE = 0;
+
+    /**
+     * Breakable space, line may end before it and the space itself is not counted in line width.
+     */
+    static final byte BREAK_SPACE = 1;
+
+    /**
+     * Line may be broken after this character (hyphens, dashes, ideographs, etc).
+     */
+    static final byte BREAK_AFTER = 2;
+
+    private final GlyphRange[] ranges;
+
+    private final int characterWidth;
+
+    /**
+     * Position of the first glyph of each range.
+     */
+    private final int[] bases;
+
+    /**
+     * Start code points (inclusive), end code points (exclusive) and numbers of grid ranges ordered by start.
+     */
+    private final int[] grids;
+
+    /**
+     * Numbers of grid ranges in the order of their glyphs.
+     */
+    private final int[] gridOrder;
+
+    /**
+     * The number of listed glyphs, grid glyphs follow them.
+     */
+    private final int listSize;
+
+    private final int size;
+
+    /**
+     * Start code points and numbers of lazily loaded glyph lists ordered by start.
+     */
+    private final int[] lists;
+
+    /**
+     * Listed glyphs, their widths and break classes, filled in when range is decoded (before new lookup tables are
+     * published).
+     */
+    private final Glyph[] glyphs;
+
+    private final short[] widths;
+
+    private final byte[] breaks;
+
+    private volatile Lookup lookup;
+
+    /**
+     * @return the number of glyphs in all ranges
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of listed glyphs (index of the first grid glyph)
+     */
+    int listSize() {
+        return listSize;
+    }
+
+    /**
+     * @param index the glyph index returned by {@link #indexOf(int)} (any index after {@link #decodeAll()})
+     * @return the glyph. Glyphs of grid ranges are created on each call.
+     */
+    Glyph glyph(int index) {
+        if (index < listSize) {
+            return glyphs[index];
+        }
+        final int r = gridOf(index);
+        final GlyphRange range = ranges[r];
+        final int k = index - bases[r];
+        return new Glyph(range.start() + k, range.glyphX(k), range.glyphY(k), range.advance());
+    }
+
+    /**
+     * @param index the glyph index returned by {@link #indexOf(int)} (any index after {@link #decodeAll()})
+     * @return the glyph width (font's character width is used for glyphs with zero width)
+     */
+    short width(int index) {
+        if (index < listSize) {
+            return widths[index];
+        }
+        final short advance = ranges[gridOf(index)].advance();
+        return advance != 0 ? advance : (short) characterWidth;
+    }
+
+    /**
+     * @param codePoint the code point
+     * @return the line break class of the code point
+     */
+    byte breakClass(int codePoint) {
+        final int i = indexOf(codePoint);
+        return i >= 0 && i < listSize ? breaks[i] : classify(codePoint);
+    }
+
+    /**
+     * @param index the index of grid glyph
+     * @return the number of grid range containing glyph
+     */
+    int gridOf(int index) {
+        int lo = 0, hi = gridOrder.length - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (bases[gridOrder[mid]] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return gridOrder[lo];
+    }
+
+    /**
+     * @param r the range number
+     * @return the range
+     */
+    GlyphRange range(int r) {
+        return ranges[r];
+    }
+
+    /**
+     * @param r the range number
+     * @return the index of the first glyph of range
+     */
+    int base(int r) {
+        return bases[r];
+    }
+
+    /**
+     * @return the number of grid ranges
+     */
+    int gridCount() {
+        return gridOrder.length;
+    }
+
+    /**
+     * @param g the grid number (in the order of grid glyphs)
+     * @return the range number of grid
+     */
+    int grid(int g) {
+        return gridOrder[g];
+    }
+
+    private GlyphIndex(GlyphRange[] ranges, int characterWidth) {
+        this.ranges = ranges;
+        this.characterWidth = characterWidth;
+        this.bases = new int[ranges.length];
+        int total = 0, gridCount = 0;
+        for (int r = 0; r < ranges.length; r++) {
+            if (!ranges[r].isGrid()) {
+                bases[r] = total;
+                total += ranges[r].size();
+            } else {
+                gridCount++;
+            }
+        }
+        this.listSize = total;
+        this.gridOrder = new int[gridCount];
+        gridCount = 0;
+        for (int r = 0; r < ranges.length; r++) {
+            if (ranges[r].isGrid()) {
+                bases[r] = total;
+                total += ranges[r].size();
+                gridOrder[gridCount++] = r;
+            }
+        }
+        this.size = total;
+        this.glyphs = new Glyph[listSize];
+        this.widths = new short[listSize];
+        this.breaks = new byte[listSize];
+        this.grids = sorted(ranges, true);
+        this.lists = sorted(ranges, false);
+        final Lookup initial = new Lookup(ranges.length);
+        for (int r = 0; r < ranges.length; r++) {
+            if (ranges[r].isGrid()) {
+                addLatin(initial, r);
+            } else if (ranges[r].isMaterialized()) {
+                // glyphs of materialized ranges are already there
+                add(initial, r);
+            }
+        }
+        this.lookup = initial;
+    }
+
+    /**
+     * Collects non-empty grid ranges (start, end and range number for each) or lazily loaded glyph lists (start and
+     * range number) ordered by start code point.
+     */
+    private static int[] sorted(GlyphRange[] ranges, boolean grid) {
+        final int step = grid ? 3 : 2;
+        int count = 0;
+        for (GlyphRange range : ranges) {
+            if (range.size() > 0 && range.isGrid() == grid && (grid || !range.isMaterialized())) {
+                count++;
+            }
+        }
+        // range number is kept in low bits of sort key
+        final long[] keys = new long[count];
+        int k = 0;
+        for (int r = 0; r < ranges.length; r++) {
+            final GlyphRange range = ranges[r];
+            if (range.size() > 0 && range.isGrid() == grid && (grid || !range.isMaterialized())) {
+                keys[k++] = (long) range.start() << 32 | r;
+            }
+        }
+        Arrays.sort(keys);
+        final int[] result = new int[step * count];
+        for (k = 0; k < count; k++) {
+            final int r = (int) keys[k];
+            final int p = step * k;
+            result[p] = (int) (keys[k] >> 32);
+            if (grid) {
+                result[p + 1] = result[p] + ranges[r].size();
+            }
+            result[p + step - 1] = r;
+        }
+        return result;
+    }
+
+    /**
+     * @param codePoint the code point to look up
+     * @return the index of glyph or -1 if there is no glyph for this code point
+     */
+    int indexOf(int codePoint) {
+        final Lookup current = lookup;
+        final int i = current.find(codePoint);
+        if (i >= 0 || !Character.isValidCodePoint(codePoint)) {
+            return i;
+        }
+        int k = floor(grids, 3, codePoint);
+        if (k >= 0 && codePoint < grids[k + 1]) {
+            return bases[grids[k + 2]] + codePoint - grids[k];
+        }
+        // code point may belong to range which is not decoded yet
+        k = floor(lists, 2, codePoint);
+        if (k >= 0 && !current.decoded[lists[k + 1]]) {
+            decode(lists[k + 1], lists[k + 1] + 1);
+            return lookup.find(codePoint);
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes all glyph lists (glyph table needs all of them).
+     */
+    void decodeAll() {
+        decode(0, ranges.length);
+    }
+
+    /**
+     * @return the offset of the last record (of {@code step} ints, start code point first) in {@code records} with
+     * start not greater than {@code codePoint} or -1 if there is no such record
+     */
+    private static int floor(int[] records, int step, int codePoint) {
+        int lo = 0, hi = records.length / step - 1, result = -1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (records[step * mid] <= codePoint) {
+                result = step * mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decodes ranges {@code from} (inclusive) to {@code to} (exclusive) which are not decoded yet and publishes new
+     * lookup tables.
+     */
+    private synchronized void decode(int from, int to) {
+        final Lookup current = lookup;
+        Lookup next = null;
+        for (int r = from; r < to; r++) {
+            if (!current.decoded[r] && !ranges[r].isGrid()) {
+                if (next == null) {
+                    next = current.copy();
+                }
+                add(next, r);
+            }
+        }
+        if (next != null) {
+            lookup = next;
+        }
+    }
+
+    /**
+     * Adds glyphs of range to lookup tables which are not published yet.
+     */
+    private void add(Lookup next, int r) {
+        int i = bases[r];
+        for (Glyph glyph : ranges[r].glyphs()) {
+            glyphs[i] = glyph;
+            widths[i] = glyph.width() != 0 ? glyph.width() : (short) characterWidth;
+            final int ch = glyph.codePoint();
+            breaks[i] = classify(ch);
+            if (Character.isValidCodePoint(ch)) {
+                final int[] page = next.writablePage(ch >>> PAGE_BITS);
+                // first glyph wins if character is duplicated
+                if (page[ch & PAGE_MASK] < 0) {
+                    page[ch & PAGE_MASK] = i;
+                }
+            }
+            i++;
+        }
+        next.decoded[r] = true;
+    }
+
+    /**
+     * Puts code points of grid range below 256 into lookup tables which are not published yet.
+     */
+    private void addLatin(Lookup next, int r) {
+        final GlyphRange range = ranges[r];
+        final int end = Math.min(PAGE_SIZE, range.start() + range.size());
+        for (int ch = range.start(); ch < end; ch++) {
+            // first glyph wins if character is duplicated
+            if (next.latin[ch] < 0) {
+                next.latin[ch] = bases[r] + ch - range.start();
+            }
+        }
+    }
+
+    static GlyphIndex build(GlyphRange[] ranges, int characterWidth) {
+        return new GlyphIndex(ranges, characterWidth);
+    }
+
+    private static int[] emptyPage() {
+        final int[] page = new int[PAGE_SIZE];
+        Arrays.fill(page, -1);
+        return page;
+    }
+
+    /**
+     * Lookup tables. Published instances are never modified.
+     */
+    private static final class Lookup {
+
+        final int[] latin;
+
+        final int[][] pages;
+
+        /**
+         * Flags of decoded ranges.
+         */
+        final boolean[] decoded;
+
+        /**
+         * Pages which belong to this instance (may be modified until it's published), the rest is shared with
+         * previous one.
+         */
+        private final boolean[] owned;
+
+        /**
+         * Creates empty tables.
+         */
+        Lookup(int ranges) {
+            this.pages = new int[PAGE_COUNT][];
+            this.pages[0] = emptyPage();
+            this.latin = pages[0];
+            this.decoded = new boolean[ranges];
+            this.owned = new boolean[PAGE_COUNT];
+            Arrays.fill(owned, true);
+        }
+
+        private Lookup(Lookup source) {
+            this.pages = source.pages.clone();
+            this.pages[0] = source.latin.clone();
+            this.latin = pages[0];
+            this.decoded = source.decoded.clone();
+            this.owned = new boolean[PAGE_COUNT];
+            owned[0] = true;
+        }
+
+        Lookup copy() {
+            return new Lookup(this);
+        }
+
+        int[] writablePage(int p) {
+            int[] page = pages[p];
+            if (page == null) {
+                page = emptyPage();
+            } else if (!owned[p]) {
+                page = page.clone();
+            } else {
+                return page;
+            }
+            pages[p] = page;
+            owned[p] = true;
+            return page;
+        }
+
+        int find(int codePoint) {
+            if (codePoint < PAGE_SIZE) {
+                return codePoint >= 0 ? latin[codePoint] : -1;
+            }
+            final int p = codePoint >>> PAGE_BITS;
+            if (p < pages.length) {
+                final int[] page = pages[p];
+                if (page != null) {
+                    return page[codePoint & PAGE_MASK];
+                }
+            }
+            return -1;
+        }
+    }
+
+    static byte classify(int ch) {
+        switch (ch) {
+            case '\u00a0':
+            case '\u2007':
+            case '\u202f':
+                // no-break spaces
+                return BREAK_NONE;
+
+            case '-':
+            case '/':
+            case '\u2010':
+            case '\u2012':
+            case '\u2013':
+            case '\u2014':
+                return BREAK_AFTER;
+        }
+        if (Character.isSpaceChar(ch)) {
+            return BREAK_SPACE;
+        }
+        if (Character.isIdeographic(ch)) {
+            return BREAK_AFTER;
+        }
+        final Character.UnicodeBlock block = Character.UnicodeBlock.of(ch);
+        if (block == Character.UnicodeBlock.HIRAGANA || block == Character.UnicodeBlock.KATAKANA) {
+            return BREAK_AFTER;
+        }
+        return BREAK_NONE;
+    }
+}
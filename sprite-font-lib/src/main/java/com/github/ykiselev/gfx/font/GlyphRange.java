@@ -24,18 +24,220 @@ import java.util.Arrays;
 import static java.util.Objects.requireNonNull;
 
 /**
+ * Range of glyphs. Range is either a list of glyphs with arbitrary positions or a grid of consecutive code points
+ * (fixed pitch glyphs without ink bounds) whose positions are calculated from glyph index, see
+ * {@link #grid(int, int, int, int, int, int, int, short)}.
+ *
  * @author Yuriy Kiselev (uze@yandex.ru).
  */
 public final class GlyphRange implements Serializable {
 
-    private final transient Glyph[] glyphs;
+    private transient volatile Glyph[] glyphs;
+
+    /**
+     * Encoded glyphs (see {@link SpriteFontFormat}) for ranges which are materialized on first access.
+     */
+    private transient ByteBuffer encoded;
+
+    private final transient int size;
+
+    private final transient int start;
+
+    private final transient int version;
+
+    /**
+     * Grid parameters, {@code columns} is zero for ranges which are not grids.
+     */
+    private final transient int gridX;
+
+    private final transient int gridY;
 
+    private final transient int columns;
+
+    private final transient int pitchX;
+
+    private final transient int pitchY;
+
+    private final transient short advance;
+
+    /**
+     * Returns glyphs of this range. If range was loaded lazily then glyphs are decoded on first call.
+     *
+     * @return the glyphs
+     */
     public Glyph[] glyphs() {
-        return glyphs;
+        Glyph[] result = glyphs;
+        if (result == null) {
+            synchronized (this) {
+                result = glyphs;
+                if (result == null) {
+                    if (isGrid()) {
+                        result = new Glyph[size];
+                        for (int i = 0; i < size; i++) {
+                            result[i] = new Glyph(start + i, glyphX(i), glyphY(i), advance);
+                        }
+                    } else {
+                        result = SpriteFontReader.readGlyphs(encoded.duplicate(), size, start, version);
+                        encoded = null;
+                    }
+                    glyphs = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of glyphs in range (does not materialize lazily loaded range)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} if this range is a grid of fixed pitch glyphs
+     */
+    public boolean isGrid() {
+        return columns > 0;
+    }
+
+    /**
+     * @return the code point of the first glyph of grid range
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return the x coordinate of the first grid cell
+     */
+    public int gridX() {
+        return gridX;
+    }
+
+    /**
+     * @return the y coordinate of the first grid cell
+     */
+    public int gridY() {
+        return gridY;
+    }
+
+    /**
+     * @return the number of grid columns
+     */
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * @return the distance between left sides of adjacent grid cells
+     */
+    public int pitchX() {
+        return pitchX;
+    }
+
+    /**
+     * @return the distance between top sides of adjacent grid cells
+     */
+    public int pitchY() {
+        return pitchY;
+    }
+
+    /**
+     * @return the advance of each glyph of grid range
+     */
+    public short advance() {
+        return advance;
+    }
+
+    /**
+     * @param index the glyph index within grid range
+     * @return the x coordinate of glyph
+     */
+    public int glyphX(int index) {
+        return gridX + (index % columns) * pitchX;
+    }
+
+    /**
+     * @param index the glyph index within grid range
+     * @return the y coordinate of glyph
+     */
+    public int glyphY(int index) {
+        return gridY + (index / columns) * pitchY;
+    }
+
+    /**
+     * @return {@code true} if glyphs of this range are already materialized
+     */
+    boolean isMaterialized() {
+        return glyphs != null;
     }
 
     public GlyphRange(Glyph[] glyphs) {
         this.glyphs = requireNonNull(glyphs);
+        this.encoded = null;
+        this.size = glyphs.length;
+        this.start = 0;
+        this.version = SpriteFontFormat.VERSION;
+        this.gridX = this.gridY = this.columns = this.pitchX = this.pitchY = 0;
+        this.advance = 0;
+    }
+
+    /**
+     * Creates lazily materialized range.
+     *
+     * @param encoded the encoded glyphs
+     * @param size    the number of glyphs
+     * @param start   the range start code point
+     * @param version the format version
+     */
+    GlyphRange(ByteBuffer encoded, int size, int start, int version) {
+        this.glyphs = null;
+        this.encoded = requireNonNull(encoded);
+        this.size = size;
+        this.start = start;
+        this.version = version;
+        this.gridX = this.gridY = this.columns = this.pitchX = this.pitchY = 0;
+        this.advance = 0;
+    }
+
+    private GlyphRange(int start, int size, int gridX, int gridY, int columns, int pitchX, int pitchY, short advance) {
+        this.glyphs = null;
+        this.encoded = null;
+        this.size = size;
+        this.start = start;
+        this.version = SpriteFontFormat.VERSION;
+        this.gridX = gridX;
+        this.gridY = gridY;
+        this.columns = columns;
+        this.pitchX = pitchX;
+        this.pitchY = pitchY;
+        this.advance = advance;
+    }
+
+    /**
+     * Creates grid range of consecutive code points. Glyph {@code i} has code point {@code start + i}, its cell is
+     * in column {@code i % columns} and row {@code i / columns} of the grid and it has no ink bounds (whole cell
+     * {@code advance} x font height is drawn). Glyphs are materialized only if {@link #glyphs()} is called.
+     *
+     * @param start   the code point of the first glyph
+     * @param size    the number of glyphs
+     * @param gridX   the x coordinate of the first cell
+     * @param gridY   the y coordinate of the first cell
+     * @param columns the number of columns
+     * @param pitchX  the distance between left sides of adjacent cells
+     * @param pitchY  the distance between top sides of adjacent cells
+     * @param advance the glyph advance (width of cell)
+     * @return the grid range
+     */
+    public static GlyphRange grid(int start, int size, int gridX, int gridY, int columns, int pitchX, int pitchY, short advance) {
+        if (size < 0 || columns < 1 || pitchX < 0 || pitchY < 0) {
+            throw new IllegalArgumentException("Bad grid: " + size + " glyphs, " + columns + " columns, pitch " + pitchX + "x" + pitchY);
+        }
+        if (start < 0 || start + size - 1 > Character.MAX_CODE_POINT) {
+            throw new IllegalArgumentException("Bad grid start: " + start);
+        }
+        return new GlyphRange(start, size, gridX, gridY, columns, pitchX, pitchY, advance);
     }
 
     @Override
@@ -43,18 +245,30 @@ public final class GlyphRange implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         GlyphRange range = (GlyphRange) o;
-        return Arrays.equals(glyphs, range.glyphs);
+        return Arrays.equals(glyphs(), range.glyphs());
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(glyphs);
+        return Arrays.hashCode(glyphs());
     }
 
     @Override
     public String toString() {
+        if (isGrid()) {
+            return "GlyphRange{" +
+                    "start=" + start +
+                    ", size=" + size +
+                    ", gridX=" + gridX +
+                    ", gridY=" + gridY +
+                    ", columns=" + columns +
+                    ", pitchX=" + pitchX +
+                    ", pitchY=" + pitchY +
+                    ", advance=" + advance +
+                    '}';
+        }
         return "GlyphRange{" +
-                ", glyphs=" + Arrays.toString(glyphs) +
+                ", glyphs=" + Arrays.toString(glyphs()) +
                 '}';
     }
 
@@ -64,7 +278,10 @@ public final class GlyphRange implements Serializable {
 }
 
 /**
- * Each glyph is stored as 3 integers, first is packed (hi 16 bits - char, lo 16 bits - width) then x and y.
+ * Each glyph is stored as 4 shorts: low 16 bits of code point, x, y and width. High bits of code points (plane
+ * numbers) are stored in separate array only if range has glyphs outside of Basic Multilingual Plane, so serialized
+ * form of BMP-only ranges is the same as before code points support. Likewise ink bounds (4 shorts per glyph: x
+ * offset, y offset, ink width and height) are stored only if range has glyphs with ink bounds.
  */
 final class GlyphRangeReplacement implements Serializable {
 
@@ -72,26 +289,79 @@ final class GlyphRangeReplacement implements Serializable {
 
     private final byte[] data;
 
+    /**
+     * Plane of each glyph's code point or {@code null} if all glyphs are from BMP.
+     */
+    private final byte[] planes;
+
+    /**
+     * Ink bounds of each glyph or {@code null} if no glyph has ink bounds.
+     */
+    private final short[] inks;
+
     GlyphRangeReplacement(GlyphRange range) {
-        data = toArray(range.glyphs());
+        final Glyph[] glyphs = range.glyphs();
+        data = toArray(glyphs);
+        planes = toPlanes(glyphs);
+        inks = toInks(glyphs);
     }
 
     Object readResolve() throws ObjectStreamException {
         return new GlyphRange(
-                toGlyphs(data)
+                toGlyphs(data, planes, inks)
         );
     }
 
-    private Glyph[] toGlyphs(byte[] data) {
+    private Glyph[] toGlyphs(byte[] data, byte[] planes, short[] inks) {
         final Glyph[] result = new Glyph[data.length >> 3];
         final ByteBuffer buf = ByteBuffer.wrap(data);
         for (int i = 0; i < result.length; i++) {
-            result[i] = new Glyph(
-                    buf.getChar(),
-                    buf.getShort() & 0xffff,
-                    buf.getShort() & 0xffff,
-                    buf.getShort()
-            );
+            final int plane = planes != null ? planes[i] : 0;
+            final int codePoint = plane << 16 | buf.getChar();
+            final int x = buf.getShort() & 0xffff;
+            final int y = buf.getShort() & 0xffff;
+            final short width = buf.getShort();
+            if (inks != null) {
+                final int k = 4 * i;
+                result[i] = new Glyph(codePoint, x, y, width, inks[k], inks[k + 1], inks[k + 2], inks[k + 3]);
+            } else {
+                result[i] = new Glyph(codePoint, x, y, width);
+            }
+        }
+        return result;
+    }
+
+    private short[] toInks(Glyph[] glyphs) {
+        short[] result = null;
+        for (int i = 0; i < glyphs.length; i++) {
+            final Glyph glyph = glyphs[i];
+            if (glyph.hasInkBounds()) {
+                if (result == null) {
+                    result = new short[4 * glyphs.length];
+                    for (int k = 2; k < result.length; k += 4) {
+                        result[k] = result[k + 1] = -1;
+                    }
+                }
+                final int k = 4 * i;
+                result[k] = glyph.xOffset();
+                result[k + 1] = glyph.yOffset();
+                result[k + 2] = glyph.inkWidth();
+                result[k + 3] = glyph.inkHeight();
+            }
+        }
+        return result;
+    }
+
+    private byte[] toPlanes(Glyph[] glyphs) {
+        byte[] result = null;
+        for (int i = 0; i < glyphs.length; i++) {
+            final int plane = glyphs[i].codePoint() >>> 16;
+            if (plane != 0) {
+                if (result == null) {
+                    result = new byte[glyphs.length];
+                }
+                result[i] = (byte) plane;
+            }
         }
         return result;
     }
@@ -99,7 +369,7 @@ final class GlyphRangeReplacement implements Serializable {
     private byte[] toArray(Glyph[] glyphs) {
         final ByteBuffer buf = ByteBuffer.allocate(8 * glyphs.length);
         for (final Glyph glyph : glyphs) {
-            buf.putChar(glyph.character());
+            buf.putChar((char) glyph.codePoint());
             buf.putShort((short) (glyph.x() & 0xffff));
             buf.putShort((short) (glyph.y() & 0xffff));
             buf.putShort(glyph.width());
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Packed (struct of arrays) form of font glyphs. Each glyph is identified by its index in the table (glyphs of all
+ * glyph lists in order followed by glyphs of grid ranges), all columns are primitive arrays so iterating over the table
+ * or looking up glyph data does not touch any {@link Glyph} objects. Normalized texture coordinates are calculated
+ * once from the atlas size. Grid ranges (see {@link GlyphRange#isGrid()}) take no per-glyph columns, values of their
+ * glyphs are calculated from glyph index and grid parameters.
+ * <p>
+ * Atlas rectangle ({@link #x(int)}, {@link #y(int)}, {@link #inkWidth(int)}, {@link #inkHeight(int)}) and texture
+ * coordinates describe glyph's ink rectangle which should be drawn at ({@link #xOffset(int)}, {@link #yOffset(int)})
+ * relative to the pen. For glyphs without ink bounds ink rectangle is the whole cell.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class GlyphTable {
+
+    /**
+     * Size of one glyph record written by {@link #write(ByteBuffer)}, bytes.
+     */
+    public static final int RECORD_SIZE = 48;
+
+    /**
+     * Number of ints per grid in {@link #grids}.
+     */
+    private static final int GRID_SIZE = 8;
+
+    private final GlyphIndex index;
+
+    private final int defaultIndex;
+
+    private final int[] codePoints;
+
+    private final int[] x;
+
+    private final int[] y;
+
+    private final short[] width;
+
+    private final short[] xOffset;
+
+    private final short[] yOffset;
+
+    private final short[] inkWidth;
+
+    private final short[] inkHeight;
+
+    private final int height;
+
+    private final int atlasWidth;
+
+    private final int atlasHeight;
+
+    private final float[] s0;
+
+    private final float[] t0;
+
+    private final float[] s1;
+
+    private final float[] t1;
+
+    /**
+     * The number of listed glyphs, grid glyphs follow them.
+     */
+    private final int listSize;
+
+    /**
+     * Index of the first glyph, start code point, x and y of the first cell, columns, pitch and glyph width of each
+     * grid.
+     */
+    private final int[] grids;
+
+    private final float sk;
+
+    private final float tk;
+
+    /**
+     * @return the number of glyphs in table
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @return the index of default character glyph or -1 if there is no such glyph
+     */
+    public int defaultIndex() {
+        return defaultIndex;
+    }
+
+    public int codePoint(int index) {
+        if (index < listSize) {
+            return codePoints[index];
+        }
+        final int g = gridOf(index);
+        return grids[g + 1] + index - grids[g];
+    }
+
+    public int x(int index) {
+        return index < listSize ? x[index] : gridX(gridOf(index), index);
+    }
+
+    public int y(int index) {
+        return index < listSize ? y[index] : gridY(gridOf(index), index);
+    }
+
+    /**
+     * @return the advance width of glyph
+     */
+    public short width(int index) {
+        return index < listSize ? width[index] : (short) grids[gridOf(index) + 7];
+    }
+
+    public short xOffset(int index) {
+        return index < listSize ? xOffset[index] : 0;
+    }
+
+    public short yOffset(int index) {
+        return index < listSize ? yOffset[index] : 0;
+    }
+
+    /**
+     * @return the width of glyph's ink rectangle (zero for blank glyphs)
+     */
+    public short inkWidth(int index) {
+        return index < listSize ? inkWidth[index] : (short) grids[gridOf(index) + 7];
+    }
+
+    /**
+     * @return the height of glyph's ink rectangle (zero for blank glyphs)
+     */
+    public short inkHeight(int index) {
+        return index < listSize ? inkHeight[index] : (short) height;
+    }
+
+    /**
+     * @return the height of each glyph cell (equal to font height)
+     */
+    public int height() {
+        return height;
+    }
+
+    public int atlasWidth() {
+        return atlasWidth;
+    }
+
+    public int atlasHeight() {
+        return atlasHeight;
+    }
+
+    public float s0(int index) {
+        return index < listSize ? s0[index] : x(index) * sk;
+    }
+
+    public float t0(int index) {
+        return index < listSize ? t0[index] : y(index) * tk;
+    }
+
+    public float s1(int index) {
+        return index < listSize ? s1[index] : (x(index) + inkWidth(index)) * sk;
+    }
+
+    public float t1(int index) {
+        return index < listSize ? t1[index] : (y(index) + height) * tk;
+    }
+
+    /**
+     * @return the offset in {@link #grids} of grid containing glyph
+     */
+    private int gridOf(int index) {
+        int lo = 0, hi = grids.length / GRID_SIZE - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (grids[GRID_SIZE * mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return GRID_SIZE * lo;
+    }
+
+    private int gridX(int g, int index) {
+        return grids[g + 2] + (index - grids[g]) % grids[g + 4] * grids[g + 5];
+    }
+
+    private int gridY(int g, int index) {
+        return grids[g + 3] + (index - grids[g]) / grids[g + 4] * grids[g + 6];
+    }
+
+    private GlyphTable(GlyphIndex index, int defaultIndex, int[] codePoints, int[] x, int[] y, short[] width,
+                       short[] xOffset, short[] yOffset, short[] inkWidth, short[] inkHeight, int height,
+                       int atlasWidth, int atlasHeight, float[] s0, float[] t0, float[] s1, float[] t1,
+                       int[] grids) {
+        this.index = index;
+        this.defaultIndex = defaultIndex;
+        this.codePoints = codePoints;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.xOffset = xOffset;
+        this.yOffset = yOffset;
+        this.inkWidth = inkWidth;
+        this.inkHeight = inkHeight;
+        this.height = height;
+        this.atlasWidth = atlasWidth;
+        this.atlasHeight = atlasHeight;
+        this.s0 = s0;
+        this.t0 = t0;
+        this.s1 = s1;
+        this.t1 = t1;
+        this.listSize = codePoints.length;
+        this.grids = grids;
+        this.sk = atlasWidth > 0 ? 1f / atlasWidth : 0;
+        this.tk = atlasHeight > 0 ? 1f / atlasHeight : 0;
+    }
+
+    /**
+     * @param codePoint the code point to look up
+     * @return the index of glyph for {@code codePoint} or {@link #defaultIndex()} if there is no such glyph.
+     */
+    public int indexOf(int codePoint) {
+        final int i = index.indexOf(codePoint);
+        return i >= 0 ? i : defaultIndex;
+    }
+
+    /**
+     * @param codePoint the code point to check
+     * @return {@code true} if table has glyph for {@code codePoint}
+     */
+    public boolean contains(int codePoint) {
+        return index.indexOf(codePoint) >= 0;
+    }
+
+    /**
+     * Writes glyph records to the buffer starting at buffer's current position using buffer's byte order. Record
+     * {@code i} describes glyph with index {@code i} and has std430-compatible layout (all members are 16 bytes
+     * aligned, so array of records may be used as is in shader storage or uniform buffer):
+     * <pre>
+     * struct Glyph {
+     *     ivec4 rect;    // x, y, ink width, ink height (pixels)
+     *     vec4 uv;       // s0, t0, s1, t1
+     *     ivec4 metrics; // x offset, y offset, advance width, cell height (pixels)
+     * };
+     * </pre>
+     * Buffer position is advanced by {@code size() * RECORD_SIZE}.
+     *
+     * @param dest the buffer to write to, should have native byte order if passed to graphics API as is.
+     * @return the {@code dest} buffer
+     * @throws BufferOverflowException if there is not enough space left in {@code dest}
+     */
+    public ByteBuffer write(ByteBuffer dest) {
+        if (dest.remaining() < size() * RECORD_SIZE) {
+            throw new BufferOverflowException();
+        }
+        final int size = size();
+        for (int i = 0; i < size; i++) {
+            dest.putInt(x(i))
+                    .putInt(y(i))
+                    .putInt(inkWidth(i))
+                    .putInt(inkHeight(i))
+                    .putFloat(s0(i))
+                    .putFloat(t0(i))
+                    .putFloat(s1(i))
+                    .putFloat(t1(i))
+                    .putInt(xOffset(i))
+                    .putInt(yOffset(i))
+                    .putInt(width(i))
+                    .putInt(height);
+        }
+        return dest;
+    }
+
+    /**
+     * Allocates new direct buffer with native byte order and writes all glyph records to it.
+     *
+     * @return the flipped buffer ready to be uploaded with single bulk copy
+     * @see #write(ByteBuffer)
+     */
+    public ByteBuffer toByteBuffer() {
+        final ByteBuffer result = ByteBuffer.allocateDirect(size() * RECORD_SIZE)
+                .order(ByteOrder.nativeOrder());
+        write(result);
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Creates table from glyph index.
+     *
+     * @param index            the glyph index
+     * @param defaultCharacter the default character
+     * @param height           the glyph height
+     * @param atlasWidth       the width of the atlas image
+     * @param atlasHeight      the height of the atlas image
+     * @return the new glyph table
+     */
+    static GlyphTable build(GlyphIndex index, char defaultCharacter, int height, int atlasWidth, int atlasHeight) {
+        index.decodeAll();
+        final int size = index.listSize();
+        final int[] codePoints = new int[size];
+        final int[] x = new int[size];
+        final int[] y = new int[size];
+        final short[] width = new short[size];
+        final short[] xOffset = new short[size];
+        final short[] yOffset = new short[size];
+        final short[] inkWidth = new short[size];
+        final short[] inkHeight = new short[size];
+        final float[] s0 = new float[size];
+        final float[] t0 = new float[size];
+        final float[] s1 = new float[size];
+        final float[] t1 = new float[size];
+        final float sk = atlasWidth > 0 ? 1f / atlasWidth : 0;
+        final float tk = atlasHeight > 0 ? 1f / atlasHeight : 0;
+        for (int i = 0; i < size; i++) {
+            final Glyph glyph = index.glyph(i);
+            final short w = index.width(i);
+            codePoints[i] = glyph.codePoint();
+            x[i] = glyph.x();
+            y[i] = glyph.y();
+            width[i] = w;
+            final short iw, ih;
+            if (glyph.hasInkBounds()) {
+                xOffset[i] = glyph.xOffset();
+                yOffset[i] = glyph.yOffset();
+                iw = glyph.inkWidth();
+                ih = glyph.inkHeight();
+            } else {
+                iw = w;
+                ih = (short) height;
+            }
+            inkWidth[i] = iw;
+            inkHeight[i] = ih;
+            s0[i] = glyph.x() * sk;
+            t0[i] = glyph.y() * tk;
+            s1[i] = (glyph.x() + iw) * sk;
+            t1[i] = (glyph.y() + ih) * tk;
+        }
+        return new GlyphTable(
+                index,
+                index.indexOf(defaultCharacter),
+                codePoints,
+                x,
+                y,
+                width,
+                xOffset,
+                yOffset,
+                inkWidth,
+                inkHeight,
+                height,
+                atlasWidth,
+                atlasHeight,
+                s0,
+                t0,
+                s1,
+                t1,
+                grids(index)
+        );
+    }
+
+    private static int[] grids(GlyphIndex index) {
+        final int[] result = new int[GRID_SIZE * index.gridCount()];
+        for (int g = 0; g < index.gridCount(); g++) {
+            final int r = index.grid(g);
+            final GlyphRange range = index.range(r);
+            final int p = GRID_SIZE * g;
+            result[p] = index.base(r);
+            result[p + 1] = range.start();
+            result[p + 2] = range.gridX();
+            result[p + 3] = range.gridY();
+            result[p + 4] = range.columns();
+            result[p + 5] = range.pitchX();
+            result[p + 6] = range.pitchY();
+            result[p + 7] = index.width(index.base(r));
+        }
+        return result;
+    }
+}
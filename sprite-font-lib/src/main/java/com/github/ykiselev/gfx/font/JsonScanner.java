@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull parser of json text. Characters are read through own buffer, integers are parsed directly from
+ * characters (no intermediate strings) and only object keys and string values are materialized.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+final class JsonScanner {
+
+    private static final int MAX_DEPTH = 64;
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[8192];
+
+    private int position;
+
+    private int limit;
+
+    /**
+     * For each open array or object - {@code true} if no elements were read yet.
+     */
+    private final boolean[] first = new boolean[MAX_DEPTH];
+
+    private int depth;
+
+    private final StringBuilder sb = new StringBuilder();
+
+    JsonScanner(Reader reader) {
+        this.reader = reader;
+    }
+
+    void beginObject() throws IOException {
+        begin('{');
+    }
+
+    void beginArray() throws IOException {
+        begin('[');
+    }
+
+    /**
+     * @return {@code true} if next value (after whitespace) is an object
+     */
+    boolean isObject() throws IOException {
+        return peek() == '{';
+    }
+
+    /**
+     * Checks if current array or object has more elements, consuming separating comma or closing bracket.
+     *
+     * @return {@code true} if there is next element
+     */
+    boolean hasNext() throws IOException {
+        final int c = peek();
+        if (c == ']' || c == '}') {
+            position++;
+            depth--;
+            return false;
+        }
+        if (first[depth - 1]) {
+            first[depth - 1] = false;
+            return true;
+        }
+        expect(',');
+        return true;
+    }
+
+    /**
+     * Reads object key and following colon.
+     */
+    String nextName() throws IOException {
+        final String result = nextString();
+        expect(':');
+        return result;
+    }
+
+    String nextString() throws IOException {
+        expect('"');
+        sb.setLength(0);
+        while (true) {
+            final int c = read();
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c == '\\') {
+                final int e = read();
+                switch (e) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        int v = 0;
+                        for (int i = 0; i < 4; i++) {
+                            final int d = Character.digit(read(), 16);
+                            if (d < 0) {
+                                throw new IOException("Malformed unicode escape!");
+                            }
+                            v = v << 4 | d;
+                        }
+                        sb.append((char) v);
+                        break;
+                    default:
+                        sb.append((char) e);
+                }
+            } else if (c < 0x20) {
+                throw new IOException("Unescaped control character in string!");
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    int nextInt() throws IOException {
+        int c = peek();
+        final boolean negative = c == '-';
+        if (negative) {
+            position++;
+            c = peekRaw();
+        }
+        if (c < '0' || c > '9') {
+            throw new IOException("Integer expected at '" + (char) c + "'");
+        }
+        long result = 0;
+        while (c >= '0' && c <= '9') {
+            position++;
+            result = result * 10 + (c - '0');
+            if (result > Integer.MAX_VALUE + 1L) {
+                throw new IOException("Integer is out of range!");
+            }
+            c = peekRaw();
+        }
+        if (c == '.' || c == 'e' || c == 'E') {
+            throw new IOException("Integer expected!");
+        }
+        result = negative ? -result : result;
+        if (result > Integer.MAX_VALUE) {
+            throw new IOException("Integer is out of range!");
+        }
+        return (int) result;
+    }
+
+    /**
+     * Skips next value of any type.
+     */
+    void skipValue() throws IOException {
+        final int c = peek();
+        if (c == '{' || c == '[') {
+            final boolean object = c == '{';
+            begin((char) c);
+            while (hasNext()) {
+                if (object) {
+                    nextName();
+                }
+                skipValue();
+            }
+        } else if (c == '"') {
+            nextString();
+        } else {
+            // number or literal
+            int v = peekRaw();
+            while (v != -1 && v != ',' && v != ']' && v != '}' && !Character.isWhitespace(v)) {
+                position++;
+                v = peekRaw();
+            }
+        }
+    }
+
+    /**
+     * Makes sure there is nothing but whitespace left.
+     */
+    void end() throws IOException {
+        if (peek() != -1) {
+            throw new IOException("Unexpected data after json value!");
+        }
+    }
+
+    private void begin(char bracket) throws IOException {
+        expect(bracket);
+        if (depth == MAX_DEPTH) {
+            throw new IOException("Json is nested too deep!");
+        }
+        first[depth++] = true;
+    }
+
+    private void expect(char expected) throws IOException {
+        final int c = peek();
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' but got " + (c == -1 ? "end of stream" : "'" + (char) c + "'"));
+        }
+        position++;
+    }
+
+    /**
+     * Skips whitespace and returns next character without consuming it.
+     */
+    private int peek() throws IOException {
+        while (true) {
+            final int c = peekRaw();
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                position++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private int peekRaw() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        final int c = peekRaw();
+        if (c == -1) {
+            throw new IOException("Unexpected end of stream!");
+        }
+        position++;
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        final int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
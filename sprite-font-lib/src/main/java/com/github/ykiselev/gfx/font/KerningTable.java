@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Kerning pairs of a font - adjustments (in pixels, usually negative) to add to the advance of the left code point
+ * when it's followed by the right one. Pairs are kept in open-addressing hash table with linear probing where both
+ * code points are packed into single {@code long} key, so lookup does not allocate and usually takes one or two
+ * array reads.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class KerningTable implements Serializable {
+
+    private static final long serialVersionUID = 4906813475210553021L;
+
+    public static final KerningTable EMPTY = new KerningTable(new int[0], new int[0], new short[0]);
+
+    private static final long FREE = -1L;
+
+    private final int[] lefts;
+
+    private final int[] rights;
+
+    private final short[] amounts;
+
+    private final transient long[] keys;
+
+    private final transient short[] values;
+
+    private final transient int mask;
+
+    /**
+     * @return the number of pairs
+     */
+    public int size() {
+        return lefts.length;
+    }
+
+    public boolean isEmpty() {
+        return lefts.length == 0;
+    }
+
+    /**
+     * @param index the pair index (0..size-1), pairs are in order they were passed to constructor
+     * @return the left code point of pair
+     */
+    public int left(int index) {
+        return lefts[index];
+    }
+
+    /**
+     * @param index the pair index
+     * @return the right code point of pair
+     */
+    public int right(int index) {
+        return rights[index];
+    }
+
+    /**
+     * @param index the pair index
+     * @return the adjustment of pair
+     */
+    public short amount(int index) {
+        return amounts[index];
+    }
+
+    /**
+     * @param lefts   the left code points
+     * @param rights  the right code points
+     * @param amounts the adjustments, pixels. If pair is repeated then the last value wins.
+     */
+    public KerningTable(int[] lefts, int[] rights, short[] amounts) {
+        if (lefts.length != rights.length || lefts.length != amounts.length) {
+            throw new IllegalArgumentException("Arrays should have the same length!");
+        }
+        this.lefts = lefts.clone();
+        this.rights = rights.clone();
+        this.amounts = amounts.clone();
+        // keep load factor at or below 0.5
+        final int capacity = Integer.highestOneBit(Math.max(2, lefts.length) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new short[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < lefts.length; i++) {
+            put(key(lefts[i], rights[i]), amounts[i]);
+        }
+    }
+
+    private void put(long key, short value) {
+        int slot = slot(key);
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * @param left  the left code point
+     * @param right the right code point
+     * @return the adjustment for pair or 0 if there is no such pair
+     */
+    public int get(int left, int right) {
+        final long key = key(left, right);
+        int slot = slot(key);
+        long k;
+        while ((k = keys[slot]) != FREE) {
+            if (k == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    private static long key(int left, int right) {
+        return (long) left << 32 | (right & 0xffffffffL);
+    }
+
+    private int slot(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return new KerningTable(lefts, rights, amounts);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KerningTable that = (KerningTable) o;
+        return Arrays.equals(lefts, that.lefts) &&
+                Arrays.equals(rights, that.rights) &&
+                Arrays.equals(amounts, that.amounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(lefts) + Arrays.hashCode(rights)) + Arrays.hashCode(amounts);
+    }
+
+    @Override
+    public String toString() {
+        return "KerningTable{" +
+                "size=" + lefts.length +
+                '}';
+    }
+}
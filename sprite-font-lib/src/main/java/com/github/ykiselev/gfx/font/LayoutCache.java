@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of laid out text blocks keyed by (font, text, maximum width). Meant for strings which are drawn
+ * frame after frame (labels, menu items): cached block already has line breaks, size and glyph quads, so drawing it
+ * is a single copy into {@link TextBatch}. Fonts are identified by {@link SpriteFont#fingerprint()}.
+ * <p>
+ * Note: this class is not thread safe.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class LayoutCache {
+
+    private static final int DEFAULT_TAB_SIZE = 4;
+
+    private final int maxEntries;
+
+    private final int tabSize;
+
+    private final TextLayout layout;
+
+    private final Map<Key, TextBlock> blocks;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the ratio of hits to all requests (zero if there were no requests)
+     */
+    public double hitRate() {
+        final long total = hits + misses;
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    /**
+     * @return the number of cached blocks
+     */
+    public int size() {
+        return blocks.size();
+    }
+
+    public LayoutCache(int maxEntries) {
+        this(maxEntries, DEFAULT_TAB_SIZE);
+    }
+
+    /**
+     * @param maxEntries the maximum number of cached blocks
+     * @param tabSize    the distance between tab stops measured in space advances
+     */
+    public LayoutCache(int maxEntries, int tabSize) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size should be positive!");
+        }
+        this.maxEntries = maxEntries;
+        this.tabSize = tabSize;
+        this.layout = new TextLayout(tabSize);
+        this.blocks = new LinkedHashMap<Key, TextBlock>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, TextBlock> eldest) {
+                if (size() > LayoutCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns cached block or lays out text and caches the result.
+     *
+     * @param font     the font
+     * @param text     the text
+     * @param maxWidth the maximum line width, pixels. Zero or negative value disables wrapping.
+     * @return the text block
+     */
+    public TextBlock get(SpriteFont font, String text, int maxWidth) {
+        final Key key = new Key(font.fingerprint(), text, Math.max(0, maxWidth));
+        TextBlock result = blocks.get(key);
+        if (result != null) {
+            hits++;
+            return result;
+        }
+        misses++;
+        layout.layout(font, text, maxWidth);
+        result = TextBlock.build(font, text, layout, Math.max(1, tabSize * font.advance(' ')));
+        blocks.put(key, result);
+        return result;
+    }
+
+    /**
+     * Removes all blocks, counters are not reset.
+     */
+    public void clear() {
+        blocks.clear();
+    }
+
+    private static final class Key {
+
+        private final long font;
+
+        private final String text;
+
+        private final int maxWidth;
+
+        Key(long font, String text, int maxWidth) {
+            this.font = font;
+            this.text = text;
+            this.maxWidth = maxWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return font == key.font &&
+                    maxWidth == key.maxWidth &&
+                    text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Long.hashCode(font) + text.hashCode()) + maxWidth;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.util.Arrays;
+
+/**
+ * Prefix advances of a single line of text for hit-testing and truncation. {@link #measure(SpriteFont, CharSequence,
+ * int, int)} walks the line once and stores pen position at each code point boundary, after that queries are binary
+ * searches instead of re-measuring substrings. Position of boundary is the width of text before it as returned by
+ * {@link SpriteFont#width(CharSequence, int, int)} (advances plus kerning of adjacent code points inside the prefix),
+ * so positions do not decrease unless font has kerning adjustments exceeding glyph advances. Arrays are reused by
+ * subsequent calls and grow only when line has more code points than ever before.
+ * <p>
+ * Text is treated as a single line (e.g. one line of {@link TextLayout}), {@code '\r'} is ignored, surrogate pairs are
+ * never split.
+ * <p>
+ * Note: this class is not thread safe.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class LineMeasure {
+
+    private static final int ELLIPSIS = '\u2026';
+
+    /**
+     * Char index of each boundary.
+     */
+    private int[] offsets = new int[16];
+
+    /**
+     * Pen position at each boundary.
+     */
+    private int[] positions = new int[16];
+
+    /**
+     * Code point following each boundary (-1 for the last one).
+     */
+    private int[] codePoints = new int[16];
+
+    private int count;
+
+    private KerningTable kerning = KerningTable.EMPTY;
+
+    private String ellipsis = "...";
+
+    private int ellipsisWidth;
+
+    /**
+     * @return the number of code points in line
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the width of line, pixels
+     */
+    public int width() {
+        return positions[count];
+    }
+
+    /**
+     * @param boundary the boundary index (0 - before the first code point, {@link #count()} - after the last one)
+     * @return the char index of boundary
+     */
+    public int offset(int boundary) {
+        checkBoundary(boundary);
+        return offsets[boundary];
+    }
+
+    /**
+     * @param boundary the boundary index (0 - before the first code point, {@link #count()} - after the last one)
+     * @return the x coordinate of boundary relative to the start of line, pixels
+     */
+    public int position(int boundary) {
+        checkBoundary(boundary);
+        return positions[boundary];
+    }
+
+    /**
+     * @return the ellipsis used by {@link #ellipsize(int)}: {@code "\u2026"} if font has glyph for it or three dots
+     * otherwise
+     */
+    public String ellipsis() {
+        return ellipsis;
+    }
+
+    /**
+     * @return the width of {@link #ellipsis()}, pixels
+     */
+    public int ellipsisWidth() {
+        return ellipsisWidth;
+    }
+
+    /**
+     * Measures whole text.
+     *
+     * @see #measure(SpriteFont, CharSequence, int, int)
+     */
+    public int measure(SpriteFont font, CharSequence text) {
+        return measure(font, text, 0, text.length());
+    }
+
+    /**
+     * Calculates prefix advances of line. Previous results are discarded.
+     *
+     * @param font the font to use
+     * @param text the text
+     * @param from the index of the first character (inclusive)
+     * @param to   the index of the last character (exclusive)
+     * @return the width of line, pixels
+     */
+    public int measure(SpriteFont font, CharSequence text, int from, int to) {
+        final GlyphIndex index = font.index();
+        kerning = font.kerning();
+        ellipsis = index.indexOf(ELLIPSIS) >= 0 ? "\u2026" : "...";
+        ellipsisWidth = font.width(ellipsis);
+        // fixed pitch fonts without kerning are measured without glyph lookups, see SpriteFont.width()
+        final int fixed = font.characterWidth() > 0 && kerning.isEmpty()
+                ? font.characterWidth() + font.glyphXBorder() : -1;
+        ensureCapacity(to - from + 1);
+        count = 0;
+        int width = 0, prev = -1;
+        for (int i = from; i < to; ) {
+            final int ch = CodePoints.at(text, i, to);
+            final int n = Character.charCount(ch);
+            if (ch != '\r') {
+                offsets[count] = i;
+                positions[count] = width;
+                codePoints[count] = ch;
+                count++;
+                width += fixed >= 0 ? fixed : font.advance(index, ch) + kerning.get(prev, ch);
+                prev = ch;
+            }
+            i += n;
+        }
+        offsets[count] = to;
+        positions[count] = width;
+        codePoints[count] = -1;
+        return width;
+    }
+
+    /**
+     * Finds caret position nearest to the point.
+     *
+     * @param x the x coordinate relative to the start of line, pixels
+     * @return the char index of the nearest code point boundary
+     */
+    public int hitTest(int x) {
+        final int b = floor(x);
+        if (b < 0) {
+            return offsets[0];
+        }
+        if (b < count && x - positions[b] > positions[b + 1] - x) {
+            return offsets[b + 1];
+        }
+        return offsets[b];
+    }
+
+    /**
+     * Finds code point under the point.
+     *
+     * @param x the x coordinate relative to the start of line, pixels
+     * @return the char index of code point covering {@code x} or -1 if {@code x} is outside of line
+     */
+    public int characterAt(int x) {
+        if (x >= positions[count]) {
+            return -1;
+        }
+        final int b = floor(x);
+        return b >= 0 ? offsets[b] : -1;
+    }
+
+    /**
+     * Finds the longest prefix which fits into specified width.
+     *
+     * @param maxWidth the available width, pixels
+     * @return the char index past the last code point of prefix
+     */
+    public int fit(int maxWidth) {
+        final int b = floor(maxWidth);
+        return offsets[Math.max(b, 0)];
+    }
+
+    /**
+     * Finds the longest prefix which fits into specified width being followed by {@link #ellipsis()}. Kerning between
+     * the last code point of prefix and ellipsis is taken into account, whitespace before ellipsis is dropped. Line
+     * which fits as a whole is not truncated.
+     *
+     * @param maxWidth the available width, pixels
+     * @return the char index past the last code point of prefix ({@link #offset(int) offset(count())} if line fits
+     * without truncation, {@code offset(0)} if nothing but ellipsis fits or not even ellipsis)
+     */
+    public int ellipsize(int maxWidth) {
+        if (positions[count] <= maxWidth) {
+            return offsets[count];
+        }
+        final int first = ellipsis.charAt(0);
+        int b = floor(maxWidth - ellipsisWidth);
+        while (b > 0 && (Character.isWhitespace(codePoints[b - 1])
+                || positions[b] + kerning.get(codePoints[b - 1], first) + ellipsisWidth > maxWidth)) {
+            b--;
+        }
+        return offsets[Math.max(b, 0)];
+    }
+
+    /**
+     * @return the index of the last boundary with position not greater than {@code x} or -1 if there is no such one
+     */
+    private int floor(int x) {
+        int lo = 0, hi = count;
+        if (positions[0] > x) {
+            return -1;
+        }
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (positions[mid] <= x) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private void ensureCapacity(int boundaries) {
+        if (offsets.length < boundaries) {
+            final int capacity = Math.max(boundaries, 2 * offsets.length);
+            offsets = Arrays.copyOf(offsets, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            codePoints = Arrays.copyOf(codePoints, capacity);
+        }
+    }
+
+    private void checkBoundary(int boundary) {
+        if (boundary < 0 || boundary > count) {
+            throw new IndexOutOfBoundsException("Boundary " + boundary + " is out of range 0-" + count);
+        }
+    }
+}
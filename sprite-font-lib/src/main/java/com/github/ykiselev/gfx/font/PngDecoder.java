@@ -0,0 +1,332 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decoder for non-interlaced 8-bit grayscale png images (the kind of images produced by sprite font builder). Pixels
+ * are inflated and unfiltered row by row directly into destination buffer, no AWT/ImageIO classes are used.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class PngDecoder {
+
+    private static final int IHDR = SpriteFontFormat.tag("IHDR");
+
+    private static final int IDAT = SpriteFontFormat.tag("IDAT");
+
+    private static final int IEND = SpriteFontFormat.tag("IEND");
+
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+
+    /**
+     * Offset of IHDR chunk data (signature + chunk length + chunk type).
+     */
+    private static final int IHDR_DATA = SIGNATURE.length + 8;
+
+    private PngDecoder() {
+    }
+
+    /**
+     * @param png the png image, position is not changed
+     * @return the image width
+     */
+    public static int width(ByteBuffer png) {
+        return header(png, 0);
+    }
+
+    /**
+     * @param png the png image, position is not changed
+     * @return the image height
+     */
+    public static int height(ByteBuffer png) {
+        return header(png, 4);
+    }
+
+    private static int header(ByteBuffer png, int offset) {
+        final int p = png.position();
+        if (png.remaining() < IHDR_DATA + 8) {
+            throw new IllegalArgumentException("Not a png image!");
+        }
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (png.get(p + i) != SIGNATURE[i]) {
+                throw new IllegalArgumentException("Not a png image!");
+            }
+        }
+        return png.duplicate()
+                .order(ByteOrder.BIG_ENDIAN)
+                .getInt(p + IHDR_DATA + offset);
+    }
+
+    /**
+     * Calculates row stride for specified row alignment.
+     *
+     * @param width     the image width
+     * @param alignment the row alignment (1, 2, 4, 8...)
+     * @return the stride, bytes
+     */
+    public static int stride(int width, int alignment) {
+        if (alignment < 1 || Integer.bitCount(alignment) != 1) {
+            throw new IllegalArgumentException("Alignment should be positive power of two: " + alignment);
+        }
+        if (width < 0 || width > Integer.MAX_VALUE - alignment + 1) {
+            throw new IllegalArgumentException("Bad width: " + width);
+        }
+        return (width + alignment - 1) & -alignment;
+    }
+
+    /**
+     * Checks image dimensions.
+     *
+     * @param width  the image width
+     * @param height the image height
+     * @return the number of pixels
+     * @throws IllegalArgumentException if dimensions are not positive or image has more than {@code 2^31-1} pixels
+     */
+    static int area(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Bad image size: " + width + "x" + height);
+        }
+        final long result = (long) width * height;
+        if (result > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Image is too large: " + width + "x" + height);
+        }
+        return (int) result;
+    }
+
+    /**
+     * Decodes png image into new direct buffer with native byte order. Rows are tightly packed (one byte per pixel).
+     *
+     * @param png the png image, position is not changed
+     * @return the buffer with decoded pixels (position is zero, limit is width * height)
+     * @throws IOException if image is malformed or unsupported
+     */
+    public static ByteBuffer decode(ByteBuffer png) throws IOException {
+        final int area;
+        try {
+            area = area(width(png), height(png));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed png image!", e);
+        }
+        final ByteBuffer result = ByteBuffer.allocateDirect(area)
+                .order(ByteOrder.nativeOrder());
+        decode(png, result, 1);
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Decodes png image into the destination buffer starting at its current position. Each row starts at
+     * {@link #stride(int, int)} bytes from the previous one, padding bytes at the end of the rows are skipped (not
+     * written). Destination position is advanced by {@code stride * height}.
+     *
+     * @param png       the png image, position is not changed
+     * @param dest      the destination buffer
+     * @param alignment the row alignment (1, 2, 4 or 8 are typical values)
+     * @throws IOException if image is malformed or unsupported
+     */
+    public static void decode(ByteBuffer png, ByteBuffer dest, int alignment) throws IOException {
+        final ByteBuffer src = png.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            width(src);
+            src.position(src.position() + SIGNATURE.length);
+            if (src.getInt() != 13 || src.getInt() != IHDR) {
+                throw new IOException("Missing IHDR chunk!");
+            }
+            final int width = src.getInt();
+            final int height = src.getInt();
+            final int bitDepth = src.get();
+            final int colorType = src.get();
+            final int compression = src.get();
+            final int filter = src.get();
+            final int interlace = src.get();
+            src.getInt(); // crc
+            if (bitDepth != 8 || colorType != 0) {
+                throw new IOException("Only 8-bit grayscale images are supported!");
+            }
+            if (compression != 0 || filter != 0 || interlace != 0) {
+                throw new IOException("Unsupported compression, filter or interlace method!");
+            }
+            area(width, height);
+            final int stride = stride(width, alignment);
+            if (dest.remaining() < (long) stride * height) {
+                throw new BufferOverflowException();
+            }
+            new Rows(src, dest, width, height, stride).decode();
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Malformed png image!", e);
+        }
+    }
+
+    /**
+     * Streams IDAT chunks through inflater and unfilters rows.
+     */
+    private static final class Rows {
+
+        private final ByteBuffer src;
+
+        private final ByteBuffer dest;
+
+        private final int width;
+
+        private final int height;
+
+        private final int stride;
+
+        private final Inflater inflater = new Inflater();
+
+        private byte[] input = new byte[0];
+
+        private int chunkLeft;
+
+        Rows(ByteBuffer src, ByteBuffer dest, int width, int height, int stride) {
+            this.src = src;
+            this.dest = dest;
+            this.width = width;
+            this.height = height;
+            this.stride = stride;
+        }
+
+        void decode() throws IOException {
+            // filter type byte + pixels
+            byte[] prev = new byte[width + 1];
+            byte[] row = new byte[width + 1];
+            final int start = dest.position();
+            try {
+                for (int y = 0; y < height; y++) {
+                    inflate(row);
+                    unfilter(row, prev);
+                    dest.position(start + y * stride);
+                    dest.put(row, 1, width);
+                    final byte[] t = prev;
+                    prev = row;
+                    row = t;
+                }
+            } finally {
+                inflater.end();
+            }
+            dest.position(start + stride * height);
+        }
+
+        private void inflate(byte[] row) throws IOException {
+            int offset = 0;
+            try {
+                while (offset < row.length) {
+                    final int n = inflater.inflate(row, offset, row.length - offset);
+                    offset += n;
+                    if (n == 0) {
+                        if (inflater.finished() || inflater.needsDictionary()) {
+                            throw new IOException("Not enough image data!");
+                        }
+                        if (inflater.needsInput()) {
+                            feed();
+                        }
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Malformed image data!", e);
+            }
+        }
+
+        /**
+         * Passes next portion of IDAT data to inflater.
+         */
+        private void feed() throws IOException {
+            while (chunkLeft == 0) {
+                final int length = src.getInt();
+                final int type = src.getInt();
+                if (type == IDAT) {
+                    chunkLeft = length;
+                } else if (type == IEND) {
+                    throw new IOException("Not enough image data!");
+                } else {
+                    src.position(src.position() + length + 4);
+                }
+            }
+            final int n = Math.min(chunkLeft, 64 * 1024);
+            if (src.hasArray()) {
+                inflater.setInput(src.array(), src.arrayOffset() + src.position(), n);
+                src.position(src.position() + n);
+            } else {
+                if (input.length < n) {
+                    input = new byte[n];
+                }
+                src.get(input, 0, n);
+                inflater.setInput(input, 0, n);
+            }
+            chunkLeft -= n;
+            if (chunkLeft == 0) {
+                src.getInt(); // crc
+            }
+        }
+
+        private static void unfilter(byte[] row, byte[] prev) throws IOException {
+            final int length = row.length;
+            switch (row[0]) {
+                case 0:
+                    break;
+
+                case 1:
+                    for (int i = 2; i < length; i++) {
+                        row[i] += row[i - 1];
+                    }
+                    break;
+
+                case 2:
+                    for (int i = 1; i < length; i++) {
+                        row[i] += prev[i];
+                    }
+                    break;
+
+                case 3:
+                    row[1] += (prev[1] & 0xff) >>> 1;
+                    for (int i = 2; i < length; i++) {
+                        row[i] += ((row[i - 1] & 0xff) + (prev[i] & 0xff)) >>> 1;
+                    }
+                    break;
+
+                case 4:
+                    row[1] += prev[1];
+                    for (int i = 2; i < length; i++) {
+                        row[i] += paeth(row[i - 1] & 0xff, prev[i] & 0xff, prev[i - 1] & 0xff);
+                    }
+                    break;
+
+                default:
+                    throw new IOException("Unknown filter type: " + row[0]);
+            }
+        }
+
+        private static int paeth(int a, int b, int c) {
+            final int p = a + b - c;
+            final int pa = Math.abs(p - a);
+            final int pb = Math.abs(p - b);
+            final int pc = Math.abs(p - c);
+            if (pa <= pb && pa <= pc) {
+                return a;
+            }
+            return pb <= pc ? b : c;
+        }
+    }
+}
@@ -16,9 +16,15 @@
 
 package com.github.ykiselev.gfx.font;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * @author Yuriy Kiselev (uze@yandex.ru).
@@ -40,9 +46,25 @@ public final class SpriteFont implements Serializable {
     private final GlyphRange[] glyphs;
 
     /**
-     * Png image bytes
+     * Encoded image bytes. May be {@code null} if font was loaded lazily, in that case it's copied from
+     * {@link #imageBuffer} on first access.
+     */
+    private volatile byte[] image;
+
+    /**
+     * Encoded image of lazily loaded font (read-only slice of mapped file).
      */
-    private final byte[] image;
+    private transient ByteBuffer imageBuffer;
+
+    /**
+     * Image codec, {@code null} in fonts serialized before codecs were introduced (those are always png).
+     */
+    private final AtlasCodec codec;
+
+    /**
+     * Kerning pairs, {@code null} in fonts serialized before kerning was introduced.
+     */
+    private final KerningTable kerning;
 
     // Left and right glyph border size
     private final int glyphXBorder;
@@ -50,6 +72,40 @@ public final class SpriteFont implements Serializable {
     // Top and bottom border size
     private final int glyphYBorder;
 
+    /**
+     * Character to glyph lookup index, built on first access.
+     */
+    private transient volatile GlyphIndex index;
+
+    private transient Glyph defaultGlyph;
+
+    /**
+     * Packed glyphs, built on first access.
+     */
+    private transient volatile GlyphTable glyphTable;
+
+    /**
+     * Decoded image, built on first access.
+     */
+    private transient volatile ByteBuffer pixels;
+
+    /**
+     * Content fingerprint, read from font file or calculated on first access.
+     */
+    private transient volatile Long fingerprint;
+
+    /**
+     * Each lazily built field has its own lock, so building one of them (e.g. decoding pixels) does not block
+     * building of others (see {@link SpriteFontLoader}).
+     */
+    private final transient Object imageLock = new Object();
+
+    private final transient Object indexLock = new Object();
+
+    private final transient Object tableLock = new Object();
+
+    private final transient Object pixelsLock = new Object();
+
     public int fontHeight() {
         return fontHeight;
     }
@@ -66,8 +122,51 @@ public final class SpriteFont implements Serializable {
         return glyphs;
     }
 
+    /**
+     * Returns image bytes encoded with {@link #codec()}. Note that for lazily loaded fonts the image is copied from
+     * mapped file on first call, use {@link #imageBuffer()} to access image without copying.
+     *
+     * @return the encoded image bytes
+     */
     public byte[] image() {
-        return image;
+        byte[] result = image;
+        if (result == null) {
+            synchronized (imageLock) {
+                result = image;
+                if (result == null) {
+                    final ByteBuffer buffer = imageBuffer.duplicate();
+                    result = new byte[buffer.remaining()];
+                    buffer.get(result);
+                    image = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the read-only view of encoded image bytes, this method never copies image.
+     */
+    public ByteBuffer imageBuffer() {
+        final byte[] bytes = image;
+        if (bytes != null) {
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+        return imageBuffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the codec used to encode image
+     */
+    public AtlasCodec codec() {
+        return codec != null ? codec : AtlasCodec.PNG;
+    }
+
+    /**
+     * @return the kerning pairs of this font (empty table if font has no kerning)
+     */
+    public KerningTable kerning() {
+        return kerning != null ? kerning : KerningTable.EMPTY;
     }
 
     public int glyphXBorder() {
@@ -78,12 +177,277 @@ public final class SpriteFont implements Serializable {
         return glyphYBorder;
     }
 
+    /**
+     * Returns decoded atlas image - one byte per pixel, rows are tightly packed, row length is
+     * {@link GlyphTable#atlasWidth()}. Image is decoded on first call and cached, subsequent calls only return new
+     * view of the cached buffer. Images of lazily loaded fonts encoded with {@link AtlasCodec#RAW} are returned as
+     * slices of mapped file without any copying.
+     *
+     * @return the read-only view of the direct buffer with decoded pixels
+     * @throws UncheckedIOException if image can not be decoded
+     */
+    public ByteBuffer pixels() {
+        ByteBuffer result = pixels;
+        if (result == null) {
+            synchronized (pixelsLock) {
+                result = pixels;
+                if (result == null) {
+                    try {
+                        result = codec().decode(imageBuffer());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    pixels = result;
+                }
+            }
+        }
+        return result.asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies decoded atlas image (see {@link #pixels()}) to the destination buffer starting at its current position.
+     * Each row starts at {@link PngDecoder#stride(int, int)} bytes from the previous one, padding bytes are skipped.
+     * Destination position is advanced by {@code stride * height}.
+     *
+     * @param dest      the destination buffer
+     * @param alignment the row alignment
+     * @throws UncheckedIOException if image can not be decoded
+     */
+    public void pixels(ByteBuffer dest, int alignment) {
+        final ByteBuffer src = pixels();
+        final int width = codec().width(imageBuffer());
+        final int height = codec().height(imageBuffer());
+        final int stride = PngDecoder.stride(width, alignment);
+        final int start = dest.position();
+        if (stride == width) {
+            dest.put(src);
+            return;
+        }
+        for (int y = 0; y < height; y++) {
+            src.limit((y + 1) * width);
+            dest.position(start + y * stride);
+            dest.put(src);
+        }
+        dest.position(start + stride * height);
+    }
+
+    /**
+     * Looks up glyph for the specified code point. First call builds lookup index (this is done only once), subsequent
+     * calls are constant-time and do not allocate (except for glyphs of grid ranges which are created on each call,
+     * use {@link #glyphTable()} to avoid that). Ranges of lazily loaded fonts are decoded when one of their code
+     * points is looked up for the first time.
+     *
+     * @param codePoint the code point (any {@code char} from Basic Multilingual Plane may be passed as is)
+     * @return the glyph for {@code codePoint} or the glyph of {@link #defaultCharacter()} if font has no glyph for
+     * {@code codePoint}. May return {@code null} if there is no glyph for default character either.
+     */
+    public Glyph glyph(int codePoint) {
+        final GlyphIndex idx = index();
+        final int i = idx.indexOf(codePoint);
+        return i >= 0 ? idx.glyph(i) : defaultGlyph;
+    }
+
+    /**
+     * @return the glyph of {@link #defaultCharacter()} or {@code null} if there is no such glyph in this font.
+     */
+    public Glyph defaultGlyph() {
+        index();
+        return defaultGlyph;
+    }
+
+    GlyphIndex index() {
+        GlyphIndex result = index;
+        if (result == null) {
+            synchronized (indexLock) {
+                result = index;
+                if (result == null) {
+                    result = GlyphIndex.build(glyphs, characterWidth);
+                    final int i = result.indexOf(defaultCharacter);
+                    defaultGlyph = i >= 0 ? result.glyph(i) : null;
+                    // volatile write publishes defaultGlyph as well
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns packed form of this font's glyphs with texture coordinates normalized to atlas size. Table is built on
+     * first call.
+     *
+     * @return the glyph table
+     */
+    public GlyphTable glyphTable() {
+        GlyphTable result = glyphTable;
+        if (result == null) {
+            final GlyphIndex idx = index();
+            synchronized (tableLock) {
+                result = glyphTable;
+                if (result == null) {
+                    result = GlyphTable.build(
+                            idx,
+                            defaultCharacter,
+                            fontHeight,
+                            codec().width(imageBuffer()),
+                            codec().height(imageBuffer())
+                    );
+                    glyphTable = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the line height (fontHeight + glyphYBorder)
+     */
+    public int lineHeight() {
+        return fontHeight + glyphYBorder;
+    }
+
+    /**
+     * Calculates horizontal advance of the code point which is the glyph width plus glyphXBorder.
+     *
+     * @param codePoint the code point
+     * @return the advance or 0 if there is neither glyph for {@code codePoint} nor glyph for default character
+     */
+    public int advance(int codePoint) {
+        return advance(index(), codePoint);
+    }
+
+    /**
+     * @param left  the left code point
+     * @param right the right code point
+     * @return the kerning adjustment for pair of code points (see {@link #kerning()})
+     */
+    public int kerning(int left, int right) {
+        return kerning().get(left, right);
+    }
+
+    int advance(GlyphIndex idx, int codePoint) {
+        int i = idx.indexOf(codePoint);
+        if (i < 0) {
+            i = idx.indexOf(defaultCharacter);
+            if (i < 0) {
+                return 0;
+            }
+        }
+        return idx.width(i) + glyphXBorder;
+    }
+
+    /**
+     * @param text the text to measure
+     * @return the width of the widest line of text
+     * @see #width(CharSequence, int, int)
+     */
+    public int width(CharSequence text) {
+        return width(text, 0, text.length());
+    }
+
+    /**
+     * Calculates width of the text. Width of each line is the sum of its code points advances
+     * ({@link #advance(int)}) and kerning adjustments of adjacent code points ({@link #kerning(int, int)}), surrogate
+     * pairs are treated as single code point. Lines are separated by {@code '\n'}, {@code '\r'} is ignored. For fixed
+     * pitch fonts without kerning each code point takes characterWidth + glyphXBorder pixels and no glyph lookups are
+     * made. This method does not allocate.
+     *
+     * @param text the text to measure
+     * @param from the index of the first character (inclusive)
+     * @param to   the index of the last character (exclusive)
+     * @return the width of the widest line of text
+     */
+    public int width(CharSequence text, int from, int to) {
+        final KerningTable kerning = kerning();
+        if (characterWidth > 0 && kerning.isEmpty()) {
+            final int advance = characterWidth + glyphXBorder;
+            int result = 0, count = 0;
+            for (int i = from; i < to; ) {
+                final int ch = CodePoints.at(text, i, to);
+                i += Character.charCount(ch);
+                if (ch == '\n') {
+                    result = Math.max(result, count * advance);
+                    count = 0;
+                } else if (ch != '\r') {
+                    count++;
+                }
+            }
+            return Math.max(result, count * advance);
+        }
+        final GlyphIndex idx = index();
+        int result = 0, width = 0, prev = -1;
+        for (int i = from; i < to; ) {
+            final int ch = CodePoints.at(text, i, to);
+            i += Character.charCount(ch);
+            if (ch == '\n') {
+                result = Math.max(result, width);
+                width = 0;
+                prev = -1;
+            } else if (ch != '\r') {
+                width += advance(idx, ch) + kerning.get(prev, ch);
+                prev = ch;
+            }
+        }
+        return Math.max(result, width);
+    }
+
+    /**
+     * @param text the text to measure
+     * @return the height of the text
+     * @see #height(CharSequence, int, int)
+     */
+    public int height(CharSequence text) {
+        return height(text, 0, text.length());
+    }
+
+    /**
+     * Calculates height of the text as number of lines multiplied by {@link #lineHeight()}. Text always has at least
+     * one line, each {@code '\n'} starts new one.
+     *
+     * @param text the text to measure
+     * @param from the index of the first character (inclusive)
+     * @param to   the index of the last character (exclusive)
+     * @return the height of the text
+     */
+    public int height(CharSequence text, int from, int to) {
+        int lines = 1;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines * lineHeight();
+    }
+
     public SpriteFont(int fontHeight, char defaultCharacter, int characterWidth, GlyphRange[] glyphs, byte[] image, int glyphXBorder, int glyphYBorder) {
+        this(fontHeight, defaultCharacter, characterWidth, glyphs, image, AtlasCodec.PNG, glyphXBorder, glyphYBorder);
+    }
+
+    public SpriteFont(int fontHeight, char defaultCharacter, int characterWidth, GlyphRange[] glyphs, byte[] image, AtlasCodec codec, int glyphXBorder, int glyphYBorder) {
+        this(fontHeight, defaultCharacter, characterWidth, glyphs, image, codec, KerningTable.EMPTY, glyphXBorder, glyphYBorder);
+    }
+
+    public SpriteFont(int fontHeight, char defaultCharacter, int characterWidth, GlyphRange[] glyphs, byte[] image, AtlasCodec codec, KerningTable kerning, int glyphXBorder, int glyphYBorder) {
+        this(fontHeight, defaultCharacter, characterWidth, glyphs, requireNonNull(image), null, codec, kerning, glyphXBorder, glyphYBorder);
+    }
+
+    /**
+     * Creates lazily loaded font with image stored in buffer.
+     */
+    SpriteFont(int fontHeight, char defaultCharacter, int characterWidth, GlyphRange[] glyphs, ByteBuffer image, AtlasCodec codec, KerningTable kerning, int glyphXBorder, int glyphYBorder) {
+        this(fontHeight, defaultCharacter, characterWidth, glyphs, null, image.asReadOnlyBuffer(), codec, kerning, glyphXBorder, glyphYBorder);
+    }
+
+    private SpriteFont(int fontHeight, char defaultCharacter, int characterWidth, GlyphRange[] glyphs, byte[] image,
+                       ByteBuffer imageBuffer, AtlasCodec codec, KerningTable kerning, int glyphXBorder, int glyphYBorder) {
         this.fontHeight = fontHeight;
         this.defaultCharacter = defaultCharacter;
         this.characterWidth = characterWidth;
         this.glyphs = glyphs;
         this.image = image;
+        this.imageBuffer = imageBuffer;
+        this.codec = requireNonNull(codec);
+        this.kerning = requireNonNull(kerning);
         this.glyphXBorder = glyphXBorder;
         this.glyphYBorder = glyphYBorder;
     }
@@ -94,27 +458,108 @@ public final class SpriteFont implements Serializable {
                 "fontHeight=" + fontHeight +
                 ", defaultCharacter=" + defaultCharacter +
                 ", characterWidth=" + characterWidth +
+                ", codec=" + codec() +
                 ", glyphXBorder=" + glyphXBorder +
                 ", glyphYBorder=" + glyphYBorder +
                 '}';
     }
 
+    /**
+     * Returns 64-bit hash of font content: metrics, glyphs, kerning pairs, codec and encoded image. Fingerprint is
+     * stored in font files by builder, so for such fonts this method does not touch glyphs or image at all, for other
+     * fonts it is calculated on first call. Equal fonts have equal fingerprints, so fingerprint may be used as compact
+     * key for caches of fonts or resources built from them (textures, glyph buffers).
+     *
+     * @return the fingerprint
+     */
+    public long fingerprint() {
+        Long result = fingerprint;
+        if (result == null) {
+            final Fingerprint fp = new Fingerprint()
+                    .add(fontHeight)
+                    .add(defaultCharacter)
+                    .add(characterWidth)
+                    .add(glyphXBorder)
+                    .add(glyphYBorder)
+                    .add(codec().id())
+                    .add(glyphs.length);
+            for (GlyphRange range : glyphs) {
+                fp.add(range.size());
+                if (range.isGrid()) {
+                    // grids are hashed by their parameters, glyphs are not materialized
+                    fp.add((long) range.start() << 32 | range.columns() & 0xffffffffL)
+                            .add((long) range.gridX() << 32 | range.gridY() & 0xffffffffL)
+                            .add((long) range.pitchX() << 32 | range.pitchY() & 0xffffffffL)
+                            .add(range.advance());
+                    continue;
+                }
+                for (Glyph glyph : range.glyphs()) {
+                    fp.add((long) glyph.codePoint() << 32 | glyph.x() & 0xffffffffL)
+                            .add((long) glyph.y() << 32 | (glyph.width() & 0xffffL) << 16 | glyph.xOffset() & 0xffffL)
+                            .add((long) glyph.yOffset() << 32 | (glyph.inkWidth() & 0xffffL) << 16 | glyph.inkHeight() & 0xffffL);
+                }
+            }
+            final KerningTable kt = kerning();
+            fp.add(kt.size());
+            for (int i = 0; i < kt.size(); i++) {
+                fp.add((long) kt.left(i) << 32 | kt.right(i) & 0xffffffffL)
+                        .add(kt.amount(i));
+            }
+            result = fp.add(imageBuffer()).value();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Sets fingerprint read from font file.
+     */
+    void fingerprint(long value) {
+        fingerprint = value;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         SpriteFont that = (SpriteFont) o;
+        if (fingerprint() != that.fingerprint()) return false;
         return fontHeight == that.fontHeight &&
                 defaultCharacter == that.defaultCharacter &&
                 characterWidth == that.characterWidth &&
                 glyphXBorder == that.glyphXBorder &&
                 glyphYBorder == that.glyphYBorder &&
                 Arrays.equals(glyphs, that.glyphs) &&
-                Arrays.equals(image, that.image);
+                codec() == that.codec() &&
+                kerning().equals(that.kerning()) &&
+                imageBuffer().equals(that.imageBuffer());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(fontHeight, defaultCharacter, characterWidth, glyphs, image, glyphXBorder, glyphYBorder);
+        return Long.hashCode(fingerprint());
+    }
+
+    private void writeObject(ObjectOutputStream oos) throws IOException {
+        image();
+        oos.defaultWriteObject();
+    }
+
+    /**
+     * Replaces deserialized instance with the one created by constructor, so transient locks are initialized.
+     */
+    private Object readResolve() throws ObjectStreamException {
+        return new SpriteFont(
+                fontHeight,
+                defaultCharacter,
+                characterWidth,
+                glyphs,
+                image,
+                null,
+                codec(),
+                kerning(),
+                glyphXBorder,
+                glyphYBorder
+        );
     }
 }
\ No newline at end of file
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Thread safe cache of loaded sprite fonts, meant to be shared by all subsystems of the application so each font file
+ * is read (and its image decoded) only once.
+ * <p>
+ * Each entry is weighed by approximate size of font metadata plus size of encoded and decoded image (see
+ * {@link #weigh(SpriteFont)}). When total weight exceeds the budget least recently used entries are evicted (the most
+ * recently loaded font is always kept, even if it alone is heavier than the budget). Concurrent requests for the same
+ * key wait for single load instead of loading font again. Failed loads are not cached.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class SpriteFontCache {
+
+    /**
+     * Approximate number of bytes taken by each glyph: {@link Glyph} object, its columns in {@link GlyphTable} and
+     * entry in glyph index.
+     */
+    private static final int GLYPH_WEIGHT = 96;
+
+    /**
+     * Approximate number of bytes taken by each kerning pair.
+     */
+    private static final int KERNING_PAIR_WEIGHT = 32;
+
+    /**
+     * Loads font for the key.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        SpriteFont load() throws IOException;
+    }
+
+    private final long maxWeight;
+
+    private final Object lock = new Object();
+
+    /**
+     * Loaded fonts in access order (least recently used first).
+     */
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Loads in progress.
+     */
+    private final Map<Object, CompletableFuture<SpriteFont>> loading = new HashMap<>();
+
+    private long weight;
+
+    private long hits;
+
+    private long misses;
+
+    private long loads;
+
+    private long evictions;
+
+    /**
+     * @param maxWeight the memory budget, bytes
+     */
+    public SpriteFontCache(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Budget should be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns font mapped from file (see {@link SpriteFontReader#map(Path)}), keyed by absolute normalized path.
+     *
+     * @param path the path to font file
+     * @return the font
+     * @throws IOException if font can not be loaded
+     */
+    public SpriteFont get(Path path) throws IOException {
+        final Path key = path.toAbsolutePath().normalize();
+        return get(key, () -> SpriteFontReader.map(key));
+    }
+
+    /**
+     * Returns font read from resource (for example {@code getClass().getResource("/fonts/sample.sf")}), keyed by
+     * resource's external form.
+     *
+     * @param resource the font resource
+     * @return the font
+     * @throws IOException if font can not be loaded
+     */
+    public SpriteFont get(URL resource) throws IOException {
+        return get(resource.toExternalForm(), () -> {
+            try (InputStream is = resource.openStream()) {
+                return SpriteFontReader.read(is);
+            }
+        });
+    }
+
+    /**
+     * Returns cached font or loads it with supplied loader. If the same key is being loaded by another thread then
+     * waits for that load to complete.
+     *
+     * @param key    the key (should have proper equals and hashCode)
+     * @param loader the loader to call if there is no cached font
+     * @return the font
+     * @throws IOException if font can not be loaded (by this or another thread)
+     */
+    public SpriteFont get(Object key, Loader loader) throws IOException {
+        requireNonNull(key);
+        final CompletableFuture<SpriteFont> future;
+        final boolean owner;
+        synchronized (lock) {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return entry.font;
+            }
+            misses++;
+            final CompletableFuture<SpriteFont> pending = loading.get(key);
+            owner = pending == null;
+            if (owner) {
+                future = new CompletableFuture<>();
+                loading.put(key, future);
+                loads++;
+            } else {
+                future = pending;
+            }
+        }
+        if (!owner) {
+            return await(future);
+        }
+        final SpriteFont font;
+        final long fontWeight;
+        try {
+            font = requireNonNull(loader.load(), "Loader returned null!");
+            // image header is parsed here, malformed one should fail the load
+            fontWeight = weigh(font);
+        } catch (IOException | RuntimeException | Error e) {
+            synchronized (lock) {
+                loading.remove(key);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (lock) {
+            loading.remove(key);
+            final Entry entry = new Entry(font, fontWeight);
+            entries.put(key, entry);
+            weight += entry.weight;
+            evict();
+        }
+        future.complete(font);
+        return font;
+    }
+
+    /**
+     * Removes font from cache. Loads in progress are not affected.
+     *
+     * @param key the key
+     * @return {@code true} if font was removed
+     */
+    public boolean invalidate(Object key) {
+        synchronized (lock) {
+            final Entry entry = entries.remove(key);
+            if (entry != null) {
+                weight -= entry.weight;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Removes all fonts from cache. Statistics is not reset.
+     */
+    public void clear() {
+        synchronized (lock) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * @return the snapshot of cache statistics
+     */
+    public Stats stats() {
+        synchronized (lock) {
+            return new Stats(hits, misses, loads, evictions, entries.size(), weight, maxWeight);
+        }
+    }
+
+    /**
+     * Estimates memory taken by font: glyphs and kerning pairs, encoded image and decoded pixels (even if pixels are
+     * not decoded yet).
+     *
+     * @param font the font
+     * @return the weight, bytes
+     */
+    static long weigh(SpriteFont font) {
+        long glyphs = 0;
+        for (GlyphRange range : font.glyphs()) {
+            // grid ranges take a few ints regardless of size
+            if (!range.isGrid()) {
+                glyphs += range.size();
+            }
+        }
+        final ByteBuffer image = font.imageBuffer();
+        final long pixels = (long) font.codec().width(image) * font.codec().height(image);
+        return GLYPH_WEIGHT * glyphs
+                + KERNING_PAIR_WEIGHT * font.kerning().size()
+                + image.remaining()
+                + pixels;
+    }
+
+    private void evict() {
+        final Iterator<Entry> it = entries.values().iterator();
+        while (weight > maxWeight && entries.size() > 1) {
+            final Entry eldest = it.next();
+            it.remove();
+            weight -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    private static SpriteFont await(CompletableFuture<SpriteFont> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for font!");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    private static final class Entry {
+
+        final SpriteFont font;
+
+        final long weight;
+
+        Entry(SpriteFont font, long weight) {
+            this.font = font;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Cache statistics. Every request is counted either as hit or as miss, misses which joined load of another thread
+     * are not counted as loads.
+     */
+    public static final class Stats {
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long loads;
+
+        private final long evictions;
+
+        private final int size;
+
+        private final long weight;
+
+        private final long maxWeight;
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        /**
+         * @return the number of loader calls
+         */
+        public long loads() {
+            return loads;
+        }
+
+        public long evictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the number of cached fonts
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the total weight of cached fonts, bytes
+         */
+        public long weight() {
+            return weight;
+        }
+
+        public long maxWeight() {
+            return maxWeight;
+        }
+
+        /**
+         * @return the ratio of hits to all requests (zero if there were no requests)
+         */
+        public double hitRate() {
+            final long total = hits + misses;
+            return total > 0 ? (double) hits / total : 0;
+        }
+
+        Stats(long hits, long misses, long loads, long evictions, int size, long weight, long maxWeight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.loads = loads;
+            this.evictions = evictions;
+            this.size = size;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", loads=" + loads +
+                    ", evictions=" + evictions +
+                    ", size=" + size +
+                    ", weight=" + weight +
+                    ", maxWeight=" + maxWeight +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+/**
+ * Binary sprite font file format (*.sf). All multi-byte values are big-endian.
+ * <pre>
+ * file   := magic:int32 ("SPFN") version:uint16 chunk* end
+ * chunk  := tag:int32 length:int32 data:byte[length]
+ * end    := tag:int32 ("END ") length:int32 (0)
+ * </pre>
+ * Readers should skip chunks with unknown tags, so new optional chunks may be added without changing version.
+ * Version is incremented only when existing chunk layout changes incompatibly. Known chunks:
+ * <pre>
+ * META := fontHeight:int32 defaultCharacter:uint16 characterWidth:int32 glyphXBorder:int32 glyphYBorder:int32
+ *
+ * GLYF := rangeCount:int32 range*
+ * range := kind:uint8 glyphCount:int32 startCodePoint:int32 length:int32 (glyph* | grid)   (length is the size of
+ *          glyph* or grid in bytes, kind is {@link #RANGE_GLYPHS} or {@link #RANGE_GRID})
+ * glyph := codePoint:svarint x:svarint y:svarint width:int16 ink
+ * ink   := inkWidth:svarint [xOffset:svarint yOffset:svarint inkHeight:svarint]   (offsets and height are absent
+ *          if inkWidth is -1, i.e. glyph has no ink bounds)
+ * grid  := x:svarint y:svarint columns:svarint pitchX:svarint pitchY:svarint advance:int16   (see
+ *          {@link GlyphRange#grid(int, int, int, int, int, int, int, short)})
+ *
+ * IFMT := codec:uint8   (optional, see {@link AtlasCodec#id()}, image is png if chunk is absent)
+ *
+ * IMAG := image:byte[length]   (image encoded with codec from IFMT chunk)
+ *
+ * KERN := pairCount:int32 pair*   (optional)
+ * pair := left:svarint right:svarint amount:svarint
+ *
+ * FPRT := fingerprint:int64   (optional, see {@link SpriteFont#fingerprint()})
+ * </pre>
+ * In each range code point is stored as delta from previous code point in range (first one - from range's start
+ * code point), x and y - as deltas from previous glyph (first glyph - from zero). Varints use 7 bits per byte, least
+ * significant group first, high bit set on all bytes but the last. Signed varints are zig-zag encoded
+ * ({@code (v << 1) ^ (v >> 31)}) before writing. Left and right code points of kerning pairs are stored as deltas
+ * from the left and right code points of the previous pair (first pair - from zero).
+ * <p>
+ * Version 1 files store {@code startCharacter:uint16} in place of {@code startCodePoint:int32}, version 1 and 2 files
+ * have no {@code ink} in glyphs, version 1-3 files have no {@code kind} in ranges (all ranges are glyph lists). All are
+ * still supported.
+ * <p>
+ * Legacy files (Java serialized {@link SpriteFont}) start with {@link #JAVA_SERIALIZATION_MAGIC} and are still
+ * supported by {@link SpriteFontReader}.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class SpriteFontFormat {
+
+    public static final int MAGIC = tag("SPFN");
+
+    public static final int VERSION = 4;
+
+    /**
+     * Range of glyphs listed one by one.
+     */
+    public static final int RANGE_GLYPHS = 0;
+
+    /**
+     * Grid of fixed pitch glyphs.
+     */
+    public static final int RANGE_GRID = 1;
+
+    public static final int META = tag("META");
+
+    public static final int GLYF = tag("GLYF");
+
+    public static final int IFMT = tag("IFMT");
+
+    public static final int IMAG = tag("IMAG");
+
+    public static final int KERN = tag("KERN");
+
+    public static final int FPRT = tag("FPRT");
+
+    public static final int END = tag("END ");
+
+    /**
+     * First two bytes of Java serialization stream.
+     */
+    public static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+
+    private SpriteFontFormat() {
+    }
+
+    /**
+     * @param name the four character chunk name
+     * @return the chunk tag
+     */
+    public static int tag(String name) {
+        if (name.length() != 4) {
+            throw new IllegalArgumentException("Tag should be 4 characters long: " + name);
+        }
+        return name.charAt(0) << 24
+                | name.charAt(1) << 16
+                | name.charAt(2) << 8
+                | name.charAt(3);
+    }
+}
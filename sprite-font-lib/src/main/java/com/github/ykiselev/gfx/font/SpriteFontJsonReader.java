@@ -0,0 +1,383 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads sprite font from glyph description json (both row and columnar layouts written by builder) and png image.
+ * Json is parsed in a single streaming pass without building any intermediate tree, unknown keys are skipped.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class SpriteFontJsonReader {
+
+    private SpriteFontJsonReader() {
+    }
+
+    /**
+     * @param json the path to json file
+     * @param png  the path to png image
+     * @return the sprite font
+     * @throws IOException if files can not be read or do not contain valid sprite font
+     */
+    public static SpriteFont read(Path json, Path png) throws IOException {
+        final byte[] image = Files.readAllBytes(png);
+        try (Reader reader = Files.newBufferedReader(json, StandardCharsets.UTF_8)) {
+            return read(reader, image);
+        }
+    }
+
+    /**
+     * Reads json (UTF-8) from the stream. Stream is not closed.
+     *
+     * @param json the json stream
+     * @param png  the png image
+     * @return the sprite font
+     * @throws IOException if stream does not contain valid glyph description or image is not png
+     */
+    public static SpriteFont read(InputStream json, byte[] png) throws IOException {
+        return read(new InputStreamReader(json, StandardCharsets.UTF_8), png);
+    }
+
+    /**
+     * @param json the json reader
+     * @param png  the png image
+     * @return the sprite font
+     * @throws IOException if reader does not contain valid glyph description or image is not png
+     */
+    public static SpriteFont read(Reader json, byte[] png) throws IOException {
+        try {
+            PngDecoder.width(ByteBuffer.wrap(png));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not a png image!", e);
+        }
+        final JsonScanner scanner = new JsonScanner(json);
+        int fontHeight = -1, defaultCharacter = -1, characterWidth = 0, glyphXBorder = 0, glyphYBorder = 0;
+        GlyphRange[] ranges = null;
+        KerningTable kerning = KerningTable.EMPTY;
+        scanner.beginObject();
+        while (scanner.hasNext()) {
+            switch (scanner.nextName()) {
+                case "fontHeight":
+                    fontHeight = scanner.nextInt();
+                    break;
+                case "defaultCharacter":
+                    defaultCharacter = scanner.nextInt();
+                    break;
+                case "characterWidth":
+                    characterWidth = scanner.nextInt();
+                    break;
+                case "glyphXBorder":
+                    glyphXBorder = scanner.nextInt();
+                    break;
+                case "glyphYBorder":
+                    glyphYBorder = scanner.nextInt();
+                    break;
+                case "glyphs":
+                    ranges = readRanges(scanner);
+                    break;
+                case "kerning":
+                    kerning = scanner.isObject() ? readKerningColumns(scanner) : readKerningRows(scanner);
+                    break;
+                default:
+                    scanner.skipValue();
+            }
+        }
+        scanner.end();
+        if (fontHeight < 0 || defaultCharacter < 0 || ranges == null) {
+            throw new IOException("Missing required field!");
+        }
+        if (defaultCharacter > Character.MAX_VALUE) {
+            throw new IOException("Default character should be from Basic Multilingual Plane!");
+        }
+        return new SpriteFont(
+                fontHeight,
+                (char) defaultCharacter,
+                characterWidth,
+                ranges,
+                png,
+                AtlasCodec.PNG,
+                kerning,
+                glyphXBorder,
+                glyphYBorder
+        );
+    }
+
+    private static GlyphRange[] readRanges(JsonScanner scanner) throws IOException {
+        final List<GlyphRange> result = new ArrayList<>();
+        scanner.beginArray();
+        while (scanner.hasNext()) {
+            final Columns columns = new Columns();
+            List<Glyph> rows = null;
+            scanner.beginObject();
+            while (scanner.hasNext()) {
+                final String name = scanner.nextName();
+                if ("glyphs".equals(name)) {
+                    rows = readRows(scanner);
+                } else {
+                    columns.read(name, scanner);
+                }
+            }
+            result.add(
+                    new GlyphRange(
+                            rows != null ? rows.toArray(new Glyph[0]) : columns.toGlyphs()
+                    )
+            );
+        }
+        return result.toArray(new GlyphRange[0]);
+    }
+
+    private static List<Glyph> readRows(JsonScanner scanner) throws IOException {
+        final List<Glyph> result = new ArrayList<>();
+        scanner.beginArray();
+        while (scanner.hasNext()) {
+            int codePoint = -1, x = 0, y = 0, width = 0, xOffset = 0, yOffset = 0, inkWidth = -1, inkHeight = -1;
+            scanner.beginObject();
+            while (scanner.hasNext()) {
+                switch (scanner.nextName()) {
+                    case "character":
+                        codePoint = scanner.nextInt();
+                        break;
+                    case "x":
+                        x = scanner.nextInt();
+                        break;
+                    case "y":
+                        y = scanner.nextInt();
+                        break;
+                    case "width":
+                        width = scanner.nextInt();
+                        break;
+                    case "xOffset":
+                        xOffset = scanner.nextInt();
+                        break;
+                    case "yOffset":
+                        yOffset = scanner.nextInt();
+                        break;
+                    case "inkWidth":
+                        inkWidth = scanner.nextInt();
+                        break;
+                    case "inkHeight":
+                        inkHeight = scanner.nextInt();
+                        break;
+                    default:
+                        scanner.skipValue();
+                }
+            }
+            result.add(glyph(codePoint, x, y, width, xOffset, yOffset, inkWidth, inkHeight));
+        }
+        return result;
+    }
+
+    private static Glyph glyph(int codePoint, int x, int y, int width, int xOffset, int yOffset, int inkWidth,
+                               int inkHeight) throws IOException {
+        if (!Character.isValidCodePoint(codePoint)) {
+            throw new IOException("Bad code point: " + codePoint);
+        }
+        if (inkWidth < 0 || inkHeight < 0) {
+            return new Glyph(codePoint, x, y, (short) width);
+        }
+        return new Glyph(
+                codePoint,
+                x,
+                y,
+                (short) width,
+                (short) xOffset,
+                (short) yOffset,
+                (short) inkWidth,
+                (short) inkHeight
+        );
+    }
+
+    private static KerningTable readKerningRows(JsonScanner scanner) throws IOException {
+        final Ints lefts = new Ints(), rights = new Ints(), amounts = new Ints();
+        scanner.beginArray();
+        while (scanner.hasNext()) {
+            int left = -1, right = -1, amount = 0;
+            scanner.beginObject();
+            while (scanner.hasNext()) {
+                switch (scanner.nextName()) {
+                    case "left":
+                        left = scanner.nextInt();
+                        break;
+                    case "right":
+                        right = scanner.nextInt();
+                        break;
+                    case "amount":
+                        amount = scanner.nextInt();
+                        break;
+                    default:
+                        scanner.skipValue();
+                }
+            }
+            lefts.add(left);
+            rights.add(right);
+            amounts.add(amount);
+        }
+        return kerning(lefts, rights, amounts);
+    }
+
+    private static KerningTable readKerningColumns(JsonScanner scanner) throws IOException {
+        Ints lefts = null, rights = null, amounts = null;
+        scanner.beginObject();
+        while (scanner.hasNext()) {
+            switch (scanner.nextName()) {
+                case "left":
+                    lefts = Ints.read(scanner);
+                    break;
+                case "right":
+                    rights = Ints.read(scanner);
+                    break;
+                case "amount":
+                    amounts = Ints.read(scanner);
+                    break;
+                default:
+                    scanner.skipValue();
+            }
+        }
+        if (lefts == null || rights == null || amounts == null) {
+            throw new IOException("Incomplete kerning columns!");
+        }
+        return kerning(lefts, rights, amounts);
+    }
+
+    private static KerningTable kerning(Ints lefts, Ints rights, Ints amounts) throws IOException {
+        if (lefts.size != rights.size || lefts.size != amounts.size) {
+            throw new IOException("Kerning columns have different length!");
+        }
+        final short[] result = new short[amounts.size];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (short) amounts.values[i];
+        }
+        return new KerningTable(lefts.toArray(), rights.toArray(), result);
+    }
+
+    /**
+     * Growable array of ints.
+     */
+    private static final class Ints {
+
+        int[] values = new int[16];
+
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        static Ints read(JsonScanner scanner) throws IOException {
+            final Ints result = new Ints();
+            scanner.beginArray();
+            while (scanner.hasNext()) {
+                result.add(scanner.nextInt());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Glyph columns of range in columnar layout.
+     */
+    private static final class Columns {
+
+        Ints characters, x, y, width, xOffset, yOffset, inkWidth, inkHeight;
+
+        void read(String name, JsonScanner scanner) throws IOException {
+            switch (name) {
+                case "characters":
+                    characters = Ints.read(scanner);
+                    break;
+                case "x":
+                    x = Ints.read(scanner);
+                    break;
+                case "y":
+                    y = Ints.read(scanner);
+                    break;
+                case "width":
+                    width = Ints.read(scanner);
+                    break;
+                case "xOffset":
+                    xOffset = Ints.read(scanner);
+                    break;
+                case "yOffset":
+                    yOffset = Ints.read(scanner);
+                    break;
+                case "inkWidth":
+                    inkWidth = Ints.read(scanner);
+                    break;
+                case "inkHeight":
+                    inkHeight = Ints.read(scanner);
+                    break;
+                default:
+                    scanner.skipValue();
+            }
+        }
+
+        Glyph[] toGlyphs() throws IOException {
+            if (characters == null || x == null || y == null || width == null) {
+                throw new IOException("Incomplete glyph columns!");
+            }
+            final boolean ink = inkWidth != null;
+            if (ink && (xOffset == null || yOffset == null || inkHeight == null)) {
+                throw new IOException("Incomplete ink columns!");
+            }
+            final int size = characters.size;
+            for (Ints column : ink
+                    ? new Ints[]{x, y, width, xOffset, yOffset, inkWidth, inkHeight}
+                    : new Ints[]{x, y, width}) {
+                if (column.size != size) {
+                    throw new IOException("Glyph columns have different length!");
+                }
+            }
+            final Glyph[] result = new Glyph[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = glyph(
+                        characters.get(i),
+                        x.get(i),
+                        y.get(i),
+                        width.get(i),
+                        ink ? xOffset.get(i) : 0,
+                        ink ? yOffset.get(i) : 0,
+                        ink ? inkWidth.get(i) : -1,
+                        ink ? inkHeight.get(i) : -1
+                );
+            }
+            return result;
+        }
+    }
+}
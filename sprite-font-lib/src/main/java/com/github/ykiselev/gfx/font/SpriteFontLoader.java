@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Loads sprite fonts asynchronously. Each font is loaded in two stages running on supplied executor: file is read (or
+ * mapped), then glyph index with glyph table and decoded pixels are built in parallel (they are guarded by separate
+ * locks of {@link SpriteFont}), so reads and decoding of different fonts overlap and use all available cores. Returned
+ * fonts are fully prepared, first calls to {@link SpriteFont#glyph(int)}, {@link SpriteFont#glyphTable()} or
+ * {@link SpriteFont#pixels()} do not block.
+ * <p>
+ * If loader is created with {@link SpriteFontCache} then fonts are taken from (and put into) cache.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class SpriteFontLoader {
+
+    private final Executor executor;
+
+    private final SpriteFontCache cache;
+
+    /**
+     * @param executor the executor to run loading stages on (for example {@link java.util.concurrent.ForkJoinPool#commonPool()})
+     */
+    public SpriteFontLoader(Executor executor) {
+        this(executor, null);
+    }
+
+    /**
+     * @param executor the executor to run loading stages on
+     * @param cache    the cache to load fonts through or {@code null}
+     */
+    public SpriteFontLoader(Executor executor, SpriteFontCache cache) {
+        this.executor = requireNonNull(executor);
+        this.cache = cache;
+    }
+
+    /**
+     * Maps font file (see {@link SpriteFontReader#map(Path)}) and prepares font.
+     *
+     * @param path the path to font file
+     * @return the future completed with prepared font or exceptionally (with {@link IOException} cause) if font can not
+     * be loaded
+     */
+    public CompletableFuture<SpriteFont> load(Path path) {
+        return load(() -> cache != null ? cache.get(path) : SpriteFontReader.map(path));
+    }
+
+    /**
+     * Reads font from resource and prepares it.
+     *
+     * @param resource the font resource
+     * @return the future completed with prepared font
+     * @see #load(Path)
+     */
+    public CompletableFuture<SpriteFont> load(URL resource) {
+        return load(() -> {
+            if (cache != null) {
+                return cache.get(resource);
+            }
+            try (InputStream is = resource.openStream()) {
+                return SpriteFontReader.read(is);
+            }
+        });
+    }
+
+    private CompletableFuture<SpriteFont> load(SpriteFontCache.Loader loader) {
+        return read(loader).thenCompose(this::prepare);
+    }
+
+    /**
+     * Loads all fonts in parallel. Returned future is never completed exceptionally, failure of each font is reported
+     * by its result.
+     *
+     * @param paths the paths to font files
+     * @return the future completed with results in the order of {@code paths}
+     */
+    public CompletableFuture<List<Result<Path>>> loadAll(Collection<Path> paths) {
+        final List<CompletableFuture<Result<Path>>> futures = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            futures.add(timed(path, () -> cache != null ? cache.get(path) : SpriteFontReader.map(path)));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+    }
+
+    private <K> CompletableFuture<Result<K>> timed(K source, SpriteFontCache.Loader loader) {
+        final long started = System.nanoTime();
+        final long[] read = new long[1];
+        return read(loader)
+                .thenCompose(font -> {
+                    read[0] = System.nanoTime();
+                    return prepare(font);
+                })
+                .handle((font, ex) -> {
+                    final long finished = System.nanoTime();
+                    final long readNanos = (read[0] != 0 ? read[0] : finished) - started;
+                    return new Result<>(
+                            source,
+                            font,
+                            unwrap(ex),
+                            readNanos,
+                            finished - started - readNanos
+                    );
+                });
+    }
+
+    private CompletableFuture<SpriteFont> read(SpriteFontCache.Loader loader) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private CompletableFuture<SpriteFont> prepare(SpriteFont font) {
+        return CompletableFuture.allOf(
+                CompletableFuture.runAsync(font::glyphTable, executor),
+                CompletableFuture.runAsync(font::pixels, executor)
+        ).thenApply(v -> font);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        Throwable result = ex;
+        while (result instanceof CompletionException && result.getCause() != null) {
+            result = result.getCause();
+        }
+        return result;
+    }
+
+    /**
+     * Result of loading single font by {@link #loadAll(Collection)}.
+     *
+     * @param <K> the type of font source
+     */
+    public static final class Result<K> {
+
+        private final K source;
+
+        private final SpriteFont font;
+
+        private final Throwable error;
+
+        private final long readNanos;
+
+        private final long prepareNanos;
+
+        public K source() {
+            return source;
+        }
+
+        /**
+         * @return the loaded font or {@code null} if loading failed
+         */
+        public SpriteFont font() {
+            return font;
+        }
+
+        /**
+         * @return the failure cause or {@code null} if font was loaded
+         */
+        public Throwable error() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * @return the time spent reading font (including waiting for executor), nanoseconds
+         */
+        public long readNanos() {
+            return readNanos;
+        }
+
+        /**
+         * @return the time spent building glyph table and decoding pixels, nanoseconds
+         */
+        public long prepareNanos() {
+            return prepareNanos;
+        }
+
+        public long totalNanos() {
+            return readNanos + prepareNanos;
+        }
+
+        Result(K source, SpriteFont font, Throwable error, long readNanos, long prepareNanos) {
+            this.source = source;
+            this.font = font;
+            this.error = error;
+            this.readNanos = readNanos;
+            this.prepareNanos = prepareNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "source=" + source +
+                    ", success=" + isSuccess() +
+                    ", readNanos=" + readNanos +
+                    ", prepareNanos=" + prepareNanos +
+                    '}';
+        }
+    }
+}
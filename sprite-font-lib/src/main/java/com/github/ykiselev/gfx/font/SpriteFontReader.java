@@ -0,0 +1,368 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads sprite fonts stored in {@link SpriteFontFormat binary format} or legacy Java serialized form.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class SpriteFontReader {
+
+    private SpriteFontReader() {
+    }
+
+    /**
+     * Reads sprite font from the stream. Stream is read to the end but not closed.
+     *
+     * @param is the input stream
+     * @return the sprite font
+     * @throws IOException if stream does not contain valid sprite font
+     */
+    public static SpriteFont read(InputStream is) throws IOException {
+        final byte[] bytes = readFully(is);
+        if (isLegacy(bytes)) {
+            return readLegacy(bytes);
+        }
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads sprite font in binary format from the buffer starting at buffer's current position. Buffer position is
+     * advanced past the end chunk.
+     *
+     * @param buffer the buffer to read from
+     * @return the sprite font
+     * @throws IOException if buffer does not contain valid sprite font
+     */
+    public static SpriteFont read(ByteBuffer buffer) throws IOException {
+        return read(buffer, false);
+    }
+
+    /**
+     * Maps sprite font file into memory and reads font metadata in place. Glyphs of each range are decoded only when
+     * range is accessed for the first time and the encoded image is exposed by {@link SpriteFont#imageBuffer()} as
+     * read-only slice of the mapped file without copying. File is closed before this method returns (mapping stays
+     * valid until mapped buffer is garbage collected). Legacy (Java serialized) files are read as usual.
+     *
+     * @param path the path to sprite font file
+     * @return the lazily loaded sprite font
+     * @throws IOException if file can not be read or does not contain valid sprite font
+     */
+    public static SpriteFont map(Path path) throws IOException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() >= 2 && (buffer.getShort(0) & 0xffff) == SpriteFontFormat.JAVA_SERIALIZATION_MAGIC) {
+            try (InputStream is = Files.newInputStream(path)) {
+                return read(is);
+            }
+        }
+        return read(buffer, true);
+    }
+
+    private static SpriteFont read(ByteBuffer buffer, boolean lazy) throws IOException {
+        final ByteBuffer buf = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            final int version = readHeader(buf);
+            Meta meta = null;
+            GlyphRange[] ranges = null;
+            ByteBuffer image = null;
+            AtlasCodec codec = AtlasCodec.PNG;
+            KerningTable kerning = KerningTable.EMPTY;
+            Long fingerprint = null;
+            while (true) {
+                final int tag = buf.getInt();
+                final int length = buf.getInt();
+                if (tag == SpriteFontFormat.END) {
+                    buffer.position(buf.position());
+                    break;
+                }
+                final ByteBuffer chunk = slice(buf, length);
+                if (tag == SpriteFontFormat.META) {
+                    meta = new Meta(chunk);
+                } else if (tag == SpriteFontFormat.GLYF) {
+                    ranges = readRanges(chunk, version, lazy);
+                } else if (tag == SpriteFontFormat.IFMT) {
+                    codec = AtlasCodec.of(chunk.get() & 0xff);
+                } else if (tag == SpriteFontFormat.KERN) {
+                    kerning = readKerning(chunk);
+                } else if (tag == SpriteFontFormat.FPRT) {
+                    fingerprint = chunk.getLong();
+                } else if (tag == SpriteFontFormat.IMAG) {
+                    image = chunk;
+                }
+            }
+            if (meta == null || ranges == null || image == null) {
+                throw new IOException("Missing required chunk!");
+            }
+            final SpriteFont result;
+            if (lazy) {
+                result = new SpriteFont(
+                        meta.fontHeight,
+                        meta.defaultCharacter,
+                        meta.characterWidth,
+                        ranges,
+                        image,
+                        codec,
+                        kerning,
+                        meta.glyphXBorder,
+                        meta.glyphYBorder
+                );
+            } else {
+                final byte[] bytes = new byte[image.remaining()];
+                image.get(bytes);
+                result = new SpriteFont(
+                        meta.fontHeight,
+                        meta.defaultCharacter,
+                        meta.characterWidth,
+                        ranges,
+                        bytes,
+                        codec,
+                        kerning,
+                        meta.glyphXBorder,
+                        meta.glyphYBorder
+                );
+            }
+            if (fingerprint != null) {
+                result.fingerprint(fingerprint);
+            }
+            return result;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Malformed sprite font!", e);
+        }
+    }
+
+    /**
+     * @return the format version
+     */
+    static int readHeader(ByteBuffer buf) throws IOException {
+        if (buf.getInt() != SpriteFontFormat.MAGIC) {
+            throw new IOException("Not a sprite font!");
+        }
+        final int version = buf.getShort() & 0xffff;
+        if (version > SpriteFontFormat.VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        return version;
+    }
+
+    /**
+     * Returns chunk data as separate buffer and advances source buffer position past the chunk.
+     */
+    static ByteBuffer slice(ByteBuffer buf, int length) {
+        if (length < 0 || length > buf.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final ByteBuffer result = buf.slice();
+        result.limit(length);
+        buf.position(buf.position() + length);
+        return result;
+    }
+
+    private static GlyphRange[] readRanges(ByteBuffer chunk, int version, boolean lazy) {
+        final int ranges = chunk.getInt();
+        // kind (since version 4), size, start (16-bit in version 1) and glyph data length
+        final int rangeSize = (version > 3 ? 1 : 0) + 4 + (version > 1 ? 4 : 2) + 4;
+        if (ranges < 0 || ranges > chunk.remaining() / rangeSize) {
+            throw new IllegalArgumentException("Bad range count: " + ranges);
+        }
+        final GlyphRange[] result = new GlyphRange[ranges];
+        for (int i = 0; i < result.length; i++) {
+            // versions 1-3 had glyph lists only
+            final int kind = version > 3 ? chunk.get() & 0xff : SpriteFontFormat.RANGE_GLYPHS;
+            final int count = chunk.getInt();
+            // version 1 had 16-bit start character
+            final int start = version > 1 ? chunk.getInt() : chunk.getChar();
+            final ByteBuffer glyphs = slice(chunk, chunk.getInt());
+            if (kind == SpriteFontFormat.RANGE_GRID) {
+                result[i] = GlyphRange.grid(
+                        start,
+                        count,
+                        readSigned(glyphs),
+                        readSigned(glyphs),
+                        readSigned(glyphs),
+                        readSigned(glyphs),
+                        readSigned(glyphs),
+                        glyphs.getShort()
+                );
+            } else if (kind != SpriteFontFormat.RANGE_GLYPHS) {
+                throw new IllegalArgumentException("Unknown range kind: " + kind);
+            } else if (lazy) {
+                // glyphs are decoded on first use, so make sure now that data holds all of them
+                skipGlyphs(glyphs.duplicate(), count, version);
+                result[i] = new GlyphRange(glyphs, count, start, version);
+            } else {
+                result[i] = new GlyphRange(
+                        readGlyphs(glyphs, count, start, version)
+                );
+            }
+        }
+        return result;
+    }
+
+    static Glyph[] readGlyphs(ByteBuffer buf, int count, int start, int version) {
+        checkGlyphCount(buf, count, version);
+        final Glyph[] result = new Glyph[count];
+        int ch = start, x = 0, y = 0;
+        for (int i = 0; i < count; i++) {
+            ch += readSigned(buf);
+            x += readSigned(buf);
+            y += readSigned(buf);
+            final short width = buf.getShort();
+            // versions 1 and 2 had no ink bounds
+            final int inkWidth = version > 2 ? readSigned(buf) : -1;
+            if (inkWidth < 0) {
+                result[i] = new Glyph(ch, x, y, width);
+            } else {
+                result[i] = new Glyph(
+                        ch,
+                        x,
+                        y,
+                        width,
+                        (short) readSigned(buf),
+                        (short) readSigned(buf),
+                        (short) inkWidth,
+                        (short) readSigned(buf)
+                );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads glyph records without creating glyphs.
+     */
+    private static void skipGlyphs(ByteBuffer buf, int count, int version) {
+        checkGlyphCount(buf, count, version);
+        for (int i = 0; i < count; i++) {
+            readUnsigned(buf);
+            readUnsigned(buf);
+            readUnsigned(buf);
+            buf.getShort();
+            // versions 1 and 2 had no ink bounds
+            if (version > 2 && readSigned(buf) >= 0) {
+                readUnsigned(buf);
+                readUnsigned(buf);
+                readUnsigned(buf);
+            }
+        }
+    }
+
+    private static void checkGlyphCount(ByteBuffer buf, int count, int version) {
+        // code point, x and y deltas (at least 1 byte each), width and ink width (since version 3)
+        final int glyphSize = version > 2 ? 6 : 5;
+        if (count < 0 || count > buf.remaining() / glyphSize) {
+            throw new IllegalArgumentException("Bad glyph count: " + count);
+        }
+    }
+
+    private static KerningTable readKerning(ByteBuffer chunk) {
+        final int count = chunk.getInt();
+        if (count < 0 || count > chunk.remaining() / 3) {
+            throw new IllegalArgumentException("Bad pair count: " + count);
+        }
+        final int[] lefts = new int[count];
+        final int[] rights = new int[count];
+        final short[] amounts = new short[count];
+        int left = 0, right = 0;
+        for (int i = 0; i < count; i++) {
+            left += readSigned(chunk);
+            right += readSigned(chunk);
+            lefts[i] = left;
+            rights[i] = right;
+            amounts[i] = (short) readSigned(chunk);
+        }
+        return new KerningTable(lefts, rights, amounts);
+    }
+
+    static int readUnsigned(ByteBuffer buf) {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buf.get();
+            result |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint!");
+    }
+
+    static int readSigned(ByteBuffer buf) {
+        final int v = readUnsigned(buf);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static boolean isLegacy(byte[] bytes) {
+        return bytes.length >= 2
+                && ((bytes[0] & 0xff) << 8 | (bytes[1] & 0xff)) == SpriteFontFormat.JAVA_SERIALIZATION_MAGIC;
+    }
+
+    private static SpriteFont readLegacy(byte[] bytes) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (SpriteFont) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Not a sprite font!", e);
+        }
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream(Math.max(is.available(), 8192));
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            os.write(buffer, 0, read);
+        }
+        return os.toByteArray();
+    }
+
+    private static final class Meta {
+
+        final int fontHeight;
+
+        final char defaultCharacter;
+
+        final int characterWidth;
+
+        final int glyphXBorder;
+
+        final int glyphYBorder;
+
+        Meta(ByteBuffer chunk) {
+            fontHeight = chunk.getInt();
+            defaultCharacter = chunk.getChar();
+            characterWidth = chunk.getInt();
+            glyphXBorder = chunk.getInt();
+            glyphYBorder = chunk.getInt();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Converts text into textured quads written directly to direct native-order buffers ready to be uploaded to GPU.
+ * Buffers are reused between frames and only grow (doubling capacity) when there is not enough space, so once batch
+ * is warmed up appending text does not allocate.
+ * <p>
+ * Coordinates are in pixels with y axis pointing down (same as atlas), pen starts at the top left corner of the first
+ * line. Whitespace characters and glyphs with empty ink rectangle only move the pen. Quads cover glyph's ink rectangle
+ * only (see {@link GlyphTable}), placed at ink offset from the pen.
+ * <p>
+ * In {@link Mode#QUADS} mode each glyph is written as four vertices (top left, bottom left, bottom right, top right)
+ * each one consisting of {@code float x, y, s, t} optionally followed by colour (four unsigned bytes in r, g, b, a
+ * order, should be bound as normalized attribute), and six {@code int} indices (two triangles).
+ * <p>
+ * In {@link Mode#INSTANCES} mode each glyph is written as single record {@code float x, y, width, height, s0, t0, s1,
+ * t1} optionally followed by colour, no indices are written. Records are meant to be used with instanced
+ * drawing of a unit quad.
+ * <p>
+ * Note: this class is not thread safe.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class TextBatch {
+
+    public enum Mode {
+        QUADS, INSTANCES
+    }
+
+    private static final int INDICES_PER_GLYPH = 6;
+
+    private final Mode mode;
+
+    private final boolean coloured;
+
+    private final int stride;
+
+    private final int glyphSize;
+
+    private ByteBuffer vertices;
+
+    private ByteBuffer indices;
+
+    private int count;
+
+    /**
+     * @return the number of glyphs in batch
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the size of vertex (quads mode) or instance record (instances mode), bytes
+     */
+    public int stride() {
+        return stride;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public boolean isColoured() {
+        return coloured;
+    }
+
+    /**
+     * @return the vertex (or instance) buffer with position 0 and limit set to the number of bytes written. Note that
+     * returned buffer is replaced with new one when batch grows.
+     */
+    public ByteBuffer vertices() {
+        return vertices;
+    }
+
+    /**
+     * @return the index buffer with position 0 and limit set to the number of bytes written (empty in instances mode).
+     * Note that returned buffer is replaced with new one when batch grows.
+     */
+    public ByteBuffer indices() {
+        return indices;
+    }
+
+    /**
+     * @param mode     the batch mode
+     * @param coloured if {@code true} then packed colour is written for each vertex (or instance)
+     * @param capacity the initial capacity, glyphs
+     */
+    public TextBatch(Mode mode, boolean coloured, int capacity) {
+        this.mode = requireNonNull(mode);
+        this.coloured = coloured;
+        if (mode == Mode.QUADS) {
+            stride = 4 * Float.BYTES + (coloured ? Integer.BYTES : 0);
+            glyphSize = 4 * stride;
+        } else {
+            stride = 8 * Float.BYTES + (coloured ? Integer.BYTES : 0);
+            glyphSize = stride;
+        }
+        vertices = allocate(Math.max(1, capacity) * glyphSize);
+        indices = allocate(mode == Mode.QUADS ? Math.max(1, capacity) * INDICES_PER_GLYPH * Integer.BYTES : 0);
+        clear();
+    }
+
+    /**
+     * Removes all glyphs from batch keeping allocated buffers.
+     */
+    public void clear() {
+        count = 0;
+        vertices.position(0).limit(0);
+        indices.position(0).limit(0);
+    }
+
+    /**
+     * Appends text using white colour.
+     *
+     * @see #append(SpriteFont, CharSequence, int, int, float, float, int)
+     */
+    public int append(SpriteFont font, CharSequence text, float x, float y) {
+        return append(font, text, 0, text.length(), x, y, 0xffffffff);
+    }
+
+    /**
+     * Appends glyphs for the code points of the text (surrogate pairs are combined). Pen advances by glyph width plus
+     * font's glyphXBorder adjusted by kerning of adjacent code points, each {@code '\n'} moves pen to the start of the
+     * next line ({@link SpriteFont#lineHeight()} pixels below), {@code '\r'} is ignored.
+     *
+     * @param font the font to use
+     * @param text the text
+     * @param from the index of the first character (inclusive)
+     * @param to   the index of the last character (exclusive)
+     * @param x    the x coordinate of the top left corner of the first line
+     * @param y    the y coordinate of the top left corner of the first line
+     * @param rgba the packed colour (red in the most significant byte), ignored if batch is not coloured
+     * @return the number of glyphs added to batch
+     */
+    public int append(SpriteFont font, CharSequence text, int from, int to, float x, float y, int rgba) {
+        final GlyphTable table = font.glyphTable();
+        ensureCapacity(count + to - from);
+        final int xBorder = font.glyphXBorder();
+        final int lineHeight = font.lineHeight();
+        final KerningTable kerning = font.kerning();
+        final int before = count;
+        int prev = -1;
+        float penX = x, penY = y;
+        for (int i = from; i < to; ) {
+            final int ch = CodePoints.at(text, i, to);
+            i += Character.charCount(ch);
+            if (ch == '\n') {
+                penX = x;
+                penY += lineHeight;
+                prev = -1;
+                continue;
+            }
+            if (ch == '\r') {
+                continue;
+            }
+            final int g = table.indexOf(ch);
+            if (g < 0) {
+                continue;
+            }
+            final int width = table.width(g);
+            penX += kerning.get(prev, ch);
+            prev = ch;
+            final int inkWidth = table.inkWidth(g), inkHeight = table.inkHeight(g);
+            if (!Character.isWhitespace(ch) && inkWidth > 0 && inkHeight > 0) {
+                final float qx = penX + table.xOffset(g), qy = penY + table.yOffset(g);
+                put(qx, qy, inkWidth, inkHeight, table.s0(g), table.t0(g), table.s1(g), table.t1(g), rgba);
+            }
+            penX += width + xBorder;
+        }
+        vertices.limit(count * glyphSize);
+        if (mode == Mode.QUADS) {
+            indices.limit(count * INDICES_PER_GLYPH * Integer.BYTES);
+        }
+        return count - before;
+    }
+
+    /**
+     * Appends pre-built glyph quads of text block.
+     *
+     * @param block the text block
+     * @param x     the x coordinate of the top left corner of the block
+     * @param y     the y coordinate of the top left corner of the block
+     * @param rgba  the packed colour (red in the most significant byte), ignored if batch is not coloured
+     * @return the number of glyphs added to batch
+     */
+    public int append(TextBlock block, float x, float y, int rgba) {
+        final int glyphs = block.glyphCount();
+        ensureCapacity(count + glyphs);
+        final float[] quads = block.quads();
+        for (int p = 0; p < quads.length; p += TextBlock.QUAD_SIZE) {
+            put(
+                    x + quads[p],
+                    y + quads[p + 1],
+                    quads[p + 2],
+                    quads[p + 3],
+                    quads[p + 4],
+                    quads[p + 5],
+                    quads[p + 6],
+                    quads[p + 7],
+                    rgba
+            );
+        }
+        vertices.limit(count * glyphSize);
+        if (mode == Mode.QUADS) {
+            indices.limit(count * INDICES_PER_GLYPH * Integer.BYTES);
+        }
+        return glyphs;
+    }
+
+    private void put(float x, float y, float width, float height, float s0, float t0, float s1, float t1, int rgba) {
+        if (mode == Mode.QUADS) {
+            putQuad(x, y, width, height, s0, t0, s1, t1, rgba);
+        } else {
+            putInstance(x, y, width, height, s0, t0, s1, t1, rgba);
+        }
+        count++;
+    }
+
+    private void putQuad(float x, float y, float width, float height, float s0, float t0, float s1, float t1, int rgba) {
+        final float x1 = x + width, y1 = y + height;
+        int p = count * glyphSize;
+        p = putVertex(p, x, y, s0, t0, rgba);
+        p = putVertex(p, x, y1, s0, t1, rgba);
+        p = putVertex(p, x1, y1, s1, t1, rgba);
+        putVertex(p, x1, y, s1, t0, rgba);
+        final int base = 4 * count;
+        final int i = count * INDICES_PER_GLYPH * Integer.BYTES;
+        indices.putInt(i, base)
+                .putInt(i + 4, base + 1)
+                .putInt(i + 8, base + 2)
+                .putInt(i + 12, base + 2)
+                .putInt(i + 16, base + 3)
+                .putInt(i + 20, base);
+    }
+
+    private int putVertex(int p, float x, float y, float s, float t, int rgba) {
+        vertices.putFloat(p, x)
+                .putFloat(p + 4, y)
+                .putFloat(p + 8, s)
+                .putFloat(p + 12, t);
+        if (coloured) {
+            putColour(p + 16, rgba);
+        }
+        return p + stride;
+    }
+
+    private void putInstance(float x, float y, float width, float height, float s0, float t0, float s1, float t1, int rgba) {
+        final int p = count * glyphSize;
+        vertices.putFloat(p, x)
+                .putFloat(p + 4, y)
+                .putFloat(p + 8, width)
+                .putFloat(p + 12, height)
+                .putFloat(p + 16, s0)
+                .putFloat(p + 20, t0)
+                .putFloat(p + 24, s1)
+                .putFloat(p + 28, t1);
+        if (coloured) {
+            putColour(p + 32, rgba);
+        }
+    }
+
+    /**
+     * Writes colour as four bytes in r, g, b, a order regardless of buffer byte order.
+     */
+    private void putColour(int p, int rgba) {
+        vertices.put(p, (byte) (rgba >>> 24))
+                .put(p + 1, (byte) (rgba >>> 16))
+                .put(p + 2, (byte) (rgba >>> 8))
+                .put(p + 3, (byte) rgba);
+    }
+
+    /**
+     * Makes sure there is enough space for specified number of glyphs, growing buffers if needed. Also opens buffers
+     * limits to their capacity for absolute puts.
+     */
+    private void ensureCapacity(int glyphs) {
+        final int required = glyphs * glyphSize;
+        if (vertices.capacity() < required) {
+            vertices = grow(vertices, count * glyphSize, required);
+        }
+        vertices.limit(vertices.capacity());
+        if (mode == Mode.QUADS) {
+            final int requiredIndices = glyphs * INDICES_PER_GLYPH * Integer.BYTES;
+            if (indices.capacity() < requiredIndices) {
+                indices = grow(indices, count * INDICES_PER_GLYPH * Integer.BYTES, requiredIndices);
+            }
+            indices.limit(indices.capacity());
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer src, int used, int required) {
+        final ByteBuffer result = allocate(Math.max(required, 2 * src.capacity()));
+        src.position(0).limit(used);
+        result.put(src);
+        result.position(0);
+        return result;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity)
+                .order(ByteOrder.nativeOrder());
+    }
+}
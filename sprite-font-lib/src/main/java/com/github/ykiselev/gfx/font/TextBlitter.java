@@ -0,0 +1,305 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Renders text into caller-owned raster on CPU (thumbnails, previews, golden images) without GPU or AWT. Atlas is
+ * decoded once when blitter is created, glyph coverage is then blended straight from atlas into the raster row by row,
+ * glyphs are clipped to raster bounds and nothing is allocated per glyph.
+ * <p>
+ * Pen is moved exactly like in {@link TextBatch}: by glyph width plus font's glyphXBorder adjusted by kerning,
+ * {@code '\n'} starts the next line ({@link SpriteFont#lineHeight()} pixels below) and {@code '\r'} is ignored.
+ * <p>
+ * Two kinds of rasters are supported: {@code int[]} of non-premultiplied ARGB pixels (same as
+ * {@code BufferedImage.TYPE_INT_ARGB}) where colour is blended over existing pixels and {@code byte[]} of 8-bit
+ * intensities (grayscale or alpha mask) where value is blended over existing intensity with glyph coverage. Rows of
+ * raster are {@code width} pixels long without padding.
+ * <p>
+ * Blitter is immutable and may be shared between threads. Large renders may be split into horizontal bands of whole
+ * lines drawn in parallel, see {@link #draw(int[], int, int, CharSequence, int, int, int, Executor, int)}. Each band
+ * is clipped to its own rows, so bands never write the same pixel.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class TextBlitter {
+
+    private final SpriteFont font;
+
+    private final GlyphTable table;
+
+    private final KerningTable kerning;
+
+    /**
+     * Decoded atlas, one byte of coverage per pixel.
+     */
+    private final byte[] atlas;
+
+    private final int atlasWidth;
+
+    /**
+     * Top of the highest and bottom of the lowest ink rectangle relative to the pen.
+     */
+    private final int inkTop;
+
+    private final int inkBottom;
+
+    public SpriteFont font() {
+        return font;
+    }
+
+    /**
+     * Decodes font atlas (see {@link SpriteFont#pixels()}).
+     *
+     * @param font the font to draw with
+     */
+    public TextBlitter(SpriteFont font) {
+        this.font = requireNonNull(font);
+        this.table = font.glyphTable();
+        this.kerning = font.kerning();
+        this.atlasWidth = table.atlasWidth();
+        final ByteBuffer pixels = font.pixels();
+        this.atlas = new byte[atlasWidth * table.atlasHeight()];
+        pixels.get(atlas, 0, Math.min(atlas.length, pixels.remaining()));
+        int top = 0, bottom = 0;
+        for (int i = 0; i < table.size(); i++) {
+            top = Math.min(top, table.yOffset(i));
+            bottom = Math.max(bottom, table.yOffset(i) + table.inkHeight(i));
+        }
+        this.inkTop = top;
+        this.inkBottom = bottom;
+    }
+
+    /**
+     * Draws text into ARGB raster.
+     *
+     * @param dest   the raster of non-premultiplied ARGB pixels
+     * @param width  the raster width
+     * @param height the raster height
+     * @param text   the text to draw
+     * @param x      the x coordinate of the top left corner of the first line
+     * @param y      the y coordinate of the top left corner of the first line
+     * @param argb   the non-premultiplied colour (alpha in the most significant byte)
+     */
+    public void draw(int[] dest, int width, int height, CharSequence text, int x, int y, int argb) {
+        checkRaster(dest.length, width, height);
+        draw(dest, null, width, text, x, y, argb, 0, height);
+    }
+
+    /**
+     * Draws text into 8-bit raster.
+     *
+     * @param dest   the raster of 8-bit intensities
+     * @param width  the raster width
+     * @param height the raster height
+     * @param text   the text to draw
+     * @param x      the x coordinate of the top left corner of the first line
+     * @param y      the y coordinate of the top left corner of the first line
+     * @param value  the intensity to blend with glyph coverage (0-255)
+     */
+    public void draw(byte[] dest, int width, int height, CharSequence text, int x, int y, int value) {
+        checkRaster(dest.length, width, height);
+        draw(null, dest, width, text, x, y, value & 0xff, 0, height);
+    }
+
+    /**
+     * Draws text into ARGB raster splitting it into horizontal bands (each one is a whole number of lines high) drawn
+     * in parallel on executor. Returns when all bands are drawn.
+     *
+     * @param executor the executor to draw bands on
+     * @param bands    the maximum number of bands
+     * @throws java.util.concurrent.CompletionException if drawing of any band fails
+     * @see #draw(int[], int, int, CharSequence, int, int, int)
+     */
+    public void draw(int[] dest, int width, int height, CharSequence text, int x, int y, int argb, Executor executor, int bands) {
+        checkRaster(dest.length, width, height);
+        drawBands(dest, null, width, height, text, x, y, argb, executor, bands);
+    }
+
+    /**
+     * Draws text into 8-bit raster splitting it into horizontal bands drawn in parallel on executor. Returns when all
+     * bands are drawn.
+     *
+     * @param executor the executor to draw bands on
+     * @param bands    the maximum number of bands
+     * @throws java.util.concurrent.CompletionException if drawing of any band fails
+     * @see #draw(byte[], int, int, CharSequence, int, int, int)
+     */
+    public void draw(byte[] dest, int width, int height, CharSequence text, int x, int y, int value, Executor executor, int bands) {
+        checkRaster(dest.length, width, height);
+        drawBands(null, dest, width, height, text, x, y, value & 0xff, executor, bands);
+    }
+
+    private void drawBands(int[] argb, byte[] gray, int width, int height, CharSequence text, int x, int y, int colour, Executor executor, int bands) {
+        requireNonNull(executor);
+        if (bands < 1) {
+            throw new IllegalArgumentException("Number of bands should be positive!");
+        }
+        final int lineHeight = Math.max(1, font.lineHeight());
+        final int lines = (height + lineHeight - 1) / lineHeight;
+        final int bandHeight = lineHeight * Math.max(1, (lines + bands - 1) / bands);
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[(height + bandHeight - 1) / bandHeight];
+        for (int i = 0; i < futures.length; i++) {
+            final int top = i * bandHeight;
+            final int bottom = Math.min(height, top + bandHeight);
+            futures[i] = CompletableFuture.runAsync(
+                    () -> draw(argb, gray, width, text, x, y, colour, top, bottom),
+                    executor
+            );
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    /**
+     * Draws text clipping glyphs to rows {@code [top, bottom)} of raster. Exactly one of {@code argb} and {@code gray}
+     * should be non-null.
+     */
+    private void draw(int[] argb, byte[] gray, int width, CharSequence text, int x, int y, int colour, int top, int bottom) {
+        final int xBorder = font.glyphXBorder();
+        final int lineHeight = font.lineHeight();
+        final int to = text.length();
+        int prev = -1;
+        int penX = x, penY = y;
+        for (int i = 0; i < to; ) {
+            if (penY + inkTop >= bottom) {
+                // the rest of lines are below the clip
+                break;
+            }
+            if (penY + inkBottom <= top) {
+                // skip line above the clip
+                while (i < to && text.charAt(i) != '\n') {
+                    i++;
+                }
+            }
+            if (i == to) {
+                break;
+            }
+            final int ch = CodePoints.at(text, i, to);
+            i += Character.charCount(ch);
+            if (ch == '\n') {
+                penX = x;
+                penY += lineHeight;
+                prev = -1;
+                continue;
+            }
+            if (ch == '\r') {
+                continue;
+            }
+            final int g = table.indexOf(ch);
+            if (g < 0) {
+                continue;
+            }
+            penX += kerning.get(prev, ch);
+            prev = ch;
+            final int inkWidth = table.inkWidth(g), inkHeight = table.inkHeight(g);
+            if (!Character.isWhitespace(ch) && inkWidth > 0 && inkHeight > 0) {
+                final int dx = penX + table.xOffset(g), dy = penY + table.yOffset(g);
+                // clip
+                final int x0 = Math.max(dx, 0), x1 = Math.min(dx + inkWidth, width);
+                final int y0 = Math.max(dy, top), y1 = Math.min(dy + inkHeight, bottom);
+                if (x0 < x1 && y0 < y1) {
+                    final int src = (table.y(g) + y0 - dy) * atlasWidth + table.x(g) + x0 - dx;
+                    if (argb != null) {
+                        blit(argb, width, x0, y0, x1 - x0, y1 - y0, src, colour);
+                    } else {
+                        blit(gray, width, x0, y0, x1 - x0, y1 - y0, src, colour);
+                    }
+                }
+            }
+            penX += table.width(g) + xBorder;
+        }
+    }
+
+    private void blit(int[] dest, int width, int x, int y, int w, int h, int src, int argb) {
+        final int alpha = argb >>> 24;
+        final int rgb = argb & 0xffffff;
+        final int r = rgb >>> 16, g = (rgb >>> 8) & 0xff, b = rgb & 0xff;
+        for (int row = 0; row < h; row++) {
+            final int s = src + row * atlasWidth;
+            final int d = (y + row) * width + x;
+            for (int i = 0; i < w; i++) {
+                final int a = div255(alpha * (atlas[s + i] & 0xff));
+                if (a == 0) {
+                    continue;
+                }
+                final int p = d + i;
+                if (a == 255) {
+                    dest[p] = 0xff000000 | rgb;
+                    continue;
+                }
+                final int pixel = dest[p];
+                final int da = pixel >>> 24;
+                if (da == 255) {
+                    dest[p] = 0xff000000
+                            | mix((pixel >>> 16) & 0xff, r, a) << 16
+                            | mix((pixel >>> 8) & 0xff, g, a) << 8
+                            | mix(pixel & 0xff, b, a);
+                    continue;
+                }
+                // src over non-premultiplied destination
+                final int dw = div255(da * (255 - a));
+                final int oa = a + dw;
+                dest[p] = oa << 24
+                        | (r * a + ((pixel >>> 16) & 0xff) * dw) / oa << 16
+                        | (g * a + ((pixel >>> 8) & 0xff) * dw) / oa << 8
+                        | (b * a + (pixel & 0xff) * dw) / oa;
+            }
+        }
+    }
+
+    private void blit(byte[] dest, int width, int x, int y, int w, int h, int src, int value) {
+        for (int row = 0; row < h; row++) {
+            final int s = src + row * atlasWidth;
+            final int d = (y + row) * width + x;
+            for (int i = 0; i < w; i++) {
+                final int a = atlas[s + i] & 0xff;
+                if (a != 0) {
+                    dest[d + i] = (byte) mix(dest[d + i] & 0xff, value, a);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the {@code from + (to - from) * a / 255} rounded to nearest
+     */
+    private static int mix(int from, int to, int a) {
+        return from + div255((to - from) * a);
+    }
+
+    /**
+     * Divides by 255 with rounding to nearest, exact for {@code |v| <= 255 * 255}.
+     */
+    private static int div255(int v) {
+        if (v < 0) {
+            return -div255(-v);
+        }
+        final int t = v + 128;
+        return (t + (t >>> 8)) >>> 8;
+    }
+
+    private static void checkRaster(int length, int width, int height) {
+        if (width < 0 || height < 0 || length < (long) width * height) {
+            throw new IllegalArgumentException("Raster is too small: " + length + " < " + width + "x" + height);
+        }
+    }
+}
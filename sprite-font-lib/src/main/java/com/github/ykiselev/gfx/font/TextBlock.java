@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.util.Arrays;
+
+/**
+ * Immutable result of laying out text: size, line breaks and glyph quads positioned relative to the top left corner
+ * of the block. Blocks are built and cached by {@link LayoutCache} and appended to batch with
+ * {@link TextBatch#append(TextBlock, float, float, int)} without any glyph lookups.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class TextBlock {
+
+    /**
+     * Number of floats per glyph in {@link #quads}: x, y, width, height, s0, t0, s1, t1.
+     */
+    static final int QUAD_SIZE = 8;
+
+    private final int width;
+
+    private final int height;
+
+    private final int[] starts;
+
+    private final int[] ends;
+
+    private final int[] widths;
+
+    private final float[] quads;
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int lineCount() {
+        return starts.length;
+    }
+
+    /**
+     * @see TextLayout#lineStart(int)
+     */
+    public int lineStart(int line) {
+        return starts[line];
+    }
+
+    /**
+     * @see TextLayout#lineEnd(int)
+     */
+    public int lineEnd(int line) {
+        return ends[line];
+    }
+
+    public int lineWidth(int line) {
+        return widths[line];
+    }
+
+    /**
+     * @return the number of glyph quads (whitespace and blank glyphs have no quads)
+     */
+    public int glyphCount() {
+        return quads.length / QUAD_SIZE;
+    }
+
+    /**
+     * @return the glyph quads, {@link #QUAD_SIZE} floats per glyph. Not copied, should not be modified.
+     */
+    float[] quads() {
+        return quads;
+    }
+
+    private TextBlock(int width, int height, int[] starts, int[] ends, int[] widths, float[] quads) {
+        this.width = width;
+        this.height = height;
+        this.starts = starts;
+        this.ends = ends;
+        this.widths = widths;
+        this.quads = quads;
+    }
+
+    /**
+     * Builds block from text laid out with {@code layout}. Pen moves exactly as in {@link TextLayout} (kerning, tab
+     * stops) and glyphs are placed as by {@link TextBatch}.
+     *
+     * @param font     the font used for layout
+     * @param text     the text
+     * @param layout   the layout of whole text
+     * @param tabWidth the distance between tab stops, pixels
+     * @return the new block
+     */
+    static TextBlock build(SpriteFont font, CharSequence text, TextLayout layout, int tabWidth) {
+        final GlyphTable table = font.glyphTable();
+        final KerningTable kerning = font.kerning();
+        final int xBorder = font.glyphXBorder();
+        final int lineHeight = font.lineHeight();
+        final int lines = layout.lineCount();
+        final int[] starts = new int[lines];
+        final int[] ends = new int[lines];
+        final int[] widths = new int[lines];
+        // each glyph takes at least one character
+        final float[] quads = new float[QUAD_SIZE * text.length()];
+        int p = 0;
+        for (int line = 0; line < lines; line++) {
+            final int start = layout.lineStart(line);
+            final int end = layout.lineEnd(line);
+            starts[line] = start;
+            ends[line] = end;
+            widths[line] = layout.lineWidth(line);
+            final int penY = line * lineHeight;
+            int penX = 0, prev = -1;
+            for (int i = start, n; i < end; i += n) {
+                final int ch = CodePoints.at(text, i, end);
+                n = Character.charCount(ch);
+                if (ch == '\r') {
+                    continue;
+                }
+                if (ch == '\t') {
+                    penX = (penX / tabWidth + 1) * tabWidth;
+                    prev = -1;
+                    continue;
+                }
+                final int g = table.indexOf(ch);
+                if (g < 0) {
+                    continue;
+                }
+                penX += kerning.get(prev, ch);
+                prev = ch;
+                final int inkWidth = table.inkWidth(g), inkHeight = table.inkHeight(g);
+                if (!Character.isWhitespace(ch) && inkWidth > 0 && inkHeight > 0) {
+                    quads[p] = penX + table.xOffset(g);
+                    quads[p + 1] = penY + table.yOffset(g);
+                    quads[p + 2] = inkWidth;
+                    quads[p + 3] = inkHeight;
+                    quads[p + 4] = table.s0(g);
+                    quads[p + 5] = table.t0(g);
+                    quads[p + 6] = table.s1(g);
+                    quads[p + 7] = table.t1(g);
+                    p += QUAD_SIZE;
+                }
+                penX += table.width(g) + xBorder;
+            }
+        }
+        return new TextBlock(
+                layout.width(),
+                layout.height(),
+                starts,
+                ends,
+                widths,
+                Arrays.copyOf(quads, p)
+        );
+    }
+}
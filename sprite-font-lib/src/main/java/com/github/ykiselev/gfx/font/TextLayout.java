@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import java.util.Arrays;
+
+/**
+ * Breaks text into lines fitting the specified width. Results (line start and end offsets and line widths) are kept
+ * in primitive arrays owned by this object which are reused by subsequent calls to
+ * {@link #layout(SpriteFont, CharSequence, int, int, int)} and grow only when text has more lines than ever before.
+ * <p>
+ * Lines are broken greedily at break opportunities - before spaces (trailing spaces are not counted in line width)
+ * and after hyphens, dashes and ideographs. Word which does not fit the line alone is broken at the last fitting
+ * character (surrogate pairs are never split). {@code '\n'} always ends the line, {@code '\r'} is ignored and
+ * {@code '\t'} moves pen to the next tab stop (tab stops are placed each {@code tabSize} space advances). Kerning of
+ * adjacent code points is included in line widths.
+ * <p>
+ * Note: this class is not thread safe.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class TextLayout {
+
+    private static final int DEFAULT_TAB_SIZE = 4;
+
+    private final int tabSize;
+
+    private int[] starts;
+
+    private int[] ends;
+
+    private int[] widths;
+
+    private int count;
+
+    private int lineHeight;
+
+    /**
+     * @return the number of lines
+     */
+    public int lineCount() {
+        return count;
+    }
+
+    /**
+     * @param line the line index
+     * @return the index of the first character of line (inclusive)
+     */
+    public int lineStart(int line) {
+        checkLine(line);
+        return starts[line];
+    }
+
+    /**
+     * @param line the line index
+     * @return the index of the last character of line (exclusive), trailing spaces and line terminator are excluded.
+     */
+    public int lineEnd(int line) {
+        checkLine(line);
+        return ends[line];
+    }
+
+    /**
+     * @param line the line index
+     * @return the width of line, pixels
+     */
+    public int lineWidth(int line) {
+        checkLine(line);
+        return widths[line];
+    }
+
+    /**
+     * @return the width of the widest line
+     */
+    public int width() {
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            result = Math.max(result, widths[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the total height of laid out text
+     */
+    public int height() {
+        return count * lineHeight;
+    }
+
+    public TextLayout() {
+        this(DEFAULT_TAB_SIZE);
+    }
+
+    /**
+     * @param tabSize the distance between tab stops measured in space advances
+     */
+    public TextLayout(int tabSize) {
+        if (tabSize < 1) {
+            throw new IllegalArgumentException("Tab size should be positive!");
+        }
+        this.tabSize = tabSize;
+        this.starts = new int[8];
+        this.ends = new int[8];
+        this.widths = new int[8];
+    }
+
+    /**
+     * Lays out whole text.
+     *
+     * @see #layout(SpriteFont, CharSequence, int, int, int)
+     */
+    public int layout(SpriteFont font, CharSequence text, int maxWidth) {
+        return layout(font, text, 0, text.length(), maxWidth);
+    }
+
+    /**
+     * Breaks text into lines. Previous results are discarded. Text always has at least one (possibly empty) line.
+     *
+     * @param font     the font to use
+     * @param text     the text
+     * @param from     the index of the first character (inclusive)
+     * @param to       the index of the last character (exclusive)
+     * @param maxWidth the maximum line width, pixels. Zero or negative value disables wrapping.
+     * @return the number of lines
+     */
+    public int layout(SpriteFont font, CharSequence text, int from, int to, int maxWidth) {
+        count = 0;
+        lineHeight = font.lineHeight();
+        final GlyphIndex index = font.index();
+        final KerningTable kerning = font.kerning();
+        final int limit = maxWidth > 0 ? maxWidth : Integer.MAX_VALUE;
+        final int tabWidth = Math.max(1, tabSize * font.advance(' '));
+        if (from >= to) {
+            addLine(from, from, 0);
+            return count;
+        }
+        int start = from;
+        while (start < to) {
+            int width = 0;
+            // last break opportunity: line end, line width and start of the next line
+            int breakEnd = -1, breakWidth = 0, breakNext = -1;
+            int end = to, next = to;
+            boolean spaces = false, terminated = false;
+            // previous code point on line for kerning
+            int prev = -1;
+            for (int i = start, n; i < to; i += n) {
+                final int ch = CodePoints.at(text, i, to);
+                n = Character.charCount(ch);
+                if (ch == '\n') {
+                    end = spaces ? breakEnd : i;
+                    width = spaces ? breakWidth : width;
+                    next = i + 1;
+                    spaces = false;
+                    terminated = true;
+                    break;
+                }
+                if (ch == '\r') {
+                    continue;
+                }
+                final byte cls = ch == '\t' ? GlyphIndex.BREAK_SPACE : index.breakClass(ch);
+                if (cls == GlyphIndex.BREAK_SPACE) {
+                    if (!spaces) {
+                        breakEnd = i;
+                        breakWidth = width;
+                        spaces = true;
+                    }
+                    if (ch == '\t') {
+                        width = (width / tabWidth + 1) * tabWidth;
+                        prev = -1;
+                    } else {
+                        width += font.advance(index, ch) + kerning.get(prev, ch);
+                        prev = ch;
+                    }
+                    breakNext = i + n;
+                    continue;
+                }
+                final int advance = font.advance(index, ch) + kerning.get(prev, ch);
+                if (width + advance > limit) {
+                    if (breakEnd > start) {
+                        end = breakEnd;
+                        width = breakWidth;
+                        next = breakNext;
+                    } else if (i > start) {
+                        end = i;
+                        next = i;
+                    } else {
+                        // single character wider than line
+                        end = i + n;
+                        next = i + n;
+                        width = font.advance(index, ch);
+                    }
+                    spaces = false;
+                    break;
+                }
+                spaces = false;
+                width += advance;
+                prev = ch;
+                if (cls == GlyphIndex.BREAK_AFTER) {
+                    breakEnd = i + n;
+                    breakWidth = width;
+                    breakNext = i + n;
+                }
+            }
+            if (spaces) {
+                // trailing spaces of the last line
+                end = breakEnd;
+                width = breakWidth;
+            }
+            addLine(start, end, width);
+            if (terminated && next == to) {
+                // text ends with line terminator
+                addLine(to, to, 0);
+            }
+            start = next;
+        }
+        return count;
+    }
+
+    private void addLine(int start, int end, int width) {
+        if (count == starts.length) {
+            final int capacity = 2 * count;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        widths[count] = width;
+        count++;
+    }
+
+    private void checkLine(int line) {
+        if (line < 0 || line >= count) {
+            throw new IndexOutOfBoundsException("Line " + line + " is out of range 0-" + count);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class AtlasCodecTest {
+
+    private static ByteBuffer payload(int width, int height, int... data) {
+        final ByteBuffer result = ByteBuffer.allocate(AtlasCodec.HEADER_SIZE + data.length)
+                .putInt(width)
+                .putInt(height);
+        for (int b : data) {
+            result.put((byte) b);
+        }
+        result.flip();
+        return result;
+    }
+
+    @Test
+    public void shouldFindById() throws Exception {
+        for (AtlasCodec codec : AtlasCodec.values()) {
+            assertEquals(codec, AtlasCodec.of(codec.id()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownId() throws Exception {
+        AtlasCodec.of(100);
+    }
+
+    @Test
+    public void shouldDecodeRaw() throws Exception {
+        final ByteBuffer payload = payload(3, 2, 1, 2, 3, 4, 5, 6);
+        assertEquals(3, AtlasCodec.RAW.width(payload));
+        assertEquals(2, AtlasCodec.RAW.height(payload));
+        final ByteBuffer dest = ByteBuffer.allocate(8);
+        AtlasCodec.RAW.decode(payload, dest, 4);
+        assertEquals(8, dest.position());
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3, 0, 4, 5, 6, 0}), dest.flip());
+    }
+
+    @Test
+    public void shouldSliceDirectRaw() throws Exception {
+        final ByteBuffer payload = ByteBuffer.allocateDirect(AtlasCodec.HEADER_SIZE + 4)
+                .put(payload(2, 2, 1, 2, 3, 4));
+        payload.flip();
+        final ByteBuffer pixels = AtlasCodec.RAW.decode(payload);
+        assertEquals(4, pixels.remaining());
+        assertEquals(4, pixels.get(3));
+        payload.put(AtlasCodec.HEADER_SIZE + 3, (byte) 9);
+        // no copy
+        assertEquals(9, pixels.get(3));
+    }
+
+    @Test
+    public void shouldDecodeLz() throws Exception {
+        final ByteBuffer payload = payload(
+                5, 3,
+                // 2 literals, overlapping match at offset 2 of length 4 + 1
+                0x21, 7, 8, 0, 2,
+                // 3 literals, match at offset 5 of length 4 + 0
+                0x30, 1, 2, 3, 0, 5,
+                // last sequence, 1 literal
+                0x10, 9
+        );
+        final ByteBuffer pixels = AtlasCodec.LZ.decode(payload);
+        assertEquals(
+                ByteBuffer.wrap(new byte[]{7, 8, 7, 8, 7, 8, 7, 1, 2, 3, 8, 7, 1, 2, 9}),
+                pixels
+        );
+    }
+
+    @Test
+    public void shouldDecodeLongLengths() throws Exception {
+        final int[] data = new int[25];
+        // 15 + 3 literals, match length is 4 + 15 + 255 + 2
+        data[0] = 0xff;
+        data[1] = 3;
+        // offset
+        data[20] = 0;
+        data[21] = 1;
+        data[22] = 255;
+        data[23] = 2;
+        // last sequence without literals
+        data[24] = 0;
+        final ByteBuffer pixels = AtlasCodec.LZ.decode(payload(18 + 276, 1, data));
+        assertEquals(18 + 276, pixels.remaining());
+        while (pixels.hasRemaining()) {
+            assertEquals(0, pixels.get());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectBadMatch() throws Exception {
+        AtlasCodec.LZ.decode(payload(4, 4, 0x10, 1, 0, 5));
+    }
+
+    @Test
+    public void shouldRejectBadHeader() throws Exception {
+        final ByteBuffer[] payloads = {
+                ByteBuffer.wrap(new byte[]{0, 0, 0}),
+                payload(0, 4),
+                payload(-1, 4, 1, 2, 3, 4),
+                payload(0x7f000000, 0x7f000000, 1, 2, 3, 4)
+        };
+        for (AtlasCodec codec : new AtlasCodec[]{AtlasCodec.RAW, AtlasCodec.LZ}) {
+            for (ByteBuffer payload : payloads) {
+                try {
+                    codec.decode(payload);
+                    fail(codec + " should reject header!");
+                } catch (IOException e) {
+                    assertEquals("Malformed image header!", e.getMessage());
+                }
+                try {
+                    codec.decode(payload, ByteBuffer.allocate(16), 1);
+                    fail(codec + " should reject header!");
+                } catch (IOException e) {
+                    assertEquals("Malformed image header!", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldSliceDirectRawWithBadHeader() throws Exception {
+        final ByteBuffer payload = ByteBuffer.allocateDirect(AtlasCodec.HEADER_SIZE)
+                .putInt(0x10000)
+                .putInt(0x10000);
+        payload.flip();
+        try {
+            AtlasCodec.RAW.decode(payload);
+            fail("Huge image should be rejected!");
+        } catch (IOException e) {
+            assertEquals("Malformed image header!", e.getMessage());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectShortRaw() throws Exception {
+        AtlasCodec.RAW.decode(payload(4, 4, 1, 2, 3));
+    }
+
+    @Test
+    public void shouldUseCodecOfFont() throws Exception {
+        final SpriteFont font = new SpriteFont(
+                10,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(new Glyph[]{new Glyph('?', 0, 0, (short) 2)})
+                },
+                new byte[]{0, 0, 0, 2, 0, 0, 0, 1, 5, 6},
+                AtlasCodec.RAW,
+                0,
+                0
+        );
+        assertEquals(2, font.glyphTable().atlasWidth());
+        assertEquals(1, font.glyphTable().atlasHeight());
+        assertEquals(ByteBuffer.wrap(new byte[]{5, 6}), font.pixels());
+        assertTrue(font.pixels().isReadOnly());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class DynamicGlyphAtlasTest {
+
+    private final SpriteFont font = TestFonts.proportional();
+
+    private int rasterized;
+
+    /**
+     * Fills 4x6 ink rectangle at (1, 2) of slot with 0xff, code points above 0x10000 are not supported.
+     */
+    private final DynamicGlyphAtlas.Rasterizer rasterizer = (codePoint, slot, stride, width, height) -> {
+        rasterized++;
+        if (codePoint > 0xffff) {
+            return null;
+        }
+        for (int y = 2; y < 8; y++) {
+            for (int x = 1; x < 5; x++) {
+                slot.put(slot.position() + y * stride + x, (byte) 0xff);
+            }
+        }
+        return new Glyph(codePoint, 1, 2, (short) 6, (short) 0, (short) 1, (short) 4, (short) 6);
+    };
+
+    /**
+     * Five 10x10 slots in one row under the 64x32 font image.
+     */
+    private DynamicGlyphAtlas atlas() {
+        return new DynamicGlyphAtlas(font, 64, 48, 10, 10, rasterizer);
+    }
+
+    @Test
+    public void shouldCopyFontImage() throws Exception {
+        final DynamicGlyphAtlas atlas = atlas();
+        assertEquals(5, atlas.slots());
+        final ByteBuffer pixels = atlas.pixels();
+        assertEquals(64 * 48, pixels.remaining());
+        assertEquals(0, pixels.get(0));
+        assertEquals(63 + 31, pixels.get(31 * 64 + 63));
+        assertEquals(7, pixels.get(3 * 64 + 4));
+        assertEquals(0, pixels.get(40 * 64 + 5));
+        assertEquals(1, atlas.dirtyCount());
+        assertEquals(0, atlas.dirtyX(0));
+        assertEquals(0, atlas.dirtyY(0));
+        assertEquals(64, atlas.dirtyWidth(0));
+        assertEquals(48, atlas.dirtyHeight(0));
+    }
+
+    @Test
+    public void shouldReturnFontGlyphs() throws Exception {
+        final DynamicGlyphAtlas atlas = atlas();
+        assertSame(font.glyph('a'), atlas.glyph('a'));
+        assertEquals(0, rasterized);
+        assertEquals(0, atlas.usedSlots());
+    }
+
+    @Test
+    public void shouldRasterizeMissingGlyphOnce() throws Exception {
+        final DynamicGlyphAtlas atlas = atlas();
+        atlas.clearDirty();
+        final Glyph glyph = atlas.glyph('\u4e2d');
+        assertEquals(new Glyph('\u4e2d', 2, 35, (short) 6, (short) 0, (short) 1, (short) 4, (short) 6), glyph);
+        assertSame(glyph, atlas.glyph('\u4e2d'));
+        assertEquals(1, rasterized);
+        assertEquals(1, atlas.hits());
+        assertEquals(1, atlas.misses());
+        final ByteBuffer pixels = atlas.pixels();
+        assertEquals((byte) 0xff, pixels.get(35 * 64 + 2));
+        assertEquals(0, pixels.get(35 * 64 + 1));
+        assertEquals(1, atlas.dirtyCount());
+        assertEquals(1, atlas.dirtyX(0));
+        assertEquals(33, atlas.dirtyY(0));
+        assertEquals(10, atlas.dirtyWidth(0));
+        assertEquals(10, atlas.dirtyHeight(0));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws Exception {
+        final DynamicGlyphAtlas atlas = atlas();
+        for (int i = 0; i < 5; i++) {
+            atlas.glyph(0x4e00 + i);
+        }
+        atlas.beginFrame();
+        atlas.glyph(0x4e00);
+        final Glyph evicted = atlas.glyph(0x4e01);
+        atlas.clearDirty();
+        atlas.glyph(0x4e10);
+        assertEquals(1, atlas.evictions());
+        assertEquals(5, atlas.usedSlots());
+        // 0x4e02 was used least recently, its slot is reused
+        assertEquals(24, atlas.glyph(0x4e10).x());
+        assertEquals(1, atlas.dirtyCount());
+        assertEquals(23, atlas.dirtyX(0));
+        assertSame(evicted, atlas.glyph(0x4e01));
+        assertEquals(6, rasterized);
+        atlas.glyph(0x4e02);
+        assertEquals(7, rasterized);
+    }
+
+    @Test
+    public void shouldNotEvictGlyphsOfCurrentFrame() throws Exception {
+        final DynamicGlyphAtlas atlas = atlas();
+        for (int i = 0; i < 5; i++) {
+            atlas.glyph(0x4e00 + i);
+        }
+        assertSame(font.defaultGlyph(), atlas.glyph(0x4e10));
+        assertEquals(0, atlas.evictions());
+        atlas.beginFrame();
+        assertNotSame(font.defaultGlyph(), atlas.glyph(0x4e10));
+        assertEquals(1, atlas.evictions());
+    }
+
+    @Test
+    public void shouldReturnDefaultGlyphIfNotSupported() throws Exception {
+        final DynamicGlyphAtlas atlas = atlas();
+        assertSame(font.defaultGlyph(), atlas.glyph(0x1f600));
+        assertEquals(0, atlas.usedSlots());
+        for (int i = 0; i < 5; i++) {
+            atlas.glyph(0x4e00 + i);
+        }
+        atlas.beginFrame();
+        assertSame(font.defaultGlyph(), atlas.glyph(0x1f600));
+        assertEquals(1, atlas.evictions());
+        assertEquals(2, atlas.glyph(0x4e10).x());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldCheckGlyphFitsSlot() throws Exception {
+        new DynamicGlyphAtlas(font, 64, 48, 10, 10, (codePoint, slot, stride, width, height) ->
+                new Glyph(codePoint, 8, 0, (short) 6, (short) 0, (short) 0, (short) 4, (short) 6)
+        ).glyph(0x4e00);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireSlots() throws Exception {
+        new DynamicGlyphAtlas(font, 64, 40, 10, 10, rasterizer);
+    }
+}
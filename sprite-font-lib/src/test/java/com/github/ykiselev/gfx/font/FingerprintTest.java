@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class FingerprintTest {
+
+    @Test
+    public void shouldBeStable() throws Exception {
+        // fingerprints are stored in font files, so hash function should never change
+        assertEquals(
+                -7636840724564810331L,
+                new Fingerprint()
+                        .add(1)
+                        .add(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11}))
+                        .value()
+        );
+    }
+
+    @Test
+    public void shouldDistinguishTrailingZeros() throws Exception {
+        assertNotEquals(
+                new Fingerprint().add(ByteBuffer.wrap(new byte[]{1, 2})).value(),
+                new Fingerprint().add(ByteBuffer.wrap(new byte[]{1, 2, 0})).value()
+        );
+    }
+
+    @Test
+    public void shouldDependOnOrder() throws Exception {
+        assertNotEquals(
+                new Fingerprint().add(1).add(2).value(),
+                new Fingerprint().add(2).add(1).value()
+        );
+    }
+}
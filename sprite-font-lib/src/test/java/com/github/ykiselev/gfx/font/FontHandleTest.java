@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class FontHandleTest {
+
+    @Test
+    public void shouldSwapFont() throws Exception {
+        final SpriteFont first = TestFonts.proportional();
+        final SpriteFont second = TestFonts.kerned();
+        final FontHandle handle = new FontHandle(first);
+        final List<SpriteFont> changes = new ArrayList<>();
+        handle.addListener((h, previous, current) -> {
+            assertSame(handle, h);
+            changes.add(previous);
+            changes.add(current);
+        });
+        assertSame(first, handle.get());
+        assertEquals(0, handle.version());
+        assertTrue(handle.set(second));
+        assertSame(second, handle.get());
+        assertEquals(1, handle.version());
+        assertEquals(2, changes.size());
+        assertSame(first, changes.get(0));
+        assertSame(second, changes.get(1));
+    }
+
+    @Test
+    public void shouldNotSwapSameContent() throws Exception {
+        final FontHandle handle = new FontHandle(TestFonts.proportional());
+        final List<SpriteFont> changes = new ArrayList<>();
+        handle.addListener((h, previous, current) -> changes.add(current));
+        assertFalse(handle.set(TestFonts.proportional()));
+        assertEquals(0, handle.version());
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void shouldRemoveListener() throws Exception {
+        final FontHandle handle = new FontHandle(TestFonts.proportional());
+        final List<SpriteFont> changes = new ArrayList<>();
+        final FontHandle.Listener listener = (h, previous, current) -> changes.add(current);
+        handle.addListener(listener);
+        handle.removeListener(listener);
+        assertTrue(handle.set(TestFonts.kerned()));
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void shouldNotifyAllListenersIfOneFails() throws Exception {
+        final FontHandle handle = new FontHandle(TestFonts.proportional());
+        final List<SpriteFont> changes = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+        final FontHandle.Listener failing = new FontHandle.Listener() {
+            @Override
+            public void fontChanged(FontHandle handle, SpriteFont previous, SpriteFont current) {
+                throw new IllegalStateException("change");
+            }
+
+            @Override
+            public void reloadFailed(FontHandle handle, Exception error) {
+                throw new IllegalStateException("failure");
+            }
+        };
+        handle.addListener(failing);
+        handle.addListener(new FontHandle.Listener() {
+            @Override
+            public void fontChanged(FontHandle handle, SpriteFont previous, SpriteFont current) {
+                changes.add(current);
+            }
+
+            @Override
+            public void reloadFailed(FontHandle handle, Exception error) {
+                errors.add(error);
+            }
+        });
+        final SpriteFont kerned = TestFonts.kerned();
+        assertTrue(handle.set(kerned));
+        assertEquals(1, changes.size());
+        assertSame(kerned, changes.get(0));
+        final Exception error = new Exception();
+        handle.reloadFailed(error);
+        assertEquals(1, errors.size());
+        assertSame(error, errors.get(0));
+    }
+}
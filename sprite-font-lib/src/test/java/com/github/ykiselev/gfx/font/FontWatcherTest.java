@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class FontWatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void write(Path path, SpriteFont font) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(path))) {
+            oos.writeObject(font);
+        }
+    }
+
+    @Test
+    public void shouldReloadChangedFont() throws Exception {
+        final Path path = folder.getRoot().toPath().resolve("font.sf");
+        write(path, TestFonts.proportional());
+        try (FontWatcher watcher = new FontWatcher(50)) {
+            final FontHandle handle = watcher.watch(path);
+            assertSame(handle, watcher.watch(path));
+            assertEquals(TestFonts.proportional(), handle.get());
+            final CountDownLatch latch = new CountDownLatch(1);
+            handle.addListener((h, previous, current) -> latch.countDown());
+            write(path, TestFonts.kerned());
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(TestFonts.kerned(), handle.get());
+            assertEquals(1, handle.version());
+        }
+    }
+
+    @Test
+    public void shouldKeepFontIfReloadFailed() throws Exception {
+        final Path path = folder.getRoot().toPath().resolve("font.sf");
+        write(path, TestFonts.proportional());
+        try (FontWatcher watcher = new FontWatcher(50)) {
+            final FontHandle handle = watcher.watch(path);
+            final SpriteFont font = handle.get();
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AtomicReference<Exception> error = new AtomicReference<>();
+            handle.addListener(new FontHandle.Listener() {
+                @Override
+                public void fontChanged(FontHandle handle, SpriteFont previous, SpriteFont current) {
+                }
+
+                @Override
+                public void reloadFailed(FontHandle handle, Exception e) {
+                    error.set(e);
+                    latch.countDown();
+                }
+            });
+            Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertTrue(error.get() instanceof IOException);
+            assertSame(font, handle.get());
+            assertEquals(0, handle.version());
+        }
+    }
+
+    @Test
+    public void shouldKeepWatchingIfListenerFails() throws Exception {
+        final Path path = folder.getRoot().toPath().resolve("font.sf");
+        write(path, TestFonts.proportional());
+        try (FontWatcher watcher = new FontWatcher(50)) {
+            final FontHandle handle = watcher.watch(path);
+            final CountDownLatch failed = new CountDownLatch(1);
+            final CountDownLatch changed = new CountDownLatch(1);
+            handle.addListener(new FontHandle.Listener() {
+                @Override
+                public void fontChanged(FontHandle handle, SpriteFont previous, SpriteFont current) {
+                    changed.countDown();
+                    throw new IllegalStateException("change");
+                }
+
+                @Override
+                public void reloadFailed(FontHandle handle, Exception e) {
+                    failed.countDown();
+                    throw new IllegalStateException("failure");
+                }
+            });
+            Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            assertTrue(failed.await(10, TimeUnit.SECONDS));
+            write(path, TestFonts.kerned());
+            assertTrue(changed.await(10, TimeUnit.SECONDS));
+            assertEquals(TestFonts.kerned(), handle.get());
+            assertEquals(1, handle.version());
+        }
+    }
+}
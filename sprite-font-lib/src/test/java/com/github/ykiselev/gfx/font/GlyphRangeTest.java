@@ -25,6 +25,8 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Yuriy Kiselev (uze@yandex.ru).
@@ -55,4 +57,68 @@ public class GlyphRangeTest {
         assertEquals(range, result);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldSerializeSupplementaryCodePoints() throws Exception {
+        final GlyphRange range = new GlyphRange(
+                new Glyph[]{
+                        new Glyph('a', 1, 2, (short) 3),
+                        new Glyph(0x1f600, 4, 5, (short) 6),
+                        new Glyph(Character.MAX_CODE_POINT, 7, 8, (short) 9)
+                }
+        );
+        final byte[] bytes;
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream(); ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(range);
+            bytes = os.toByteArray();
+        }
+        final GlyphRange result;
+        try (InputStream is = new ByteArrayInputStream(bytes); ObjectInputStream ois = new ObjectInputStream(is)) {
+            result = (GlyphRange) ois.readObject();
+        }
+        assertEquals(range, result);
+    }
+
+    @Test
+    public void shouldSerializeInkBounds() throws Exception {
+        final GlyphRange range = new GlyphRange(
+                new Glyph[]{
+                        new Glyph('a', 1, 2, (short) 3),
+                        new Glyph('b', 4, 5, (short) 6, (short) -1, (short) 2, (short) 7, (short) 8),
+                        new Glyph(' ', 0, 0, (short) 4, (short) 0, (short) 0, (short) 0, (short) 0)
+                }
+        );
+        final byte[] bytes;
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream(); ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(range);
+            bytes = os.toByteArray();
+        }
+        final GlyphRange result;
+        try (InputStream is = new ByteArrayInputStream(bytes); ObjectInputStream ois = new ObjectInputStream(is)) {
+            result = (GlyphRange) ois.readObject();
+        }
+        assertEquals(range, result);
+        assertFalse(result.glyphs()[0].hasInkBounds());
+    }
+
+    @Test
+    public void shouldMaterializeGrid() throws Exception {
+        final GlyphRange range = GlyphRange.grid('a', 5, 1, 2, 2, 7, 12, (short) 6);
+        assertTrue(range.isGrid());
+        assertFalse(range.isMaterialized());
+        assertEquals(8, range.glyphX(3));
+        assertEquals(26, range.glyphY(4));
+        assertEquals(
+                new GlyphRange(
+                        new Glyph[]{
+                                new Glyph('a', 1, 2, (short) 6),
+                                new Glyph('b', 8, 2, (short) 6),
+                                new Glyph('c', 1, 14, (short) 6),
+                                new Glyph('d', 8, 14, (short) 6),
+                                new Glyph('e', 1, 26, (short) 6)
+                        }
+                ),
+                range
+        );
+        assertFalse(new GlyphRange(range.glyphs()).isGrid());
+    }
+}
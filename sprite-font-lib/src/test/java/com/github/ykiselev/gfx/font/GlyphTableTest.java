@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class GlyphTableTest {
+
+    private static final float DELTA = 1e-6f;
+
+    @Test
+    public void shouldPackGlyphs() throws Exception {
+        final SpriteFont font = TestFonts.proportional();
+        final GlyphTable table = font.glyphTable();
+        assertSame(table, font.glyphTable());
+        assertEquals(8, table.size());
+        assertEquals(TestFonts.ATLAS_WIDTH, table.atlasWidth());
+        assertEquals(TestFonts.ATLAS_HEIGHT, table.atlasHeight());
+        assertEquals(TestFonts.FONT_HEIGHT, table.height());
+        final int d = table.indexOf('d');
+        assertEquals('d', table.codePoint(d));
+        assertEquals(22, table.x(d));
+        assertEquals(1, table.y(d));
+        assertEquals(5, table.width(d));
+        assertEquals(22f / 64, table.s0(d), DELTA);
+        assertEquals(1f / 32, table.t0(d), DELTA);
+        assertEquals(27f / 64, table.s1(d), DELTA);
+        assertEquals(11f / 32, table.t1(d), DELTA);
+    }
+
+    @Test
+    public void shouldFallBackToDefault() throws Exception {
+        final GlyphTable table = TestFonts.proportional().glyphTable();
+        assertTrue(table.contains('?'));
+        assertFalse(table.contains('z'));
+        assertEquals('?', table.codePoint(table.defaultIndex()));
+        assertEquals(table.defaultIndex(), table.indexOf('z'));
+    }
+
+    @Test
+    public void shouldUseCharacterWidthForFixedPitchFont() throws Exception {
+        final SpriteFont font = new SpriteFont(
+                10,
+                'a',
+                6,
+                new GlyphRange[]{
+                        new GlyphRange(new Glyph[]{new Glyph('a', 0, 0, (short) 0)})
+                },
+                TestFonts.png(8, 16),
+                0,
+                0
+        );
+        final GlyphTable table = font.glyphTable();
+        assertEquals(6, table.width(0));
+        assertEquals(6f / 8, table.s1(0), DELTA);
+        assertEquals(10f / 16, table.t1(0), DELTA);
+    }
+
+    @Test
+    public void shouldWriteByteBuffer() throws Exception {
+        final GlyphTable table = TestFonts.proportional().glyphTable();
+        final ByteBuffer buffer = table.toByteBuffer();
+        assertTrue(buffer.isDirect());
+        assertEquals(ByteOrder.nativeOrder(), buffer.order());
+        assertEquals(0, buffer.position());
+        assertEquals(table.size() * GlyphTable.RECORD_SIZE, buffer.limit());
+        final int e = table.indexOf('e');
+        buffer.position(e * GlyphTable.RECORD_SIZE);
+        assertEquals(28, buffer.getInt());
+        assertEquals(1, buffer.getInt());
+        assertEquals(6, buffer.getInt());
+        assertEquals(TestFonts.FONT_HEIGHT, buffer.getInt());
+        assertEquals(table.s0(e), buffer.getFloat(), 0);
+        assertEquals(table.t0(e), buffer.getFloat(), 0);
+        assertEquals(table.s1(e), buffer.getFloat(), 0);
+        assertEquals(table.t1(e), buffer.getFloat(), 0);
+        assertEquals(0, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(6, buffer.getInt());
+        assertEquals(TestFonts.FONT_HEIGHT, buffer.getInt());
+    }
+
+    @Test
+    public void shouldUseInkBounds() throws Exception {
+        final GlyphTable table = TestFonts.inked().glyphTable();
+        final int a = table.indexOf('a');
+        assertEquals(5, table.width(a));
+        assertEquals(1, table.xOffset(a));
+        assertEquals(4, table.yOffset(a));
+        assertEquals(3, table.inkWidth(a));
+        assertEquals(5, table.inkHeight(a));
+        assertEquals(5f / 16, table.s0(a), DELTA);
+        assertEquals(0f, table.t0(a), DELTA);
+        assertEquals(8f / 16, table.s1(a), DELTA);
+        assertEquals(5f / 16, table.t1(a), DELTA);
+        final int space = table.indexOf(' ');
+        assertEquals(0, table.inkWidth(space));
+        assertEquals(0, table.inkHeight(space));
+        // glyph without ink bounds occupies whole cell
+        final int b = table.indexOf('b');
+        assertEquals(0, table.xOffset(b));
+        assertEquals(0, table.yOffset(b));
+        assertEquals(4, table.inkWidth(b));
+        assertEquals(TestFonts.FONT_HEIGHT, table.inkHeight(b));
+        assertEquals(13f / 16, table.s1(b), DELTA);
+        assertEquals(10f / 16, table.t1(b), DELTA);
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void shouldNotOverflow() throws Exception {
+        final GlyphTable table = TestFonts.proportional().glyphTable();
+        table.write(ByteBuffer.allocate(GlyphTable.RECORD_SIZE));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class KerningTableTest {
+
+    @Test
+    public void shouldFindPairs() throws Exception {
+        final KerningTable table = new KerningTable(
+                new int[]{'A', 'V', 'A', 0x1f600},
+                new int[]{'V', 'A', 'V', 'A'},
+                new short[]{-2, -1, -3, 4}
+        );
+        assertEquals(4, table.size());
+        // last value wins
+        assertEquals(-3, table.get('A', 'V'));
+        assertEquals(-1, table.get('V', 'A'));
+        assertEquals(4, table.get(0x1f600, 'A'));
+        assertEquals(0, table.get('A', 'A'));
+        assertEquals(0, table.get(-1, 'A'));
+        assertEquals('V', table.left(1));
+        assertEquals('A', table.right(1));
+        assertEquals(-1, table.amount(1));
+    }
+
+    @Test
+    public void shouldHandleManyPairs() throws Exception {
+        final int n = 300;
+        final int[] lefts = new int[n * n];
+        final int[] rights = new int[n * n];
+        final short[] amounts = new short[n * n];
+        for (int i = 0; i < n * n; i++) {
+            lefts[i] = 32 + i / n;
+            rights[i] = 32 + i % n;
+            amounts[i] = (short) (i % 7 - 3);
+        }
+        final KerningTable table = new KerningTable(lefts, rights, amounts);
+        for (int i = 0; i < n * n; i++) {
+            assertEquals(amounts[i], table.get(lefts[i], rights[i]));
+        }
+        assertEquals(0, table.get(32 + n, 32));
+    }
+
+    @Test
+    public void shouldBeEmpty() throws Exception {
+        assertTrue(KerningTable.EMPTY.isEmpty());
+        assertEquals(0, KerningTable.EMPTY.get('A', 'V'));
+    }
+
+    @Test
+    public void shouldSerialize() throws Exception {
+        final KerningTable table = new KerningTable(new int[]{'A'}, new int[]{'V'}, new short[]{-2});
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(table);
+        }
+        final KerningTable result;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(os.toByteArray()))) {
+            result = (KerningTable) ois.readObject();
+        }
+        assertEquals(table, result);
+        assertEquals(-2, result.get('A', 'V'));
+    }
+}
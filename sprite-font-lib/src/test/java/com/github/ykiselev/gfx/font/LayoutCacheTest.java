@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class LayoutCacheTest {
+
+    private final SpriteFont font = TestFonts.kerned();
+
+    @Test
+    public void shouldCache() throws Exception {
+        final LayoutCache cache = new LayoutCache(8);
+        final TextBlock block = cache.get(font, "abc de", 0);
+        assertSame(block, cache.get(font, "abc de", 0));
+        assertSame(block, cache.get(TestFonts.kerned(), "abc de", -1));
+        assertNotSame(block, cache.get(font, "abc de", 12));
+        assertNotSame(block, cache.get(TestFonts.proportional(), "abc de", 0));
+        assertEquals(2, cache.hits());
+        assertEquals(3, cache.misses());
+        assertEquals(0.4, cache.hitRate(), 1e-9);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws Exception {
+        final LayoutCache cache = new LayoutCache(2);
+        final TextBlock a = cache.get(font, "a", 0);
+        cache.get(font, "b", 0);
+        cache.get(font, "a", 0);
+        cache.get(font, "c", 0);
+        assertEquals(1, cache.evictions());
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get(font, "a", 0));
+        cache.get(font, "b", 0);
+        assertEquals(4, cache.misses());
+    }
+
+    @Test
+    public void shouldMatchLayout() throws Exception {
+        final String text = "abc de\nabcde";
+        final TextLayout layout = new TextLayout();
+        layout.layout(font, text, 16);
+        final TextBlock block = new LayoutCache(1).get(font, text, 16);
+        assertEquals(layout.lineCount(), block.lineCount());
+        for (int i = 0; i < layout.lineCount(); i++) {
+            assertEquals(layout.lineStart(i), block.lineStart(i));
+            assertEquals(layout.lineEnd(i), block.lineEnd(i));
+            assertEquals(layout.lineWidth(i), block.lineWidth(i));
+        }
+        assertEquals(layout.width(), block.width());
+        assertEquals(layout.height(), block.height());
+    }
+
+    @Test
+    public void shouldWriteSameQuadsAsText() throws Exception {
+        final TextBatch expected = new TextBatch(TextBatch.Mode.QUADS, true, 4);
+        expected.append(font, "ab c\nbc", 0, 7, 10, 20, 0x11223344);
+        final TextBlock block = new LayoutCache(1).get(font, "ab c\nbc", 0);
+        assertEquals(5, block.glyphCount());
+        final TextBatch actual = new TextBatch(TextBatch.Mode.QUADS, true, 1);
+        assertEquals(5, actual.append(block, 10, 20, 0x11223344));
+        assertEquals(expected.vertices(), actual.vertices());
+        assertEquals(expected.indices(), actual.indices());
+    }
+
+    @Test
+    public void shouldPlaceInkRectangles() throws Exception {
+        final SpriteFont inked = TestFonts.inked();
+        final TextBatch expected = new TextBatch(TextBatch.Mode.INSTANCES, false, 4);
+        expected.append(inked, "a ?b", 0, 4, 0, 0, 0);
+        final TextBatch actual = new TextBatch(TextBatch.Mode.INSTANCES, false, 4);
+        actual.append(new LayoutCache(1).get(inked, "a ?b", 0), 0, 0, 0);
+        assertEquals(expected.vertices(), actual.vertices());
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class LineMeasureTest {
+
+    private final LineMeasure measure = new LineMeasure();
+
+    @Test
+    public void shouldMeasure() throws Exception {
+        final SpriteFont font = TestFonts.proportional();
+        assertEquals(25, measure.measure(font, "abcde"));
+        assertEquals(5, measure.count());
+        assertEquals(25, measure.width());
+        final int[] expected = {0, 3, 7, 12, 18, 25};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], measure.position(i));
+            assertEquals(i, measure.offset(i));
+        }
+        assertEquals(font.width("abc"), measure.position(3));
+    }
+
+    @Test
+    public void shouldMeasureKerned() throws Exception {
+        final SpriteFont font = TestFonts.kerned();
+        assertEquals(font.width("abc"), measure.measure(font, "abc"));
+        assertEquals(3, measure.position(1));
+        assertEquals(6, measure.position(2));
+        assertEquals(9, measure.position(3));
+    }
+
+    @Test
+    public void shouldMeasureFixedPitch() throws Exception {
+        assertEquals(18, measure.measure(TestFonts.fixedPitch(), "abc"));
+        assertEquals(12, measure.position(2));
+        assertEquals(18, measure.ellipsisWidth());
+    }
+
+    @Test
+    public void shouldMeasureRange() throws Exception {
+        assertEquals(9, measure.measure(TestFonts.proportional(), "xxbcxx", 2, 4));
+        assertEquals(2, measure.count());
+        assertEquals(2, measure.offset(0));
+        assertEquals(4, measure.offset(2));
+    }
+
+    @Test
+    public void shouldNotSplitSurrogatePairs() throws Exception {
+        measure.measure(TestFonts.proportional(), "a\ud83d\ude00b");
+        assertEquals(3, measure.count());
+        assertEquals(3, measure.offset(2));
+        assertEquals(8, measure.position(2));
+        assertEquals(3, measure.hitTest(7));
+        assertEquals(1, measure.characterAt(7));
+    }
+
+    @Test
+    public void shouldHitTest() throws Exception {
+        measure.measure(TestFonts.proportional(), "abcde");
+        assertEquals(0, measure.hitTest(-5));
+        assertEquals(0, measure.hitTest(1));
+        assertEquals(1, measure.hitTest(2));
+        assertEquals(1, measure.hitTest(4));
+        assertEquals(2, measure.hitTest(6));
+        assertEquals(5, measure.hitTest(100));
+        assertEquals(-1, measure.characterAt(-1));
+        assertEquals(0, measure.characterAt(0));
+        assertEquals(1, measure.characterAt(5));
+        assertEquals(4, measure.characterAt(24));
+        assertEquals(-1, measure.characterAt(25));
+    }
+
+    @Test
+    public void shouldFit() throws Exception {
+        measure.measure(TestFonts.proportional(), "abcde");
+        assertEquals(0, measure.fit(-1));
+        assertEquals(0, measure.fit(2));
+        assertEquals(2, measure.fit(11));
+        assertEquals(3, measure.fit(12));
+        assertEquals(5, measure.fit(100));
+    }
+
+    @Test
+    public void shouldEllipsizeWithDots() throws Exception {
+        measure.measure(TestFonts.proportional(), "abcde");
+        assertEquals("...", measure.ellipsis());
+        assertEquals(15, measure.ellipsisWidth());
+        assertEquals(5, measure.ellipsize(25));
+        assertEquals(2, measure.ellipsize(24));
+        assertEquals(0, measure.ellipsize(14));
+    }
+
+    @Test
+    public void shouldDropSpacesBeforeEllipsis() throws Exception {
+        measure.measure(TestFonts.proportional(), "ab cde");
+        assertEquals(2, measure.ellipsize(26));
+    }
+
+    @Test
+    public void shouldEllipsizeWithGlyph() throws Exception {
+        final SpriteFont font = new SpriteFont(
+                TestFonts.FONT_HEIGHT,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('?', 1, 1, (short) 4),
+                                        new Glyph('a', 6, 1, (short) 2)
+                                }
+                        ),
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('\u2026', 9, 1, (short) 5)
+                                }
+                        )
+                },
+                TestFonts.png(TestFonts.ATLAS_WIDTH, TestFonts.ATLAS_HEIGHT),
+                1,
+                1
+        );
+        measure.measure(font, "aaaaa");
+        assertEquals("\u2026", measure.ellipsis());
+        assertEquals(6, measure.ellipsisWidth());
+        assertEquals(1, measure.ellipsize(11));
+        assertEquals(2, measure.ellipsize(12));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldFailOnBadBoundary() throws Exception {
+        measure.measure(TestFonts.proportional(), "ab");
+        measure.position(3);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class PngDecoderTest {
+
+    @Test
+    public void shouldReadSize() throws Exception {
+        final ByteBuffer png = ByteBuffer.wrap(TestFonts.png(37, 11));
+        assertEquals(37, PngDecoder.width(png));
+        assertEquals(11, PngDecoder.height(png));
+        assertEquals(0, png.position());
+    }
+
+    @Test
+    public void shouldDecode() throws Exception {
+        final ByteBuffer pixels = PngDecoder.decode(ByteBuffer.wrap(TestFonts.png(64, 32)));
+        assertEquals(64 * 32, pixels.remaining());
+        for (int y = 0; y < 32; y++) {
+            for (int x = 0; x < 64; x++) {
+                assertEquals((x + y) & 0xff, pixels.get(y * 64 + x) & 0xff);
+            }
+        }
+    }
+
+    @Test
+    public void shouldDecodeNoise() throws Exception {
+        // random rows make png writer to use different filter types
+        final BufferedImage image = new BufferedImage(97, 53, BufferedImage.TYPE_BYTE_GRAY);
+        final Random random = new Random(1);
+        for (int y = 0; y < image.getHeight(); y++) {
+            final boolean smooth = random.nextBoolean();
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.getRaster().setSample(x, y, 0, smooth ? x * y : random.nextInt(256));
+            }
+        }
+        final ByteBuffer pixels = PngDecoder.decode(ByteBuffer.wrap(write(image)).asReadOnlyBuffer());
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                assertEquals(image.getRaster().getSample(x, y, 0), pixels.get(y * 97 + x) & 0xff);
+            }
+        }
+    }
+
+    @Test
+    public void shouldAlignRows() throws Exception {
+        final ByteBuffer dest = ByteBuffer.allocate(2 + 8 * 3);
+        dest.position(2);
+        PngDecoder.decode(ByteBuffer.wrap(TestFonts.png(5, 3)), dest, 4);
+        assertEquals(2 + 8 * 3, dest.position());
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 5; x++) {
+                assertEquals(x + y, dest.get(2 + y * 8 + x));
+            }
+            for (int x = 5; x < 8; x++) {
+                assertEquals(0, dest.get(2 + y * 8 + x));
+            }
+        }
+    }
+
+    @Test
+    public void shouldCalculateStride() throws Exception {
+        assertEquals(5, PngDecoder.stride(5, 1));
+        assertEquals(8, PngDecoder.stride(5, 4));
+        assertEquals(8, PngDecoder.stride(8, 8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBadAlignment() throws Exception {
+        PngDecoder.stride(5, 3);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectColourImages() throws Exception {
+        PngDecoder.decode(
+                ByteBuffer.wrap(
+                        write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB))
+                )
+        );
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectTruncatedImages() throws Exception {
+        final byte[] png = TestFonts.png(64, 32);
+        final ByteBuffer buffer = ByteBuffer.wrap(png);
+        buffer.limit(png.length / 2);
+        PngDecoder.decode(buffer);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectTruncatedHeader() throws Exception {
+        PngDecoder.decode(ByteBuffer.wrap(new byte[]{(byte) 137, 80, 78}));
+    }
+
+    @Test
+    public void shouldRejectHugeImages() throws Exception {
+        final ByteBuffer png = ByteBuffer.wrap(TestFonts.png(4, 4));
+        png.putInt(16, 0x7f000000).putInt(20, 0x7f000000);
+        try {
+            PngDecoder.decode(png);
+            fail("Huge image should be rejected!");
+        } catch (IOException e) {
+            assertEquals("Malformed png image!", e.getMessage());
+        }
+        try {
+            PngDecoder.decode(png, ByteBuffer.allocate(16), 1);
+            fail("Huge image should be rejected!");
+        } catch (IOException e) {
+            assertEquals("Malformed png image!", e.getMessage());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectEmptyImages() throws Exception {
+        final ByteBuffer png = ByteBuffer.wrap(TestFonts.png(4, 4));
+        png.putInt(16, 0);
+        PngDecoder.decode(png);
+    }
+
+    private static byte[] write(BufferedImage image) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", os);
+        return os.toByteArray();
+    }
+}
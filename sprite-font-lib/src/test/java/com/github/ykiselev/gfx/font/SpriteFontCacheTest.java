@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class SpriteFontCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SpriteFont font = TestFonts.proportional();
+
+    private final long weight = SpriteFontCache.weigh(font);
+
+    @Test
+    public void shouldWeighGlyphsAndImage() throws Exception {
+        assertTrue(weight > TestFonts.ATLAS_WIDTH * TestFonts.ATLAS_HEIGHT + font.image().length);
+        assertTrue(SpriteFontCache.weigh(TestFonts.kerned()) > weight);
+    }
+
+    @Test
+    public void shouldCache() throws Exception {
+        final SpriteFontCache cache = new SpriteFontCache(1024 * 1024);
+        final AtomicInteger loads = new AtomicInteger();
+        final SpriteFontCache.Loader loader = () -> {
+            loads.incrementAndGet();
+            return TestFonts.proportional();
+        };
+        final SpriteFont first = cache.get("a", loader);
+        assertSame(first, cache.get("a", loader));
+        assertEquals(1, loads.get());
+        final SpriteFontCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.loads());
+        assertEquals(1, stats.size());
+        assertEquals(weight, stats.weight());
+        assertEquals(0.5, stats.hitRate(), 0);
+        assertTrue(cache.invalidate("a"));
+        assertEquals(0, cache.stats().weight());
+        cache.get("a", loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws Exception {
+        final SpriteFontCache cache = new SpriteFontCache(2 * weight);
+        final SpriteFont a = cache.get("a", TestFonts::proportional);
+        cache.get("b", TestFonts::proportional);
+        // touch "a" so "b" becomes eldest
+        assertSame(a, cache.get("a", TestFonts::proportional));
+        cache.get("c", TestFonts::proportional);
+        final SpriteFontCache.Stats stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.size());
+        assertEquals(2 * weight, stats.weight());
+        assertSame(a, cache.get("a", () -> {
+            throw new AssertionError("Should be cached!");
+        }));
+    }
+
+    @Test
+    public void shouldKeepSingleFontHeavierThanBudget() throws Exception {
+        final SpriteFontCache cache = new SpriteFontCache(1);
+        cache.get("a", TestFonts::proportional);
+        cache.get("b", TestFonts::proportional);
+        assertEquals(1, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    public void shouldDeduplicateConcurrentLoads() throws Exception {
+        final SpriteFontCache cache = new SpriteFontCache(1024 * 1024);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<SpriteFont> first = executor.submit(() -> cache.get("a", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                try {
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return font;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            final Future<SpriteFont> second = executor.submit(() -> cache.get("a", () -> {
+                loads.incrementAndGet();
+                return TestFonts.proportional();
+            }));
+            while (cache.stats().misses() < 2) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            assertSame(font, first.get(5, TimeUnit.SECONDS));
+            assertSame(font, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.stats().loads());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotCacheFailures() throws Exception {
+        final SpriteFontCache cache = new SpriteFontCache(1024 * 1024);
+        try {
+            cache.get("a", () -> {
+                throw new IOException("Broken!");
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals("Broken!", e.getMessage());
+        }
+        assertSame(font, cache.get("a", () -> font));
+        assertEquals(2, cache.stats().loads());
+    }
+
+    @Test
+    public void shouldNotCacheFontWithMalformedImage() throws Exception {
+        final SpriteFontCache cache = new SpriteFontCache(1024 * 1024);
+        final SpriteFont broken = new SpriteFont(
+                TestFonts.FONT_HEIGHT,
+                '?',
+                0,
+                font.glyphs(),
+                new byte[]{1, 2, 3, 4},
+                1,
+                1
+        );
+        try {
+            cache.get("a", () -> broken);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertSame(font, cache.get("a", () -> font));
+        assertEquals(2, cache.stats().loads());
+    }
+
+    @Test
+    public void shouldLoadFileAndResource() throws Exception {
+        final Path path = folder.newFile("font.sf").toPath();
+        try (OutputStream os = Files.newOutputStream(path); ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(font);
+        }
+        final SpriteFontCache cache = new SpriteFontCache(1024 * 1024);
+        final SpriteFont mapped = cache.get(path);
+        assertEquals(font, mapped);
+        assertSame(mapped, cache.get(path.getParent().resolve("./font.sf")));
+        final SpriteFont read = cache.get(path.toUri().toURL());
+        assertEquals(font, read);
+        assertSame(read, cache.get(path.toUri().toURL()));
+        assertEquals(2, cache.stats().size());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class SpriteFontJsonReaderTest {
+
+    private static final String ROWS = "{\"fontHeight\":14,\"defaultCharacter\":63,\"glyphXBorder\":1,\"glyphYBorder\":2," +
+            "\"unknown\":{\"a\":[1,2.5e3,\"x\\\"y\",true,null,{}]}," +
+            "\"glyphs\":[" +
+            "{\"glyphs\":[{\"character\":63,\"x\":1,\"y\":1,\"width\":6}," +
+            "{\"character\":65,\"x\":8,\"y\":1,\"width\":7,\"xOffset\":-1,\"yOffset\":2,\"inkWidth\":8,\"inkHeight\":9}]}," +
+            "{\"glyphs\":[{\"character\":128512,\"x\":16,\"y\":1}]}" +
+            "],\"kerning\":[{\"left\":65,\"right\":63,\"amount\":-2}]}";
+
+    private static final String COLUMNS = "{ \"layout\" : \"columnar\", \"fontHeight\" : 14, \"defaultCharacter\" : 63,\n" +
+            "  \"glyphXBorder\" : 1, \"glyphYBorder\" : 2,\n" +
+            "  \"glyphs\" : [\n" +
+            "    { \"characters\" : [63, 65], \"x\" : [1, 8], \"y\" : [1, 1], \"width\" : [6, 7],\n" +
+            "      \"xOffset\" : [0, -1], \"yOffset\" : [0, 2], \"inkWidth\" : [-1, 8], \"inkHeight\" : [-1, 9] },\n" +
+            "    { \"characters\" : [128512], \"x\" : [16], \"y\" : [1], \"width\" : [0] }\n" +
+            "  ],\n" +
+            "  \"kerning\" : { \"left\" : [65], \"right\" : [63], \"amount\" : [-2] }\n" +
+            "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] png = TestFonts.png(8, 4);
+
+    private SpriteFont expected() {
+        return new SpriteFont(
+                14,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('?', 1, 1, (short) 6),
+                                        new Glyph('A', 8, 1, (short) 7, (short) -1, (short) 2, (short) 8, (short) 9)
+                                }
+                        ),
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph(0x1f600, 16, 1, (short) 0)
+                                }
+                        )
+                },
+                png,
+                AtlasCodec.PNG,
+                new KerningTable(new int[]{'A'}, new int[]{'?'}, new short[]{-2}),
+                1,
+                2
+        );
+    }
+
+    @Test
+    public void shouldReadRows() throws Exception {
+        final SpriteFont font = SpriteFontJsonReader.read(new StringReader(ROWS), png);
+        assertEquals(expected(), font);
+        assertEquals(-2, font.kerning('A', '?'));
+        assertArrayEquals(png, font.image());
+    }
+
+    @Test
+    public void shouldReadColumns() throws Exception {
+        assertEquals(expected(), SpriteFontJsonReader.read(new StringReader(COLUMNS), png));
+    }
+
+    @Test
+    public void shouldReadFiles() throws Exception {
+        final Path json = folder.newFile("font.json").toPath();
+        final Path image = folder.newFile("font.png").toPath();
+        Files.write(json, COLUMNS.getBytes(StandardCharsets.UTF_8));
+        Files.write(image, png);
+        assertEquals(expected(), SpriteFontJsonReader.read(json, image));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnTruncatedJson() throws Exception {
+        SpriteFontJsonReader.read(new StringReader(ROWS.substring(0, ROWS.length() - 10)), png);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnMissingComma() throws Exception {
+        SpriteFontJsonReader.read(new StringReader(COLUMNS.replace("[1, 8]", "[1 8]")), png);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnFractions() throws Exception {
+        SpriteFontJsonReader.read(new StringReader(ROWS.replace("\"width\":6", "\"width\":6.5")), png);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnColumnsOfDifferentLength() throws Exception {
+        SpriteFontJsonReader.read(new StringReader(COLUMNS.replace("[6, 7]", "[6]")), png);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnMissingFields() throws Exception {
+        SpriteFontJsonReader.read(new StringReader("{\"fontHeight\":14}"), png);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailIfNotPng() throws Exception {
+        SpriteFontJsonReader.read(new StringReader(ROWS), new byte[]{1, 2, 3});
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class SpriteFontLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private Path write(String name, SpriteFont font) throws IOException {
+        final Path path = folder.newFile(name).toPath();
+        try (OutputStream os = Files.newOutputStream(path); ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(font);
+        }
+        return path;
+    }
+
+    @Test
+    public void shouldLoad() throws Exception {
+        final Path path = write("a.sf", TestFonts.proportional());
+        final SpriteFont font = new SpriteFontLoader(executor)
+                .load(path)
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(TestFonts.proportional(), font);
+        assertEquals(TestFonts.ATLAS_WIDTH * TestFonts.ATLAS_HEIGHT, font.pixels().remaining());
+        final SpriteFont resource = new SpriteFontLoader(executor)
+                .load(path.toUri().toURL())
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(font, resource);
+    }
+
+    @Test
+    public void shouldFail() throws Exception {
+        try {
+            new SpriteFontLoader(executor)
+                    .load(folder.getRoot().toPath().resolve("missing.sf"))
+                    .get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void shouldLoadAll() throws Exception {
+        final Path a = write("a.sf", TestFonts.proportional());
+        final Path b = write("b.sf", TestFonts.fixedPitch());
+        final Path missing = folder.getRoot().toPath().resolve("missing.sf");
+        final List<SpriteFontLoader.Result<Path>> results = new SpriteFontLoader(executor)
+                .loadAll(Arrays.asList(a, missing, b))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(3, results.size());
+        assertSame(a, results.get(0).source());
+        assertEquals(TestFonts.proportional(), results.get(0).font());
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(0).readNanos() > 0);
+        assertTrue(results.get(0).prepareNanos() > 0);
+        assertFalse(results.get(1).isSuccess());
+        assertNull(results.get(1).font());
+        assertTrue(results.get(1).error() instanceof NoSuchFileException);
+        assertEquals(TestFonts.fixedPitch(), results.get(2).font());
+    }
+
+    @Test
+    public void shouldLoadThroughCache() throws Exception {
+        final Path path = write("a.sf", TestFonts.proportional());
+        final SpriteFontCache cache = new SpriteFontCache(1024 * 1024);
+        final SpriteFontLoader loader = new SpriteFontLoader(executor, cache);
+        final SpriteFont font = loader.load(path).get(5, TimeUnit.SECONDS);
+        assertSame(font, loader.loadAll(Arrays.asList(path, path)).get(5, TimeUnit.SECONDS).get(1).font());
+        assertEquals(1, cache.stats().loads());
+    }
+}
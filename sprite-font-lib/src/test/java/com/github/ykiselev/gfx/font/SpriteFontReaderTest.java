@@ -0,0 +1,369 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class SpriteFontReaderTest {
+
+    private static final byte[] IMAGE = {1, 2, 3, 4};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] sample() throws IOException {
+        return sample(SpriteFontFormat.VERSION);
+    }
+
+    private byte[] sample(int version) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final DataOutputStream os = new DataOutputStream(bos);
+        // range start is 16-bit in version 1
+        final int startSize = version > 1 ? 4 : 2;
+        // glyphs have ink width (-1, no ink bounds) since version 3
+        final int ink = version > 2 ? 1 : 0;
+        // ranges have kind since version 4
+        final int kind = version > 3 ? 1 : 0;
+        os.writeInt(SpriteFontFormat.MAGIC);
+        os.writeShort(version);
+        // unknown chunk should be skipped
+        os.writeInt(SpriteFontFormat.tag("ABCD"));
+        os.writeInt(3);
+        os.write(new byte[]{7, 7, 7});
+        os.writeInt(SpriteFontFormat.META);
+        os.writeInt(18);
+        os.writeInt(14);
+        os.writeChar('a');
+        os.writeInt(0);
+        os.writeInt(1);
+        os.writeInt(2);
+        os.writeInt(SpriteFontFormat.GLYF);
+        os.writeInt(4 + 2 * kind + 8 + startSize + 10 + 2 * ink + 8 + startSize + 6 + ink);
+        os.writeInt(2);
+        // range 1: 'a' (1, 2, 5), 'b' (7, 2, 6)
+        writeKind(os, version);
+        os.writeInt(2);
+        writeStart(os, 'a', version);
+        os.writeInt(10 + 2 * ink);
+        os.write(new byte[]{0, 2, 4, 0, 5});
+        writeInk(os, version);
+        os.write(new byte[]{2, 12, 0, 0, 6});
+        writeInk(os, version);
+        // range 2: '\u0410' (200, 1, 7)
+        writeKind(os, version);
+        os.writeInt(1);
+        writeStart(os, '\u0410', version);
+        os.writeInt(6 + ink);
+        os.write(new byte[]{0, (byte) 0x90, 3, 2, 0, 7});
+        writeInk(os, version);
+        os.writeInt(SpriteFontFormat.IMAG);
+        os.writeInt(IMAGE.length);
+        os.write(IMAGE);
+        os.writeInt(SpriteFontFormat.END);
+        os.writeInt(0);
+        return bos.toByteArray();
+    }
+
+    private static void writeStart(DataOutputStream os, int start, int version) throws IOException {
+        if (version > 1) {
+            os.writeInt(start);
+        } else {
+            os.writeChar(start);
+        }
+    }
+
+    private static void writeKind(DataOutputStream os, int version) throws IOException {
+        if (version > 3) {
+            os.write(SpriteFontFormat.RANGE_GLYPHS);
+        }
+    }
+
+    private static void writeInk(DataOutputStream os, int version) throws IOException {
+        if (version > 2) {
+            // zig-zag encoded -1
+            os.write(1);
+        }
+    }
+
+    @Test
+    public void shouldRead() throws Exception {
+        final SpriteFont font = SpriteFontReader.read(new ByteArrayInputStream(sample()));
+        assertEquals(14, font.fontHeight());
+        assertEquals('a', font.defaultCharacter());
+        assertEquals(0, font.characterWidth());
+        assertEquals(1, font.glyphXBorder());
+        assertEquals(2, font.glyphYBorder());
+        assertArrayEquals(
+                new GlyphRange[]{
+                        new GlyphRange(new Glyph[]{
+                                new Glyph('a', 1, 2, (short) 5),
+                                new Glyph('b', 7, 2, (short) 6)
+                        }),
+                        new GlyphRange(new Glyph[]{
+                                new Glyph('\u0410', 200, 1, (short) 7)
+                        })
+                },
+                font.glyphs()
+        );
+        assertArrayEquals(IMAGE, font.image());
+    }
+
+    @Test
+    public void shouldReadVersion1() throws Exception {
+        assertEquals(
+                SpriteFontReader.read(new ByteArrayInputStream(sample())),
+                SpriteFontReader.read(new ByteArrayInputStream(sample(1)))
+        );
+    }
+
+    @Test
+    public void shouldReadVersion2() throws Exception {
+        assertEquals(
+                SpriteFontReader.read(new ByteArrayInputStream(sample())),
+                SpriteFontReader.read(new ByteArrayInputStream(sample(2)))
+        );
+    }
+
+    @Test
+    public void shouldReadVersion3() throws Exception {
+        assertEquals(
+                SpriteFontReader.read(new ByteArrayInputStream(sample())),
+                SpriteFontReader.read(new ByteArrayInputStream(sample(3)))
+        );
+    }
+
+    @Test
+    public void shouldReadGrid() throws Exception {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final DataOutputStream os = new DataOutputStream(bos);
+        os.writeInt(SpriteFontFormat.MAGIC);
+        os.writeShort(SpriteFontFormat.VERSION);
+        os.writeInt(SpriteFontFormat.META);
+        os.writeInt(18);
+        os.writeInt(10);
+        os.writeChar('a');
+        os.writeInt(5);
+        os.writeInt(1);
+        os.writeInt(1);
+        os.writeInt(SpriteFontFormat.GLYF);
+        os.writeInt(4 + 13 + 7);
+        os.writeInt(1);
+        // 'a'-'c' in 2 columns from (1, 2) with pitch 6x11, advance 5
+        os.write(SpriteFontFormat.RANGE_GRID);
+        os.writeInt(3);
+        os.writeInt('a');
+        os.writeInt(7);
+        os.write(new byte[]{2, 4, 4, 12, 22, 0, 5});
+        os.writeInt(SpriteFontFormat.IMAG);
+        os.writeInt(IMAGE.length);
+        os.write(IMAGE);
+        os.writeInt(SpriteFontFormat.END);
+        os.writeInt(0);
+        final SpriteFont font = SpriteFontReader.read(new ByteArrayInputStream(bos.toByteArray()));
+        final GlyphRange range = font.glyphs()[0];
+        assertTrue(range.isGrid());
+        assertEquals(3, range.size());
+        assertEquals(7, range.glyphX(1));
+        assertEquals(13, range.glyphY(2));
+        assertEquals(new Glyph('c', 1, 13, (short) 5), font.glyph('c'));
+        assertArrayEquals(
+                new Glyph[]{
+                        new Glyph('a', 1, 2, (short) 5),
+                        new Glyph('b', 7, 2, (short) 5),
+                        new Glyph('c', 1, 13, (short) 5)
+                },
+                range.glyphs()
+        );
+    }
+
+    @Test
+    public void shouldReadInkBounds() throws Exception {
+        // 'a' at (1, 2) width 5 with ink (1, 3) 3x6, ' ' at (1, 2) width 4 with empty ink
+        final ByteBuffer buf = ByteBuffer.wrap(new byte[]{
+                0, 2, 4, 0, 5, 6, 2, 6, 12,
+                (byte) 0x81, 1, 0, 0, 0, 4, 0, 0, 0, 0
+        });
+        assertArrayEquals(
+                new Glyph[]{
+                        new Glyph('a', 1, 2, (short) 5, (short) 1, (short) 3, (short) 3, (short) 6),
+                        new Glyph(' ', 1, 2, (short) 4, (short) 0, (short) 0, (short) 0, (short) 0)
+                },
+                SpriteFontReader.readGlyphs(buf, 2, 'a', SpriteFontFormat.VERSION)
+        );
+        assertFalse(buf.hasRemaining());
+    }
+
+    @Test
+    public void shouldReadStoredFingerprint() throws Exception {
+        final byte[] bytes = sample();
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final DataOutputStream os = new DataOutputStream(bos);
+        // insert fingerprint chunk before end chunk
+        os.write(bytes, 0, bytes.length - 8);
+        os.writeInt(SpriteFontFormat.FPRT);
+        os.writeInt(8);
+        os.writeLong(0x0123456789abcdefL);
+        os.write(bytes, bytes.length - 8, 8);
+        final SpriteFont font = SpriteFontReader.read(new ByteArrayInputStream(bos.toByteArray()));
+        assertEquals(0x0123456789abcdefL, font.fingerprint());
+        final SpriteFont computed = SpriteFontReader.read(new ByteArrayInputStream(bytes));
+        assertEquals(computed.fingerprint(), SpriteFontReader.read(new ByteArrayInputStream(bytes)).fingerprint());
+    }
+
+    @Test
+    public void shouldReadFromBuffer() throws Exception {
+        final byte[] bytes = sample();
+        final ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 3);
+        buffer.put(bytes).put(new byte[]{9, 9, 9}).flip();
+        final SpriteFont font = SpriteFontReader.read(buffer);
+        assertEquals(bytes.length, buffer.position());
+        assertEquals(new Glyph('b', 7, 2, (short) 6), font.glyph('b'));
+    }
+
+    @Test
+    public void shouldReadLegacy() throws Exception {
+        final SpriteFont font = TestFonts.proportional();
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(font);
+        }
+        assertEquals(font, SpriteFontReader.read(new ByteArrayInputStream(os.toByteArray())));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnTruncatedFile() throws Exception {
+        final byte[] bytes = sample();
+        final byte[] truncated = new byte[bytes.length - 10];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        SpriteFontReader.read(new ByteArrayInputStream(truncated));
+    }
+
+    @Test
+    public void shouldFailOnBadRangeCount() throws Exception {
+        for (int count : new int[]{-1, Integer.MAX_VALUE}) {
+            final byte[] bytes = sample();
+            // magic and version, unknown chunk, meta chunk, glyph chunk header
+            ByteBuffer.wrap(bytes).putInt(6 + 11 + 26 + 8, count);
+            try {
+                SpriteFontReader.read(new ByteArrayInputStream(bytes));
+                fail("Range count " + count + " should be rejected!");
+            } catch (IOException e) {
+                assertEquals("Malformed sprite font!", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void shouldFailOnBadGlyphCount() throws Exception {
+        for (int count : new int[]{-1, 3, Integer.MAX_VALUE}) {
+            final byte[] bytes = sample();
+            // range count and kind of the first range
+            ByteBuffer.wrap(bytes).putInt(6 + 11 + 26 + 8 + 4 + 1, count);
+            try {
+                SpriteFontReader.read(new ByteArrayInputStream(bytes));
+                fail("Glyph count " + count + " should be rejected!");
+            } catch (IOException e) {
+                assertEquals("Malformed sprite font!", e.getMessage());
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnUnknownFile() throws Exception {
+        SpriteFontReader.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    public void shouldMapLazily() throws Exception {
+        final Path path = folder.newFile("sample.sf").toPath();
+        Files.write(path, sample());
+        final SpriteFont font = SpriteFontReader.map(path);
+        final GlyphRange[] ranges = font.glyphs();
+        assertEquals(2, ranges.length);
+        assertEquals(2, ranges[0].size());
+        assertFalse(ranges[0].isMaterialized());
+        assertFalse(ranges[1].isMaterialized());
+        assertEquals(new Glyph('\u0410', 200, 1, (short) 7), ranges[1].glyphs()[0]);
+        assertFalse(ranges[0].isMaterialized());
+        assertTrue(ranges[1].isMaterialized());
+        final ByteBuffer image = font.imageBuffer();
+        assertTrue(image.isReadOnly());
+        assertEquals(ByteBuffer.wrap(IMAGE), image);
+        assertEquals(SpriteFontReader.read(new ByteArrayInputStream(sample())), font);
+        assertArrayEquals(IMAGE, font.image());
+    }
+
+    @Test
+    public void shouldMaterializeRangesOnLookup() throws Exception {
+        final Path path = folder.newFile("sample.sf").toPath();
+        Files.write(path, sample());
+        final SpriteFont font = SpriteFontReader.map(path);
+        final GlyphRange[] ranges = font.glyphs();
+        // range of default character 'a' is decoded along with index
+        assertEquals(7, font.advance('b'));
+        assertEquals(6, font.advance('c'));
+        assertTrue(ranges[0].isMaterialized());
+        assertFalse(ranges[1].isMaterialized());
+        assertEquals(new Glyph('\u0410', 200, 1, (short) 7), font.glyph('\u0410'));
+        assertTrue(ranges[1].isMaterialized());
+    }
+
+    @Test
+    public void shouldFailToMapTruncatedGlyphs() throws Exception {
+        final byte[] bytes = sample();
+        // ink width of the last glyph (just before image chunk) now says ink bounds follow
+        bytes[bytes.length - 8 - IMAGE.length - 8 - 1] = 2;
+        final Path path = folder.newFile("truncated.sf").toPath();
+        Files.write(path, bytes);
+        try {
+            SpriteFontReader.map(path);
+            fail("Truncated glyphs should be rejected!");
+        } catch (IOException e) {
+            assertEquals("Malformed sprite font!", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldMapLegacy() throws Exception {
+        final SpriteFont font = TestFonts.proportional();
+        final Path path = folder.newFile("legacy.sf").toPath();
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(path))) {
+            oos.writeObject(font);
+        }
+        assertEquals(font, SpriteFontReader.map(path));
+    }
+}
\ No newline at end of file
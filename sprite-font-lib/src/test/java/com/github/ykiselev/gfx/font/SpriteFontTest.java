@@ -23,8 +23,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Yuriy Kiselev (uze@yandex.ru).
@@ -57,4 +62,252 @@ public class SpriteFontTest {
         }
         assertEquals(spriteFont, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldPrepareDeserialized() throws Exception {
+        final SpriteFont font = TestFonts.proportional();
+        final byte[] bytes;
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream(); ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(font);
+            bytes = os.toByteArray();
+        }
+        final SpriteFont result;
+        try (InputStream is = new ByteArrayInputStream(bytes); ObjectInputStream ois = new ObjectInputStream(is)) {
+            result = (SpriteFont) ois.readObject();
+        }
+        assertEquals(font.glyphTable().size(), result.glyphTable().size());
+        assertEquals(font.pixels(), result.pixels());
+        assertEquals(font.glyph('b'), result.glyph('b'));
+    }
+
+    @Test
+    public void shouldLookupGlyphs() throws Exception {
+        final Glyph a = new Glyph('a', 0, 0, (short) 5);
+        final Glyph b = new Glyph('b', 5, 0, (short) 6);
+        final Glyph question = new Glyph('?', 11, 0, (short) 4);
+        final Glyph ya = new Glyph('\u044f', 0, 14, (short) 7);
+        final Glyph last = new Glyph(Character.MAX_VALUE, 7, 14, (short) 8);
+        final SpriteFont spriteFont = new SpriteFont(
+                14,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(new Glyph[]{question}),
+                        new GlyphRange(new Glyph[]{a, b}),
+                        new GlyphRange(new Glyph[]{ya, last})
+                },
+                new byte[0],
+                0,
+                0
+        );
+        assertSame(a, spriteFont.glyph('a'));
+        assertSame(b, spriteFont.glyph('b'));
+        assertSame(ya, spriteFont.glyph('\u044f'));
+        assertSame(last, spriteFont.glyph(Character.MAX_VALUE));
+        assertSame(question, spriteFont.defaultGlyph());
+        assertSame(question, spriteFont.glyph('c'));
+        assertSame(question, spriteFont.glyph('\u0430'));
+        assertSame(question, spriteFont.glyph('\u4e00'));
+    }
+
+    @Test
+    public void shouldReturnNullWithoutDefaultGlyph() throws Exception {
+        final SpriteFont spriteFont = new SpriteFont(
+                14,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(new Glyph[]{new Glyph('\u0410', 0, 0, (short) 5)})
+                },
+                new byte[0],
+                0,
+                0
+        );
+        assertNull(spriteFont.defaultGlyph());
+        assertNull(spriteFont.glyph('a'));
+    }
+
+    @Test
+    public void shouldMeasureProportional() throws Exception {
+        final SpriteFont font = TestFonts.proportional();
+        assertEquals(11, font.lineHeight());
+        assertEquals(3, font.advance('a'));
+        // missing characters take width of default character
+        assertEquals(5, font.advance('z'));
+        assertEquals(0, font.width(""));
+        assertEquals(3 + 4 + 5, font.width("abc"));
+        assertEquals(4 + 5, font.width("abc", 1, 3));
+        assertEquals(8 + 5, font.width("a b\n\u044fz\r\nc"));
+        assertEquals(11, font.height(""));
+        assertEquals(11, font.height("abc"));
+        assertEquals(33, font.height("a\n\nb"));
+        assertEquals(22, font.height("a\n\nb", 0, 2));
+    }
+
+    @Test
+    public void shouldMeasureFixedPitch() throws Exception {
+        final SpriteFont font = TestFonts.fixedPitch();
+        assertEquals(6, font.advance('a'));
+        assertEquals(18, font.width("abc"));
+        assertEquals(24, font.width("ab\nz ed\r\n"));
+        assertEquals(33, font.height("ab\nz ed\r\n"));
+    }
+
+    @Test
+    public void shouldDecodePixelsOnce() throws Exception {
+        final SpriteFont font = TestFonts.proportional();
+        final ByteBuffer pixels = font.pixels();
+        assertTrue(pixels.isReadOnly());
+        assertEquals(TestFonts.ATLAS_WIDTH * TestFonts.ATLAS_HEIGHT, pixels.remaining());
+        assertEquals(3 + 5, pixels.get(5 * TestFonts.ATLAS_WIDTH + 3));
+        final ByteBuffer dest = ByteBuffer.allocate(TestFonts.ATLAS_WIDTH * TestFonts.ATLAS_HEIGHT);
+        font.pixels(dest, 8);
+        assertFalse(dest.hasRemaining());
+        assertEquals(pixels, (ByteBuffer) dest.flip());
+    }
+
+    @Test
+    public void shouldSupportSupplementaryCodePoints() throws Exception {
+        final SpriteFont font = new SpriteFont(
+                10,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('?', 0, 0, (short) 4),
+                                        new Glyph('a', 5, 0, (short) 2),
+                                        new Glyph(0x1f600, 8, 0, (short) 9),
+                                        new Glyph(0x20000, 18, 0, (short) 7)
+                                }
+                        )
+                },
+                TestFonts.png(32, 16),
+                1,
+                1
+        );
+        assertEquals(0x1f600, font.glyph(0x1f600).codePoint());
+        assertEquals(0x20000, font.glyph(0x20000).codePoint());
+        assertEquals('?', font.glyph(0x1f601).codePoint());
+        assertEquals('?', font.glyph(Character.MAX_CODE_POINT + 1).codePoint());
+        assertEquals('a', font.glyph('a').codePoint());
+        // surrogate pair is measured as single code point
+        assertEquals(3 + 10 + 8, font.width("a\ud83d\ude00\ud840\udc00"));
+        // unpaired surrogates fall back to default glyph
+        assertEquals(5 + 5, font.width("\ud83d\ude00", 0, 1) + font.width("\ude00"));
+        assertEquals(2, font.glyphTable().indexOf(0x1f600));
+    }
+
+    @Test
+    public void shouldMeasureWithKerning() throws Exception {
+        final SpriteFont font = TestFonts.kerned();
+        assertEquals(-2, font.kerning('b', 'c'));
+        assertEquals(0, font.kerning('c', 'b'));
+        // 3 + 4 + 5 - 1 - 2
+        assertEquals(9, font.width("abc"));
+        // kerning is not applied across lines
+        assertEquals(4, font.width("a\nb"));
+        assertEquals(3 + 8 + 3, font.width("a\u044f"));
+    }
+
+    @Test
+    public void shouldLookUpGridGlyphs() throws Exception {
+        final SpriteFont font = new SpriteFont(
+                TestFonts.FONT_HEIGHT,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(new Glyph[]{new Glyph('?', 1, 1, (short) 4)}),
+                        GlyphRange.grid(' ', 95, 0, 12, 16, 6, 11, (short) 5),
+                        GlyphRange.grid(0x4e00, 600, 0, 80, 32, 11, 11, (short) 10)
+                },
+                TestFonts.png(TestFonts.ATLAS_WIDTH, TestFonts.ATLAS_HEIGHT),
+                1,
+                1
+        );
+        assertEquals(new Glyph('?', 1, 1, (short) 4), font.glyph('?'));
+        assertEquals(new Glyph('a', 6, 12 + 11 * 4, (short) 5), font.glyph('a'));
+        assertEquals(new Glyph(0x4e00 + 301, 11 * 13, 80 + 11 * 9, (short) 10), font.glyph(0x4e00 + 301));
+        assertEquals(11, font.advance(0x4e00 + 599));
+        assertEquals(font.defaultGlyph(), font.glyph(0x4e00 + 600));
+        assertEquals(1 + 95 + 600, font.glyphTable().size());
+        assertEquals(1 + 95 + 42, font.glyphTable().indexOf(0x4e00 + 42));
+    }
+
+    @Test
+    public void shouldNotMaterializeGrids() throws Exception {
+        final GlyphRange grid = GlyphRange.grid(0x4e00, 600, 0, 12, 32, 11, 11, (short) 10);
+        final SpriteFont font = new SpriteFont(
+                TestFonts.FONT_HEIGHT,
+                '?',
+                0,
+                new GlyphRange[]{
+                        grid,
+                        new GlyphRange(new Glyph[]{new Glyph('?', 1, 1, (short) 4)})
+                },
+                TestFonts.png(TestFonts.ATLAS_WIDTH, TestFonts.ATLAS_HEIGHT),
+                1,
+                1
+        );
+        assertEquals(11, font.width("\u4e01"));
+        final GlyphTable table = font.glyphTable();
+        // listed glyphs go first
+        assertEquals(0, table.indexOf('?'));
+        final int i = table.indexOf(0x4e00 + 33);
+        assertEquals(1 + 33, i);
+        assertEquals(0x4e00 + 33, table.codePoint(i));
+        assertEquals(11, table.x(i));
+        assertEquals(23, table.y(i));
+        assertEquals(10, table.width(i));
+        assertEquals(10, table.inkWidth(i));
+        assertEquals(TestFonts.FONT_HEIGHT, table.inkHeight(i));
+        assertEquals(11f / TestFonts.ATLAS_WIDTH, table.s0(i), 0.0001f);
+        assertEquals(33f / TestFonts.ATLAS_HEIGHT, table.t1(i), 0.0001f);
+        final ByteBuffer records = table.toByteBuffer();
+        assertEquals(601 * GlyphTable.RECORD_SIZE, records.remaining());
+        assertEquals(23, records.getInt(i * GlyphTable.RECORD_SIZE + 4));
+        font.fingerprint();
+        assertFalse(grid.isMaterialized());
+    }
+
+    @Test
+    public void shouldHaveContentFingerprint() throws Exception {
+        final SpriteFont font = TestFonts.proportional();
+        assertEquals(font.fingerprint(), TestFonts.proportional().fingerprint());
+        assertEquals(Long.hashCode(font.fingerprint()), font.hashCode());
+        assertEquals(font.hashCode(), TestFonts.proportional().hashCode());
+        assertFalse(font.fingerprint() == TestFonts.kerned().fingerprint());
+        final SpriteFont moved = new SpriteFont(
+                font.fontHeight(),
+                font.defaultCharacter(),
+                font.characterWidth(),
+                new GlyphRange[]{
+                        new GlyphRange(new Glyph[]{new Glyph('a', 0, 0, (short) 5)})
+                },
+                font.image(),
+                font.glyphXBorder(),
+                font.glyphYBorder()
+        );
+        final SpriteFont wider = new SpriteFont(
+                font.fontHeight(),
+                font.defaultCharacter(),
+                font.characterWidth(),
+                new GlyphRange[]{
+                        new GlyphRange(new Glyph[]{new Glyph('a', 0, 0, (short) 6)})
+                },
+                font.image(),
+                font.glyphXBorder(),
+                font.glyphYBorder()
+        );
+        assertFalse(moved.fingerprint() == wider.fingerprint());
+        assertFalse(moved.equals(wider));
+        // survives serialization
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(font);
+        }
+        try (InputStream is = new ByteArrayInputStream(os.toByteArray()); ObjectInputStream ois = new ObjectInputStream(is)) {
+            assertEquals(font.fingerprint(), ((SpriteFont) ois.readObject()).fingerprint());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Sample fonts for tests.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+final class TestFonts {
+
+    static final int FONT_HEIGHT = 10;
+
+    static final int ATLAS_WIDTH = 64;
+
+    static final int ATLAS_HEIGHT = 32;
+
+    private TestFonts() {
+    }
+
+    /**
+     * Proportional font with glyphs for '?', ' ', 'a'-'e' and '\u044f'. Glyph of 'x' is 'x' - 'a' + 2 pixels wide.
+     */
+    static SpriteFont proportional() {
+        return proportional(KerningTable.EMPTY);
+    }
+
+    /**
+     * Proportional font (see {@link #proportional()}) with kerning pairs "ab" (-1), "bc" (-2) and "a\u044f" (+3).
+     */
+    static SpriteFont kerned() {
+        return proportional(
+                new KerningTable(
+                        new int[]{'a', 'b', 'a'},
+                        new int[]{'b', 'c', '\u044f'},
+                        new short[]{-1, -2, 3}
+                )
+        );
+    }
+
+    private static SpriteFont proportional(KerningTable kerning) {
+        return new SpriteFont(
+                FONT_HEIGHT,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph(' ', 1, 1, (short) 3),
+                                        new Glyph('?', 5, 1, (short) 4)
+                                }
+                        ),
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('a', 10, 1, (short) 2),
+                                        new Glyph('b', 13, 1, (short) 3),
+                                        new Glyph('c', 17, 1, (short) 4),
+                                        new Glyph('d', 22, 1, (short) 5),
+                                        new Glyph('e', 28, 1, (short) 6)
+                                }
+                        ),
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('\u044f', 1, 12, (short) 7)
+                                }
+                        )
+                },
+                png(ATLAS_WIDTH, ATLAS_HEIGHT),
+                AtlasCodec.PNG,
+                kerning,
+                1,
+                1
+        );
+    }
+
+    /**
+     * Proportional font with ink bounds: '?' (advance 6, ink 4x7 at 1,2), 'a' (advance 5, ink 3x5 at 1,4), ' ' (advance
+     * 3, no ink) and 'b' without ink bounds (advance 4, whole cell). Ink rectangles are packed next to each other.
+     */
+    static SpriteFont inked() {
+        return new SpriteFont(
+                FONT_HEIGHT,
+                '?',
+                0,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph(' ', 0, 0, (short) 3, (short) 0, (short) 0, (short) 0, (short) 0),
+                                        new Glyph('?', 0, 0, (short) 6, (short) 1, (short) 2, (short) 4, (short) 7),
+                                        new Glyph('a', 5, 0, (short) 5, (short) 1, (short) 4, (short) 3, (short) 5),
+                                        new Glyph('b', 9, 0, (short) 4)
+                                }
+                        )
+                },
+                png(16, 16),
+                0,
+                1
+        );
+    }
+
+    /**
+     * Fixed pitch font with 5 pixels wide glyphs for '?', ' ' and 'a'-'e'.
+     */
+    static SpriteFont fixedPitch() {
+        final Glyph[] glyphs = new Glyph[7];
+        final String chars = " ?abcde";
+        for (int i = 0; i < glyphs.length; i++) {
+            glyphs[i] = new Glyph(chars.charAt(i), 1 + i * 6, 1, (short) 5);
+        }
+        return new SpriteFont(
+                FONT_HEIGHT,
+                '?',
+                5,
+                new GlyphRange[]{
+                        new GlyphRange(glyphs)
+                },
+                png(ATLAS_WIDTH, ATLAS_HEIGHT),
+                1,
+                1
+        );
+    }
+
+    /**
+     * @return the 8-bit grayscale png where value of each pixel is (x + y) &amp; 0xff
+     */
+    static byte[] png(int width, int height) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int v = (x + y) & 0xff;
+                image.getRaster().setSample(x, y, 0, v);
+            }
+        }
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", os);
+            return os.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class TextBatchTest {
+
+    private final SpriteFont font = TestFonts.proportional();
+
+    private final GlyphTable table = font.glyphTable();
+
+    @Test
+    public void shouldWriteQuads() throws Exception {
+        final TextBatch batch = new TextBatch(TextBatch.Mode.QUADS, true, 4);
+        assertEquals(20, batch.stride());
+        assertEquals(2, batch.append(font, "a\nb", 0, 3, 10, 20, 0x11223344));
+        final ByteBuffer v = batch.vertices();
+        assertEquals(0, v.position());
+        assertEquals(2 * 4 * 20, v.limit());
+        final int b = table.indexOf('b');
+        // second quad, bottom right vertex
+        final int p = 4 * 20 + 2 * 20;
+        assertEquals(10f + 3, v.getFloat(p), 0);
+        assertEquals(20f + 11 + 10, v.getFloat(p + 4), 0);
+        assertEquals(table.s1(b), v.getFloat(p + 8), 0);
+        assertEquals(table.t1(b), v.getFloat(p + 12), 0);
+        assertEquals(0x11, v.get(p + 16));
+        assertEquals(0x22, v.get(p + 17));
+        assertEquals(0x33, v.get(p + 18));
+        assertEquals(0x44, v.get(p + 19));
+        final ByteBuffer i = batch.indices();
+        assertEquals(12 * 4, i.limit());
+        final int[] expected = {0, 1, 2, 2, 3, 0, 4, 5, 6, 6, 7, 4};
+        for (int k = 0; k < expected.length; k++) {
+            assertEquals(expected[k], i.getInt(k * 4));
+        }
+    }
+
+    @Test
+    public void shouldWriteInstances() throws Exception {
+        final TextBatch batch = new TextBatch(TextBatch.Mode.INSTANCES, false, 1);
+        assertEquals(32, batch.stride());
+        // space only advances the pen
+        assertEquals(2, batch.append(font, "c d", 0, 3, 0, 0, 0));
+        final ByteBuffer v = batch.vertices();
+        assertEquals(2 * 32, v.limit());
+        assertEquals(0, batch.indices().limit());
+        final int d = table.indexOf('d');
+        assertEquals(5f + 4f, v.getFloat(32), 0);
+        assertEquals(0f, v.getFloat(36), 0);
+        assertEquals(5f, v.getFloat(40), 0);
+        assertEquals(10f, v.getFloat(44), 0);
+        assertEquals(table.s0(d), v.getFloat(48), 0);
+        assertEquals(table.t1(d), v.getFloat(60), 0);
+    }
+
+    @Test
+    public void shouldPlaceInkRectangles() throws Exception {
+        final SpriteFont font = TestFonts.inked();
+        final GlyphTable table = font.glyphTable();
+        final TextBatch batch = new TextBatch(TextBatch.Mode.INSTANCES, false, 4);
+        // space has empty ink rectangle and only advances the pen
+        assertEquals(2, batch.append(font, "a ?", 0, 3, 10, 20, 0));
+        final ByteBuffer v = batch.vertices();
+        assertEquals(10f + 1, v.getFloat(0), 0);
+        assertEquals(20f + 4, v.getFloat(4), 0);
+        assertEquals(3f, v.getFloat(8), 0);
+        assertEquals(5f, v.getFloat(12), 0);
+        assertEquals(table.s1(table.indexOf('a')), v.getFloat(24), 0);
+        assertEquals(10f + 5 + 3 + 1, v.getFloat(32), 0);
+        assertEquals(20f + 2, v.getFloat(36), 0);
+        assertEquals(4f, v.getFloat(40), 0);
+        assertEquals(7f, v.getFloat(44), 0);
+    }
+
+    @Test
+    public void shouldGrowAndReuse() throws Exception {
+        final TextBatch batch = new TextBatch(TextBatch.Mode.QUADS, false, 1);
+        batch.append(font, "abc", 0, 0);
+        final ByteBuffer first = batch.vertices();
+        batch.append(font, "abcde", 0, 0);
+        assertEquals(8, batch.count());
+        final ByteBuffer grown = batch.vertices();
+        assertNotSame(first, grown);
+        assertEquals(8 * 4 * batch.stride(), grown.limit());
+        // first glyph survived growing
+        assertEquals(table.s0(table.indexOf('a')), grown.getFloat(8), 0);
+        batch.clear();
+        assertEquals(0, batch.count());
+        batch.append(font, "abcde", 0, 0);
+        assertSame(grown, batch.vertices());
+    }
+
+    @Test
+    public void shouldApplyKerning() throws Exception {
+        final TextBatch batch = new TextBatch(TextBatch.Mode.INSTANCES, false, 4);
+        assertEquals(3, batch.append(TestFonts.kerned(), "abc", 0, 0));
+        final ByteBuffer v = batch.vertices();
+        assertEquals(0f, v.getFloat(0), 0);
+        assertEquals(3f - 1, v.getFloat(32), 0);
+        assertEquals(3f - 1 + 4 - 2, v.getFloat(64), 0);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class TextBlitterTest {
+
+    @Test
+    public void shouldDrawInkRectangle() throws Exception {
+        final TextBlitter blitter = new TextBlitter(TestFonts.inked());
+        final int[] dest = new int[8 * 10];
+        // ' ' moves pen by 3 (font has no x border)
+        blitter.draw(dest, 8, 10, " a", 0, 0, 0xffffffff);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 8; x++) {
+                // ink of 'a' is 3x5 at (5, 0) in atlas, drawn at (3 + 1, 4)
+                final boolean ink = x >= 4 && x < 7 && y >= 4 && y < 9;
+                final int coverage = ink ? x + y - 3 : 0;
+                final int expected = coverage != 0 ? coverage << 24 | 0xffffff : 0;
+                assertEquals("(" + x + ", " + y + ")", expected, dest[y * 8 + x]);
+            }
+        }
+    }
+
+    @Test
+    public void shouldBlendOverOpaquePixels() throws Exception {
+        final TextBlitter blitter = new TextBlitter(TestFonts.inked());
+        final int[] dest = new int[8 * 10];
+        Arrays.fill(dest, 0xff000000);
+        blitter.draw(dest, 8, 10, "a", 0, 0, 0xff204080);
+        // coverage at (3, 8) is 7 + 4 = 11
+        assertEquals(0xff010306, dest[8 * 8 + 3]);
+        assertEquals(0xff000000, dest[8 * 8 + 4]);
+        // half transparent colour over transparent pixel
+        final int[] clear = new int[8 * 10];
+        blitter.draw(clear, 8, 10, "a", 0, 0, 0x80204080);
+        assertEquals(6 << 24 | 0x204080, clear[8 * 8 + 3]);
+    }
+
+    @Test
+    public void shouldClip() throws Exception {
+        final TextBlitter blitter = new TextBlitter(TestFonts.inked());
+        final byte[] dest = new byte[2 * 6];
+        blitter.draw(dest, 2, 6, "a", -1, 1, 255);
+        // only first row of ink (atlas y 0) at dest y 5 and two columns (atlas x 5, 6) are left
+        assertArrayEquals(
+                new byte[]{
+                        0, 0,
+                        0, 0,
+                        0, 0,
+                        0, 0,
+                        0, 0,
+                        5, 6
+                },
+                dest
+        );
+        blitter.draw(dest, 2, 6, "a", -100, -100, 255);
+        blitter.draw(dest, 2, 6, "a", 100, 100, 255);
+        assertEquals(6, dest[11]);
+    }
+
+    @Test
+    public void shouldBlendIntensity() throws Exception {
+        final TextBlitter blitter = new TextBlitter(TestFonts.inked());
+        final byte[] dest = new byte[8 * 10];
+        Arrays.fill(dest, (byte) 100);
+        blitter.draw(dest, 8, 10, "a", 0, 0, 200);
+        // coverage 11: 100 + 100 * 11 / 255
+        assertEquals(104, dest[8 * 8 + 3]);
+        assertEquals(100, dest[8 * 8 + 4]);
+    }
+
+    @Test
+    public void shouldDrawBandsInParallel() throws Exception {
+        final TextBlitter blitter = new TextBlitter(TestFonts.kerned());
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            sb.append("abc de\u044f").append(i % 3 == 0 ? "\r\n" : "ab\n");
+        }
+        final int width = 80, height = 400;
+        final int[] expected = new int[width * height];
+        blitter.draw(expected, width, height, sb, 3, -5, 0xc0ff8040);
+        final byte[] expectedGray = new byte[width * height];
+        blitter.draw(expectedGray, width, height, sb, 3, -5, 200);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int bands = 1; bands <= 7; bands++) {
+                final int[] actual = new int[width * height];
+                blitter.draw(actual, width, height, sb, 3, -5, 0xc0ff8040, executor, bands);
+                assertArrayEquals(expected, actual);
+                final byte[] actualGray = new byte[width * height];
+                blitter.draw(actualGray, width, height, sb, 3, -5, 200, executor, bands);
+                assertArrayEquals(expectedGray, actualGray);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckRasterSize() throws Exception {
+        new TextBlitter(TestFonts.inked()).draw(new int[10], 4, 4, "a", 0, 0, -1);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Note: in test font advance of 'x' is 'x' - 'a' + 3, advance of space is 4.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class TextLayoutTest {
+
+    private final SpriteFont font = TestFonts.proportional();
+
+    private final TextLayout layout = new TextLayout();
+
+    private void assertLine(int line, int start, int end, int width) {
+        assertEquals("start", start, layout.lineStart(line));
+        assertEquals("end", end, layout.lineEnd(line));
+        assertEquals("width", width, layout.lineWidth(line));
+    }
+
+    @Test
+    public void shouldNotWrap() throws Exception {
+        assertEquals(1, layout.layout(font, "abc  ", 0));
+        assertLine(0, 0, 3, 12);
+        assertEquals(12, layout.width());
+        assertEquals(11, layout.height());
+    }
+
+    @Test
+    public void shouldLayoutEmptyText() throws Exception {
+        assertEquals(1, layout.layout(font, "", 10));
+        assertLine(0, 0, 0, 0);
+    }
+
+    @Test
+    public void shouldBreakAtSpaces() throws Exception {
+        // "ab" = 7, "ab cd" = 7 + 4 + 5 + 6 = 22
+        assertEquals(3, layout.layout(font, "ab cd  ee", 20));
+        assertLine(0, 0, 2, 7);
+        assertLine(1, 3, 5, 11);
+        assertLine(2, 7, 9, 14);
+    }
+
+    @Test
+    public void shouldBreakAfterHyphen() throws Exception {
+        // '-' is missing so it takes width of '?', which is 5
+        assertEquals(2, layout.layout(font, "ab-cd", 14));
+        assertLine(0, 0, 3, 12);
+        assertLine(1, 3, 5, 11);
+    }
+
+    @Test
+    public void shouldBreakLongWord() throws Exception {
+        assertEquals(4, layout.layout(font, "aaaaaaa", 7));
+        assertLine(0, 0, 2, 6);
+        assertLine(1, 2, 4, 6);
+        assertLine(2, 4, 6, 6);
+        assertLine(3, 6, 7, 3);
+    }
+
+    @Test
+    public void shouldPlaceTooWideCharacter() throws Exception {
+        assertEquals(2, layout.layout(font, "ea", 5));
+        assertLine(0, 0, 1, 7);
+        assertLine(1, 1, 2, 3);
+    }
+
+    @Test
+    public void shouldHandleNewLines() throws Exception {
+        assertEquals(4, layout.layout(font, "a \r\n\nb\n", 100));
+        assertLine(0, 0, 1, 3);
+        assertLine(1, 4, 4, 0);
+        assertLine(2, 5, 6, 4);
+        assertLine(3, 7, 7, 0);
+        assertEquals(44, layout.height());
+    }
+
+    @Test
+    public void shouldExpandTabs() throws Exception {
+        // tab stops are each 16 pixels
+        assertEquals(1, layout.layout(font, "a\tb\tc", 0));
+        assertLine(0, 0, 5, 32 + 5);
+    }
+
+    @Test
+    public void shouldReuseBuffers() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            sb.append("abc ");
+        }
+        assertEquals(20, layout.layout(font, sb, 15));
+        assertLine(19, 76, 79, 12);
+        assertEquals(1, layout.layout(font, "ab", 15));
+        assertLine(0, 0, 2, 7);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldCheckLineIndex() throws Exception {
+        layout.layout(font, "ab", 15);
+        layout.lineStart(1);
+    }
+
+    @Test
+    public void shouldNotSplitSurrogatePairs() throws Exception {
+        // each pair is one missing code point with width of '?' (5)
+        assertEquals(2, layout.layout(font, "a\ud83d\ude00\ud83d\ude00", 10));
+        assertLine(0, 0, 3, 8);
+        assertLine(1, 3, 5, 5);
+    }
+
+    @Test
+    public void shouldApplyKerning() throws Exception {
+        // "abc" is 12 pixels wide without kerning and 9 with it
+        assertEquals(1, layout.layout(TestFonts.kerned(), "abc", 10));
+        assertLine(0, 0, 3, 9);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encodes ARGB rasters as 8-bit RGBA png images (no filtering, default compression). Avoids AWT/ImageIO so service
+ * may run on headless minimal JRE.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+final class PngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private static final int COLOUR_TYPE_RGBA = 6;
+
+    private PngEncoder() {
+    }
+
+    /**
+     * @param argb   the raster of non-premultiplied ARGB pixels
+     * @param width  the raster width
+     * @param height the raster height
+     * @return the png image
+     */
+    static byte[] encode(int[] argb, int width, int height) {
+        if (width < 1 || height < 1 || argb.length < (long) width * height) {
+            throw new IllegalArgumentException("Bad raster: " + width + "x" + height);
+        }
+        try {
+            final ByteArrayOutputStream result = new ByteArrayOutputStream(64 + width * height);
+            result.write(SIGNATURE);
+            final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            final DataOutputStream os = new DataOutputStream(chunk);
+            os.writeInt(width);
+            os.writeInt(height);
+            os.writeByte(8);
+            os.writeByte(COLOUR_TYPE_RGBA);
+            // compression, filter, interlace
+            os.writeByte(0);
+            os.writeByte(0);
+            os.writeByte(0);
+            writeChunk(result, "IHDR", chunk);
+            chunk.reset();
+            final Deflater deflater = new Deflater();
+            try (DeflaterOutputStream dos = new DeflaterOutputStream(chunk, deflater, 8192)) {
+                final byte[] row = new byte[1 + 4 * width];
+                for (int y = 0; y < height; y++) {
+                    // filter type none
+                    row[0] = 0;
+                    for (int x = 0, p = y * width, k = 1; x < width; x++, p++) {
+                        final int pixel = argb[p];
+                        row[k++] = (byte) (pixel >>> 16);
+                        row[k++] = (byte) (pixel >>> 8);
+                        row[k++] = (byte) pixel;
+                        row[k++] = (byte) (pixel >>> 24);
+                    }
+                    dos.write(row);
+                }
+            } finally {
+                deflater.end();
+            }
+            writeChunk(result, "IDAT", chunk);
+            chunk.reset();
+            writeChunk(result, "IEND", chunk);
+            return result.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeChunk(ByteArrayOutputStream dest, String type, ByteArrayOutputStream data) throws IOException {
+        final DataOutputStream os = new DataOutputStream(dest);
+        final byte[] bytes = data.toByteArray();
+        final byte[] tag = type.getBytes("US-ASCII");
+        final CRC32 crc = new CRC32();
+        crc.update(tag);
+        crc.update(bytes);
+        os.writeInt(bytes.length);
+        os.write(tag);
+        os.write(bytes);
+        os.writeInt((int) crc.getValue());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Least recently used cache of encoded images keyed by font fingerprint, text, colour and scale. Total size of cached
+ * images is limited (single image larger than the limit is not cached at all).
+ * <p>
+ * Cache is thread safe, all operations are done under single lock (they are cheap, images are rendered outside of it).
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+final class RenderCache {
+
+    private final Object lock = new Object();
+
+    private final LinkedHashMap<Key, byte[]> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxBytes;
+
+    private long bytes;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * @param maxBytes the maximum total size of cached images, bytes
+     */
+    RenderCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size should not be negative!");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param key the key
+     * @return the cached image or {@code null}
+     */
+    byte[] get(Key key) {
+        synchronized (lock) {
+            final byte[] result = map.get(key);
+            if (result != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return result;
+        }
+    }
+
+    void put(Key key, byte[] image) {
+        requireNonNull(image);
+        if (image.length > maxBytes) {
+            return;
+        }
+        synchronized (lock) {
+            final byte[] previous = map.put(key, image);
+            if (previous != null) {
+                bytes -= previous.length;
+            }
+            bytes += image.length;
+            final Iterator<Map.Entry<Key, byte[]>> it = map.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                bytes -= it.next().getValue().length;
+                it.remove();
+                evictions++;
+            }
+        }
+    }
+
+    long hits() {
+        synchronized (lock) {
+            return hits;
+        }
+    }
+
+    long misses() {
+        synchronized (lock) {
+            return misses;
+        }
+    }
+
+    long evictions() {
+        synchronized (lock) {
+            return evictions;
+        }
+    }
+
+    int size() {
+        synchronized (lock) {
+            return map.size();
+        }
+    }
+
+    /**
+     * @return the total size of cached images, bytes
+     */
+    long bytes() {
+        synchronized (lock) {
+            return bytes;
+        }
+    }
+
+    static final class Key {
+
+        private final long fingerprint;
+
+        private final String text;
+
+        private final int colour;
+
+        private final int scale;
+
+        Key(long fingerprint, String text, int colour, int scale) {
+            this.fingerprint = fingerprint;
+            this.text = requireNonNull(text);
+            this.colour = colour;
+            this.scale = scale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return fingerprint == key.fingerprint &&
+                    colour == key.colour &&
+                    scale == key.scale &&
+                    text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(fingerprint);
+            result = 31 * result + text.hashCode();
+            result = 31 * result + colour;
+            return 31 * result + scale;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "fingerprint=" + fingerprint +
+                    ", text='" + text + '\'' +
+                    ", colour=" + colour +
+                    ", scale=" + scale +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font.server;
+
+import com.github.ykiselev.gfx.font.SpriteFont;
+import com.github.ykiselev.gfx.font.TextBlitter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Renders text to png images over HTTP using sprite fonts loaded by the application. Endpoints:
+ * <pre>
+ * GET /render?font=name&amp;text=Hello&amp;colour=ff202020&amp;scale=2
+ * GET /stats
+ * </pre>
+ * {@code font} is the name font was registered with, {@code colour} is hex {@code RRGGBB} or {@code AARRGGBB}
+ * (opaque black by default), {@code scale} is integer pixel scale 1-{@value #MAX_SCALE} (1 by default). Image is
+ * as wide as the widest line and as tall as all lines of text (see {@link SpriteFont#width(CharSequence)} and
+ * {@link SpriteFont#height(CharSequence)}), background is transparent. Encoded images are kept in LRU cache keyed by
+ * font fingerprint, text, colour and scale, {@code X-Cache} response header tells whether image was taken from cache.
+ * {@code /stats} returns request, cache and latency counters as plain text {@code name=value} lines.
+ * <p>
+ * Requests are handled on supplied executor or, by default, on virtual threads if they are available (Java 21+) and
+ * cached thread pool otherwise.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class TextRenderServer implements AutoCloseable {
+
+    public static final int MAX_SCALE = 8;
+
+    public static final int MAX_TEXT_LENGTH = 1024;
+
+    /**
+     * Maximum number of pixels in rendered (and scaled) image.
+     */
+    public static final int MAX_PIXELS = 4096 * 4096;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final HttpServer server;
+
+    /**
+     * Executor created by this server or {@code null} if executor was supplied.
+     */
+    private final ExecutorService ownExecutor;
+
+    private final Map<String, TextBlitter> blitters = new HashMap<>();
+
+    private final RenderCache cache;
+
+    private final long started = System.nanoTime();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder latency = new LongAdder();
+
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * Creates server with default executor.
+     *
+     * @see #TextRenderServer(InetSocketAddress, Map, long, Executor)
+     */
+    public TextRenderServer(InetSocketAddress address, Map<String, SpriteFont> fonts, long cacheBytes) throws IOException {
+        this(address, fonts, cacheBytes, null);
+    }
+
+    /**
+     * Binds server to the address, call {@link #start()} to start accepting requests. Atlases of all fonts are decoded
+     * here.
+     *
+     * @param address    the address to bind to (port 0 to choose free port, see {@link #address()})
+     * @param fonts      the fonts by name
+     * @param cacheBytes the maximum total size of cached images, bytes
+     * @param executor   the executor to handle requests on or {@code null} to use default one
+     * @throws IOException if server can not be bound
+     */
+    public TextRenderServer(InetSocketAddress address, Map<String, SpriteFont> fonts, long cacheBytes, Executor executor) throws IOException {
+        for (Map.Entry<String, SpriteFont> entry : fonts.entrySet()) {
+            blitters.put(requireNonNull(entry.getKey()), new TextBlitter(entry.getValue()));
+        }
+        this.cache = new RenderCache(cacheBytes);
+        this.server = HttpServer.create(address, 0);
+        this.ownExecutor = executor == null ? defaultExecutor() : null;
+        server.setExecutor(executor != null ? executor : ownExecutor);
+        server.createContext("/render", this::render);
+        server.createContext("/stats", this::stats);
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Serving {} font(s) on {}", blitters.size(), server.getAddress());
+    }
+
+    /**
+     * Stops server (requests being handled are not waited for) and shuts down default executor.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return the address server is bound to
+     */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    public Stats stats() {
+        return new Stats(
+                requests.sum(),
+                errors.sum(),
+                cache.hits(),
+                cache.misses(),
+                cache.evictions(),
+                cache.size(),
+                cache.bytes(),
+                latency.sum(),
+                maxLatency.get(),
+                System.nanoTime() - started
+        );
+    }
+
+    /**
+     * Renders text to png image.
+     *
+     * @throws IllegalArgumentException if image is too large
+     */
+    private static byte[] render(TextBlitter blitter, String text, int argb, int scale) {
+        final SpriteFont font = blitter.font();
+        final int width = Math.max(1, font.width(text));
+        final int height = Math.max(1, font.height(text));
+        if ((long) width * height * scale * scale > MAX_PIXELS) {
+            throw new IllegalArgumentException("Image is too large: " + width * scale + "x" + height * scale);
+        }
+        final int[] raster = new int[width * height];
+        blitter.draw(raster, width, height, text, 0, 0, argb);
+        if (scale == 1) {
+            return PngEncoder.encode(raster, width, height);
+        }
+        return PngEncoder.encode(scale(raster, width, height, scale), width * scale, height * scale);
+    }
+
+    private void render(HttpExchange exchange) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                reply(exchange, 405, "Only GET is supported");
+                return;
+            }
+            final Map<String, String> params;
+            try {
+                params = parseQuery(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException e) {
+                reply(exchange, 400, "Malformed query: " + e.getMessage());
+                return;
+            }
+            final String font = params.get("font");
+            final String text = params.get("text");
+            if (font == null || text == null) {
+                reply(exchange, 400, "Parameters font and text are required");
+                return;
+            }
+            final TextBlitter blitter = blitters.get(font);
+            if (blitter == null) {
+                reply(exchange, 404, "Unknown font: " + font);
+                return;
+            }
+            if (text.length() > MAX_TEXT_LENGTH) {
+                reply(exchange, 400, "Text is too long");
+                return;
+            }
+            final int argb, scale;
+            try {
+                argb = parseColour(params.getOrDefault("colour", "000000"));
+                scale = Integer.parseInt(params.getOrDefault("scale", "1"));
+            } catch (NumberFormatException e) {
+                reply(exchange, 400, "Bad number: " + e.getMessage());
+                return;
+            }
+            if (scale < 1 || scale > MAX_SCALE) {
+                reply(exchange, 400, "Scale should be in range 1-" + MAX_SCALE);
+                return;
+            }
+            final RenderCache.Key key = new RenderCache.Key(blitter.font().fingerprint(), text, argb, scale);
+            byte[] image = cache.get(key);
+            final boolean hit = image != null;
+            if (!hit) {
+                try {
+                    image = render(blitter, text, argb, scale);
+                } catch (IllegalArgumentException e) {
+                    reply(exchange, 400, e.getMessage());
+                    return;
+                }
+                cache.put(key, image);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("X-Cache", hit ? "HIT" : "MISS");
+            send(exchange, 200, image);
+        } catch (RuntimeException e) {
+            logger.error("Failed to render!", e);
+            reply(exchange, 500, "Internal error");
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        final Stats stats = stats();
+        final String body = "requests=" + stats.requests() + "\n"
+                + "errors=" + stats.errors() + "\n"
+                + "hits=" + stats.hits() + "\n"
+                + "misses=" + stats.misses() + "\n"
+                + "evictions=" + stats.evictions() + "\n"
+                + "cachedImages=" + stats.cachedImages() + "\n"
+                + "cachedBytes=" + stats.cachedBytes() + "\n"
+                + "averageLatencyMillis=" + stats.averageLatencyMillis() + "\n"
+                + "maxLatencyMillis=" + stats.maxLatencyNanos() / 1e6 + "\n"
+                + "requestsPerSecond=" + stats.requestsPerSecond() + "\n";
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, 200, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void record(long nanos) {
+        requests.increment();
+        latency.add(nanos);
+        maxLatency.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void reply(HttpExchange exchange, int code, String message) throws IOException {
+        errors.increment();
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, code, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        final Map<String, String> result = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return result;
+        }
+        for (String pair : query.split("&")) {
+            final int eq = pair.indexOf('=');
+            final String name = eq >= 0 ? pair.substring(0, eq) : pair;
+            final String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            result.putIfAbsent(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return result;
+    }
+
+    /**
+     * @param value the hex colour, {@code RRGGBB} or {@code AARRGGBB}
+     * @return the packed ARGB colour
+     */
+    static int parseColour(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                throw new NumberFormatException("Colour should be hex digits only: " + value);
+            }
+        }
+        if (value.length() == 6) {
+            return 0xff000000 | Integer.parseInt(value, 16);
+        }
+        if (value.length() == 8) {
+            return (int) Long.parseLong(value, 16);
+        }
+        throw new NumberFormatException("Colour should be RRGGBB or AARRGGBB: " + value);
+    }
+
+    private static int[] scale(int[] raster, int width, int height, int scale) {
+        final int scaledWidth = width * scale;
+        final int[] result = new int[scaledWidth * height * scale];
+        for (int y = 0; y < height; y++) {
+            final int row = y * scale * scaledWidth;
+            for (int x = 0; x < width; x++) {
+                final int pixel = raster[y * width + x];
+                for (int i = 0; i < scale; i++) {
+                    result[row + x * scale + i] = pixel;
+                }
+            }
+            for (int i = 1; i < scale; i++) {
+                System.arraycopy(result, row, result, row + i * scaledWidth, scaledWidth);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates virtual thread per task executor on Java 21+ (looked up reflectively as this module is compiled for
+     * Java 8) and cached thread pool otherwise.
+     */
+    static ExecutorService defaultExecutor() {
+        try {
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public static final class Stats {
+
+        private final long requests;
+
+        private final long errors;
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long evictions;
+
+        private final int cachedImages;
+
+        private final long cachedBytes;
+
+        private final long totalLatencyNanos;
+
+        private final long maxLatencyNanos;
+
+        private final long uptimeNanos;
+
+        /**
+         * @return the number of handled render requests (including failed ones)
+         */
+        public long requests() {
+            return requests;
+        }
+
+        /**
+         * @return the number of render requests answered with error
+         */
+        public long errors() {
+            return errors;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        public long evictions() {
+            return evictions;
+        }
+
+        public int cachedImages() {
+            return cachedImages;
+        }
+
+        public long cachedBytes() {
+            return cachedBytes;
+        }
+
+        public long totalLatencyNanos() {
+            return totalLatencyNanos;
+        }
+
+        public long maxLatencyNanos() {
+            return maxLatencyNanos;
+        }
+
+        public long uptimeNanos() {
+            return uptimeNanos;
+        }
+
+        /**
+         * @return the average time to handle render request (zero if there were no requests)
+         */
+        public double averageLatencyMillis() {
+            return requests > 0 ? totalLatencyNanos / 1e6 / requests : 0;
+        }
+
+        /**
+         * @return the average number of render requests per second since server was created
+         */
+        public double requestsPerSecond() {
+            return uptimeNanos > 0 ? requests * 1e9 / uptimeNanos : 0;
+        }
+
+        Stats(long requests, long errors, long hits, long misses, long evictions, int cachedImages, long cachedBytes, long totalLatencyNanos, long maxLatencyNanos, long uptimeNanos) {
+            this.requests = requests;
+            this.errors = errors;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.cachedImages = cachedImages;
+            this.cachedBytes = cachedBytes;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+            this.uptimeNanos = uptimeNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "requests=" + requests +
+                    ", errors=" + errors +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", evictions=" + evictions +
+                    ", cachedImages=" + cachedImages +
+                    ", cachedBytes=" + cachedBytes +
+                    ", totalLatencyNanos=" + totalLatencyNanos +
+                    ", maxLatencyNanos=" + maxLatencyNanos +
+                    ", uptimeNanos=" + uptimeNanos +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font.server;
+
+import com.github.ykiselev.gfx.font.SpriteFont;
+import com.github.ykiselev.gfx.font.SpriteFontReader;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts {@link TextRenderServer} on loopback interface:
+ * <pre>
+ * java -jar sprite-font-server.jar &lt;port&gt; &lt;name&gt;=&lt;file.sf&gt; [&lt;name&gt;=&lt;file.sf&gt; ...]
+ * </pre>
+ * Cache size (bytes, 64 MiB by default) may be set with {@code -Dsprite-font-server.cache-bytes=...}.
+ *
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public final class TextRenderServerApp {
+
+    private static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private TextRenderServerApp() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: sprite-font-server <port> <name>=<file.sf> [<name>=<file.sf> ...]");
+            System.exit(1);
+        }
+        final int port = Integer.parseInt(args[0]);
+        final Map<String, SpriteFont> fonts = new LinkedHashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            final int eq = args[i].indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected <name>=<file.sf>: " + args[i]);
+            }
+            fonts.put(args[i].substring(0, eq), SpriteFontReader.map(Paths.get(args[i].substring(eq + 1))));
+        }
+        final TextRenderServer server = new TextRenderServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                fonts,
+                Long.getLong("sprite-font-server.cache-bytes", DEFAULT_CACHE_BYTES)
+        );
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font.server;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class PngEncoderTest {
+
+    @Test
+    public void shouldEncode() throws Exception {
+        final int[] argb = {
+                0xff102030, 0x80405060, 0x00000000,
+                0x7fffffff, 0xffff0000, 0x01020304
+        };
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(PngEncoder.encode(argb, 3, 2)));
+        assertEquals(3, image.getWidth());
+        assertEquals(2, image.getHeight());
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 3; x++) {
+                assertEquals(argb[y * 3 + x], image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckRasterSize() throws Exception {
+        PngEncoder.encode(new int[5], 3, 2);
+    }
+}
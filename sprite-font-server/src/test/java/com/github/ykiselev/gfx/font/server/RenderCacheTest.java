@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class RenderCacheTest {
+
+    private static RenderCache.Key key(String text) {
+        return new RenderCache.Key(1L, text, 0xff000000, 1);
+    }
+
+    @Test
+    public void shouldCache() throws Exception {
+        final RenderCache cache = new RenderCache(100);
+        final byte[] image = new byte[10];
+        assertNull(cache.get(key("a")));
+        cache.put(key("a"), image);
+        assertSame(image, cache.get(key("a")));
+        assertNull(cache.get(new RenderCache.Key(1L, "a", 0xff000000, 2)));
+        assertNull(cache.get(new RenderCache.Key(2L, "a", 0xff000000, 1)));
+        assertNull(cache.get(new RenderCache.Key(1L, "a", 0xff000001, 1)));
+        assertEquals(1, cache.hits());
+        assertEquals(4, cache.misses());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws Exception {
+        final RenderCache cache = new RenderCache(100);
+        cache.put(key("a"), new byte[40]);
+        cache.put(key("b"), new byte[40]);
+        cache.get(key("a"));
+        cache.put(key("c"), new byte[40]);
+        assertNull(cache.get(key("b")));
+        assertEquals(1, cache.evictions());
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.bytes());
+        // larger than cache
+        cache.put(key("d"), new byte[101]);
+        assertNull(cache.get(key("d")));
+        assertEquals(80, cache.bytes());
+    }
+}
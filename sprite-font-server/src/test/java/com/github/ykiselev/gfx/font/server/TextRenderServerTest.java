@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 Yuriy Kiselev (uze@yandex.ru)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.ykiselev.gfx.font.server;
+
+import com.github.ykiselev.gfx.font.Glyph;
+import com.github.ykiselev.gfx.font.GlyphRange;
+import com.github.ykiselev.gfx.font.SpriteFont;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yuriy Kiselev (uze@yandex.ru).
+ */
+public class TextRenderServerTest {
+
+    private final SpriteFont font = font();
+
+    private TextRenderServer server;
+
+    /**
+     * Font with 4x8 glyphs 'a', 'b' and '?' (fully opaque cells) and x border 1.
+     */
+    private static SpriteFont font() {
+        final BufferedImage image = new BufferedImage(16, 8, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 16; x++) {
+                image.getRaster().setSample(x, y, 0, 255);
+            }
+        }
+        final byte[] png;
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", os);
+            png = os.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return new SpriteFont(
+                8,
+                '?',
+                4,
+                new GlyphRange[]{
+                        new GlyphRange(
+                                new Glyph[]{
+                                        new Glyph('?', 8, 0, (short) 4),
+                                        new Glyph('a', 0, 0, (short) 4),
+                                        new Glyph('b', 4, 0, (short) 4)
+                                }
+                        )
+                },
+                png,
+                1,
+                0
+        );
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TextRenderServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                Collections.singletonMap("test", font),
+                1024 * 1024
+        );
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    private HttpURLConnection get(String path) throws IOException {
+        final InetSocketAddress address = server.address();
+        final URL url = new URL("http://" + address.getHostString() + ":" + address.getPort() + path);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("GET");
+        return connection;
+    }
+
+    private static byte[] body(HttpURLConnection connection) throws IOException {
+        final InputStream is = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        try (InputStream in = is; ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                os.write(buffer, 0, read);
+            }
+            return os.toByteArray();
+        }
+    }
+
+    /**
+     * Request is counted after response is sent, so client may see response a bit earlier.
+     */
+    private TextRenderServer.Stats awaitRequests(long requests) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5_000;
+        TextRenderServer.Stats stats = server.stats();
+        while (stats.requests() < requests && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            stats = server.stats();
+        }
+        return stats;
+    }
+
+    @Test
+    public void shouldRender() throws Exception {
+        final HttpURLConnection connection = get("/render?font=test&text=" + URLEncoder.encode("ab\na", "UTF-8") + "&colour=80ff0000&scale=2");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("image/png", connection.getContentType());
+        assertEquals("MISS", connection.getHeaderField("X-Cache"));
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(body(connection)));
+        assertEquals(2 * font.width("ab\na"), image.getWidth());
+        assertEquals(2 * font.height("ab\na"), image.getHeight());
+        // first glyph cell is 4x8 at (0, 0), scaled twice
+        assertEquals(0x80ff0000, image.getRGB(7, 15));
+        // x border between 'a' and 'b'
+        assertEquals(0, image.getRGB(8, 0));
+        assertEquals(0x80ff0000, image.getRGB(10, 0));
+        // second line has single glyph
+        assertEquals(0, image.getRGB(10, 16));
+    }
+
+    @Test
+    public void shouldCacheImages() throws Exception {
+        final HttpURLConnection first = get("/render?font=test&text=ab");
+        final byte[] image = body(first);
+        assertEquals("MISS", first.getHeaderField("X-Cache"));
+        final HttpURLConnection second = get("/render?font=test&text=ab");
+        assertEquals("HIT", second.getHeaderField("X-Cache"));
+        assertEquals(ByteBuffer.wrap(image), ByteBuffer.wrap(body(second)));
+        assertEquals("MISS", get("/render?font=test&text=ab&colour=ff000000&scale=2").getHeaderField("X-Cache"));
+        final TextRenderServer.Stats stats = awaitRequests(3);
+        assertEquals(3, stats.requests());
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.cachedImages());
+        assertTrue(stats.maxLatencyNanos() > 0);
+        final String text = new String(body(get("/stats")), StandardCharsets.UTF_8);
+        assertTrue(text, text.contains("hits=1\n"));
+        assertTrue(text, text.contains("requests=3\n"));
+    }
+
+    @Test
+    public void shouldReportErrors() throws Exception {
+        assertEquals(404, get("/render?font=none&text=ab").getResponseCode());
+        assertEquals(400, get("/render?font=test").getResponseCode());
+        assertEquals(400, get("/render?font=test&text=ab&colour=red").getResponseCode());
+        assertEquals(400, get("/render?font=test&text=ab&scale=0").getResponseCode());
+        assertEquals(400, get("/render?font=test&text=ab&colour=%2B0102030").getResponseCode());
+        final HttpURLConnection post = get("/render?font=test&text=ab");
+        post.setRequestMethod("POST");
+        assertEquals(405, post.getResponseCode());
+        assertEquals(6, awaitRequests(6).errors());
+    }
+
+    @Test
+    public void shouldParseColour() throws Exception {
+        assertEquals(0xff102030, TextRenderServer.parseColour("102030"));
+        assertEquals(0x80102030, TextRenderServer.parseColour("80102030"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMalformedEscape() throws Exception {
+        TextRenderServer.parseQuery("font=test&text=a%2");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectSignedColour() throws Exception {
+        TextRenderServer.parseColour("-0102030");
+    }
+}